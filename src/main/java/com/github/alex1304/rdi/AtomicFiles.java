@@ -0,0 +1,66 @@
+package com.github.alex1304.rdi;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes the files RDI keeps between runs, such as indexes, plans and profiles, so that readers never see a partially
+ * written file: the content is written to a temporary file in the same directory, which then replaces the target.
+ */
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Writes the given file atomically, if the file system supports it. The directories leading to it are created if
+     * needed. If writing fails, the temporary file is deleted and the previous content of the file, if any, is kept.
+     *
+     * @param file    the file to write
+     * @param content writes the content of the file to the given stream, which is buffered
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Content content) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                content.writeTo(out);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Throwable t) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    @FunctionalInterface
+    public interface Content {
+
+        /**
+         * Writes the content to the given stream. The stream is closed by the caller.
+         *
+         * @param out the stream to write to
+         * @throws IOException if writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -1,31 +1,165 @@
 package com.github.alex1304.rdi;
 
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.resolver.DependencyResolver;
+import com.github.alex1304.rdi.resolver.ResolutionPlan;
+import com.github.alex1304.rdi.resolver.ResolvedService;
+import com.github.alex1304.rdi.resolver.ServiceDisposer;
+import com.github.alex1304.rdi.resolver.ServiceLookup;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
+import com.github.alex1304.rdi.resolver.TypeIndex;
+import org.jspecify.annotations.Nullable;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
-class DefaultRdiServiceContainer implements RdiServiceContainer {
+class DefaultRdiServiceContainer implements RdiServiceContainer, ServiceLookup {
 
-    private final Map<ServiceReference<?>, Mono<Object>> serviceMonos;
+    private final @Nullable DefaultRdiServiceContainer parent;
+    private final Object updateLock = new Object();
+    private final AtomicBoolean disposed = new AtomicBoolean();
+    // Replaced as a whole by updates, so that each lookup sees a consistent set of services
+    private volatile ServiceIndex index;
 
-    DefaultRdiServiceContainer(Map<ServiceReference<?>, Mono<Object>> serviceMonos) {
-        this.serviceMonos = serviceMonos;
+    DefaultRdiServiceContainer(Map<ServiceReference<?>, ResolvedService> services, TypeIndex typeIndex,
+                               @Nullable DefaultRdiServiceContainer parent) {
+        this.parent = parent;
+        this.index = new ServiceIndex(services, typeIndex, parent != null ? parent : ServiceLookup.NONE);
     }
 
     @Override
     public <S> Mono<S> getService(ServiceReference<S> serviceRef) {
         requireNonNull(serviceRef);
-        return Mono.justOrEmpty(serviceMonos.get(serviceRef))
-                .flatMap(mono -> mono.cast(serviceRef.getServiceClass()))
+        if (disposed.get()) {
+            return Mono.error(new RdiException("Cannot get service '" + serviceRef + "': the container has been "
+                    + "disposed"));
+        }
+        ResolvedService service = index.getServices().get(serviceRef);
+        if (service == null && parent != null) {
+            return parent.getService(serviceRef);
+        }
+        return Mono.justOrEmpty(service)
+                .flatMap(s -> s.getMono().cast(serviceRef.getServiceClass()))
                 .switchIfEmpty(Mono.error(() -> new RdiException("Service '" + serviceRef + "' not found")));
     }
 
     @Override
     public boolean hasService(ServiceReference<?> serviceRef) {
         requireNonNull(serviceRef);
-        return serviceMonos.containsKey(serviceRef);
+        return find(serviceRef) != null;
     }
 
+    @Override
+    public <T> List<ServiceReference<? extends T>> getServicesOfType(Class<T> type) {
+        requireNonNull(type);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<ServiceReference<? extends T>> refs = (List) findReferencesOfType(type);
+        return refs;
+    }
+
+    @Override
+    public boolean hasServiceOfType(Class<?> type) {
+        requireNonNull(type);
+        return index.getTypeIndex().contains(type) || parent != null && parent.hasServiceOfType(type);
+    }
+
+    @Override
+    public @Nullable ResolvedService find(ServiceReference<?> ref) {
+        return index.find(ref);
+    }
+
+    @Override
+    public List<ServiceReference<?>> findReferencesOfType(Class<?> type) {
+        return index.findReferencesOfType(type);
+    }
+
+    @Override
+    public RdiServiceContainer createChild(RdiConfig config) {
+        requireNonNull(config);
+        TypeIndex childTypeIndex = TypeIndex.of(config.getServiceDescriptors());
+        ResolutionPlan plan = DependencyResolver.compile(config.getServiceDescriptors(), childTypeIndex, this);
+        return new DefaultRdiServiceContainer(plan.instantiate(), childTypeIndex, this);
+    }
+
+    @Override
+    public void updateServices(Collection<ServiceDescriptor> serviceDescriptors) {
+        requireNonNull(serviceDescriptors);
+        synchronized (updateLock) {
+            if (disposed.get()) {
+                throw new RdiException("Cannot update services: the container has been disposed");
+            }
+            index = new ServiceUpdate(index, serviceDescriptors).apply();
+        }
+    }
+
+    @Override
+    public ServiceStatistics getStatistics(ServiceReference<?> serviceRef) {
+        requireNonNull(serviceRef);
+        ResolvedService service = find(serviceRef);
+        if (service == null) {
+            throw new RdiException("Service '" + serviceRef + "' not found");
+        }
+        return service.getStatistics();
+    }
+
+    @Override
+    public Mono<Void> warmUp(Predicate<? super ServiceDescriptor> filter, int parallelism) {
+        requireNonNull(filter);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be strictly positive");
+        }
+        return warmUp(filter, parallelism, Collections.emptyMap());
+    }
+
+    Mono<Void> warmUp(Predicate<? super ServiceDescriptor> filter, int parallelism,
+                      Map<ServiceReference<?>, Duration> knownCosts) {
+        if (disposed.get()) {
+            return Mono.error(new RdiException("Cannot warm up: the container has been disposed"));
+        }
+        ServiceIndex index = this.index;
+        return new ServiceWarmer(index.getServices(), index.getDistinctServices())
+                .warmUp(filter, parallelism, knownCosts);
+    }
+
+    @Override
+    public Mono<Void> dispose(Duration timeout) {
+        requireNonNull(timeout);
+        if (timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        return Mono.defer(() -> {
+            if (!disposed.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            // Wait for an update in progress so that the services it brings in are disposed as well
+            ServiceIndex index;
+            synchronized (updateLock) {
+                index = this.index;
+            }
+            return new ServiceDisposer(index.getServices(), index.getDistinctServices()).dispose(timeout)
+                    .flatMap(failures -> failures.isEmpty() ? Mono.empty()
+                            : Mono.error(aggregateFailures("dispose", failures)));
+        });
+    }
+
+    static RdiException aggregateFailures(String action, Map<ServiceReference<?>, Throwable> failures) {
+        List<ServiceReference<?>> failedRefs = failures.keySet().stream()
+                .sorted(Comparator.comparing(ServiceReference::getServiceName))
+                .collect(Collectors.toList());
+        RdiException exception = new RdiException("Failed to " + action + " " + failedRefs.size() + " service(s): "
+                + failedRefs);
+        failedRefs.forEach(ref -> exception.addSuppressed(failures.get(ref)));
+        return exception;
+    }
 }
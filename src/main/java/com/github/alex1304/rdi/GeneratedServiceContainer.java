@@ -0,0 +1,348 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.generator.ContainerGenerator;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
+import com.github.alex1304.rdi.resolver.StatisticsRecorder;
+import org.jspecify.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Base class of the containers generated by {@link ContainerGenerator}. The generated subclass instantiates the
+ * services with direct calls to their factories, setters and init methods, and registers them in its constructor so
+ * that they can also be requested through the {@link RdiServiceContainer} interface.
+ *
+ * <p>
+ * Since a generated container is built from a fixed configuration, it doesn't support child containers nor updates of
+ * services. Its statistics are recorded by the generated accessors, which count every call as a request, including
+ * the ones made by a warm-up. The descriptors given to the filter of {@link #warmUp(Predicate, int)} only carry the
+ * reference, the aliases, the priority and whether the service is a singleton, see
+ * {@link ServiceDescriptor.Builder#buildWithoutMembers()}. Singletons are disposed in the reverse order of their
+ * creation.
+ */
+public abstract class GeneratedServiceContainer implements RdiServiceContainer {
+
+    // Recognized by Reactor as an infinite TTL, so no timer is scheduled
+    private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final Map<ServiceReference<?>, Supplier<? extends Mono<?>>> services = new HashMap<>();
+    private final Map<ServiceReference<?>, StatisticsRecorder> statistics = new HashMap<>();
+    private final List<Registration> registrations = new ArrayList<>();
+    private final Map<Class<?>, List<ServiceReference<?>>> referencesByType = new ConcurrentHashMap<>();
+    private final Deque<CreatedInstance> createdInstances = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean disposed = new AtomicBoolean();
+
+    /**
+     * Registers a service, which must be done in the constructor of the subclass, dependencies first.
+     *
+     * @param ref       the reference of the service
+     * @param priority  the priority of the service when listed by type
+     * @param singleton whether the service is a singleton, in which case it is instantiated by {@link #warmUp()}
+     * @param getter    gives the Mono emitting an instance of the service
+     * @param aliases   the aliases of the service
+     * @return the recorder of the statistics of the service
+     */
+    protected final StatisticsRecorder register(ServiceReference<?> ref, int priority, boolean singleton,
+                                                Supplier<? extends Mono<?>> getter,
+                                                ServiceReference<?>... aliases) {
+        Registration registration = new Registration(ref, priority, singleton, getter, Arrays.asList(aliases));
+        StatisticsRecorder recorder = new StatisticsRecorder();
+        Stream.concat(Stream.of(ref), registration.aliases.stream()).forEach(r -> {
+            if (services.putIfAbsent(r, getter) != null) {
+                throw new RdiException("Duplicate service registered: " + r);
+            }
+            statistics.put(r, recorder);
+        });
+        registrations.add(registration);
+        return recorder;
+    }
+
+    /**
+     * Records a singleton instance, so that it is disposed along with the container.
+     *
+     * @param ref      the reference of the service
+     * @param instance the instance of the service
+     * @param disposer invokes the dispose methods of the service, or null to close the instance if it implements
+     *                 {@link AutoCloseable} or dispose it if it implements {@link Disposable}
+     */
+    protected final void created(ServiceReference<?> ref, Object instance,
+                                 @Nullable Supplier<? extends Mono<?>> disposer) {
+        createdInstances.push(new CreatedInstance(ref, instance, disposer));
+    }
+
+    /**
+     * Creates a handle instantiating the given service on demand. Like the providers injected by the default
+     * container, each handle caches the instance it has obtained.
+     *
+     * @param ref the reference of the service
+     * @param <T> the type of the service
+     * @return a new {@link ServiceProvider}
+     */
+    protected final <T> ServiceProvider<T> provider(ServiceReference<T> ref) {
+        Mono<T> instance = Mono.defer(() -> getService(ref))
+                .cache(o -> FOREVER, e -> Duration.ZERO, () -> Duration.ZERO);
+        return new ServiceProvider<T>() {
+
+            @Override
+            public ServiceReference<T> getReference() {
+                return ref;
+            }
+
+            @Override
+            public Mono<T> get() {
+                return instance;
+            }
+
+            @Override
+            public String toString() {
+                return "ServiceProvider{ref=" + ref + "}";
+            }
+        };
+    }
+
+    /**
+     * Caches the instance emitted by the given Mono, unless it errors, in which case the next subscription tries
+     * again.
+     *
+     * @param mono the Mono creating the instance of a singleton
+     * @param <T>  the type of the service
+     * @return the caching Mono
+     */
+    protected static <T> Mono<T> cacheSingleton(Mono<T> mono) {
+        return mono.cache(o -> FOREVER, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Subscribes to all the given Monos and combines their values in the same order. Unlike {@link Mono#zip}, an empty
+     * array is emitted if no Mono is given.
+     *
+     * @param monos the Monos to combine
+     * @return a Mono emitting the values of the given Monos
+     */
+    protected static Mono<Object[]> all(Mono<?>... monos) {
+        if (monos.length == 0) {
+            return Mono.fromCallable(() -> new Object[0]);
+        }
+        return Mono.zip(Arrays.asList(monos), values -> values);
+    }
+
+    /**
+     * Gets a Mono completing when the given publisher, returned by a reactive init or dispose method, completes.
+     *
+     * @param publisher the publisher returned by the method, which may be null
+     * @return a Mono completing with the given publisher, or right away if it is null
+     */
+    protected static Mono<Void> completionOf(@Nullable Publisher<?> publisher) {
+        return publisher == null ? Mono.empty() : Mono.from(publisher).then();
+    }
+
+    @Override
+    public <S> Mono<S> getService(ServiceReference<S> serviceRef) {
+        requireNonNull(serviceRef);
+        if (disposed.get()) {
+            return Mono.error(new RdiException("Cannot get service '" + serviceRef + "': the container has been "
+                    + "disposed"));
+        }
+        Supplier<? extends Mono<?>> getter = services.get(serviceRef);
+        if (getter == null) {
+            return Mono.error(new RdiException("Service '" + serviceRef + "' not found"));
+        }
+        return Mono.defer(getter).cast(serviceRef.getServiceClass());
+    }
+
+    @Override
+    public boolean hasService(ServiceReference<?> serviceRef) {
+        requireNonNull(serviceRef);
+        return services.containsKey(serviceRef);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The services are listed in the same order and under the same reference as they would be by the default
+     * container: by descending priority then by name, each via its main reference if its class is assignable to the
+     * given type, otherwise via its first alias that is.
+     */
+    @Override
+    public <T> List<ServiceReference<? extends T>> getServicesOfType(Class<T> type) {
+        requireNonNull(type);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<ServiceReference<? extends T>> refs = (List) referencesByType.computeIfAbsent(type,
+                k -> registrations.stream()
+                        .sorted(Comparator.comparingInt((Registration registration) -> registration.priority)
+                                .reversed()
+                                .thenComparing(registration -> registration.ref.getServiceName()))
+                        .map(registration -> Stream.concat(Stream.of(registration.ref), registration.aliases.stream())
+                                .filter(ref -> type.isAssignableFrom(ref.getServiceClass()))
+                                .findFirst()
+                                .orElse(null))
+                        .filter(ref -> ref != null)
+                        .collect(Collectors.toList()));
+        return refs;
+    }
+
+    @Override
+    public boolean hasServiceOfType(Class<?> type) {
+        return !getServicesOfType(type).isEmpty();
+    }
+
+    @Override
+    public ServiceStatistics getStatistics(ServiceReference<?> serviceRef) {
+        requireNonNull(serviceRef);
+        StatisticsRecorder recorder = statistics.get(serviceRef);
+        if (recorder == null) {
+            throw new RdiException("Service '" + serviceRef + "' not found");
+        }
+        return recorder.getStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The selected singletons are started in the order they were registered, dependencies first, each on its own
+     * worker. The singletons they depend on are instantiated by their accessors, so a service waiting for a
+     * dependency that is being instantiated by another worker keeps its own worker until the dependency is ready.
+     */
+    @Override
+    public Mono<Void> warmUp(Predicate<? super ServiceDescriptor> filter, int parallelism) {
+        requireNonNull(filter);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be strictly positive");
+        }
+        return Mono.defer(() -> {
+            if (disposed.get()) {
+                return Mono.error(new RdiException("Cannot warm up: the container has been disposed"));
+            }
+            Map<ServiceReference<?>, Throwable> failures = new ConcurrentHashMap<>();
+            return Flux.fromIterable(registrations)
+                    .filter(registration -> registration.singleton && filter.test(registration.descriptor()))
+                    .flatMap(registration -> Mono.defer(registration.getter)
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .then()
+                            .onErrorResume(e -> {
+                                failures.put(registration.ref, e);
+                                return Mono.empty();
+                            }), parallelism)
+                    .then(Mono.defer(() -> failures.isEmpty() ? Mono.empty()
+                            : Mono.error(DefaultRdiServiceContainer.aggregateFailures("warm up", failures))));
+        });
+    }
+
+    @Override
+    public Mono<Void> dispose(Duration timeout) {
+        requireNonNull(timeout);
+        if (timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        return Mono.defer(() -> {
+            if (!disposed.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            List<CreatedInstance> instances = new ArrayList<>();
+            CreatedInstance next;
+            while ((next = createdInstances.pollFirst()) != null) {
+                instances.add(next);
+            }
+            Map<ServiceReference<?>, Throwable> failures = new ConcurrentHashMap<>();
+            return Flux.fromIterable(instances)
+                    .concatMap(created -> {
+                        Mono<?> hook = created.disposeHook();
+                        if (hook == null) {
+                            return Mono.empty();
+                        }
+                        return hook.subscribeOn(Schedulers.boundedElastic())
+                                .timeout(timeout)
+                                .onErrorMap(TimeoutException.class, e -> new RdiException("Disposal of service '"
+                                        + created.ref + "' timed out after " + timeout.toMillis() + "ms", e))
+                                .then()
+                                .onErrorResume(e -> {
+                                    failures.put(created.ref, e);
+                                    return Mono.empty();
+                                });
+                    })
+                    .then(Mono.defer(() -> failures.isEmpty() ? Mono.empty()
+                            : Mono.error(DefaultRdiServiceContainer.aggregateFailures("dispose", failures))));
+        });
+    }
+
+    private static final class Registration {
+
+        private final ServiceReference<?> ref;
+        private final int priority;
+        private final boolean singleton;
+        private final Supplier<? extends Mono<?>> getter;
+        private final List<ServiceReference<?>> aliases;
+
+        private Registration(ServiceReference<?> ref, int priority, boolean singleton,
+                             Supplier<? extends Mono<?>> getter, List<ServiceReference<?>> aliases) {
+            this.ref = ref;
+            this.priority = priority;
+            this.singleton = singleton;
+            this.getter = getter;
+            this.aliases = aliases;
+        }
+
+        private ServiceDescriptor descriptor() {
+            ServiceDescriptor.Builder builder = ServiceDescriptor.builder(ref)
+                    .setSingleton(singleton)
+                    .setPriority(priority);
+            aliases.forEach(builder::addAlias);
+            return builder.buildWithoutMembers();
+        }
+    }
+
+    private static final class CreatedInstance {
+
+        private final ServiceReference<?> ref;
+        private final Object instance;
+        private final @Nullable Supplier<? extends Mono<?>> disposer;
+
+        private CreatedInstance(ServiceReference<?> ref, Object instance,
+                                @Nullable Supplier<? extends Mono<?>> disposer) {
+            this.ref = ref;
+            this.instance = instance;
+            this.disposer = disposer;
+        }
+
+        private @Nullable Mono<?> disposeHook() {
+            if (disposer != null) {
+                return Mono.defer(disposer);
+            }
+            if (instance instanceof AutoCloseable) {
+                return Mono.fromCallable(() -> {
+                    ((AutoCloseable) instance).close();
+                    return true;
+                });
+            }
+            if (instance instanceof Disposable) {
+                return Mono.fromRunnable(((Disposable) instance)::dispose);
+            }
+            return null;
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.github.alex1304.rdi;
 
 import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
 import com.github.alex1304.rdi.resolver.DependencyResolver;
+import com.github.alex1304.rdi.resolver.ResolutionPlan;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
 import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
 
 import static java.util.Objects.requireNonNull;
 
@@ -25,7 +35,105 @@ public interface RdiServiceContainer {
      */
     static RdiServiceContainer create(RdiConfig config) {
         requireNonNull(config);
-        return new DefaultRdiServiceContainer(DependencyResolver.resolve(config.getServiceDescriptors()));
+        return create(compile(config));
+    }
+
+    /**
+     * Performs the dependency resolution of the given config once, so that any number of containers can be created
+     * from the result with {@link #create(ResolutionPlan)}. This is suited when many containers with the same
+     * configuration live in the same application, for example one per tenant: the resolved plan, including the
+     * reactive chains and method handles, is shared by all of them.
+     *
+     * @param config the RDI configuration containing all info about services and their dependencies
+     * @return the resolution plan of the config
+     * @throws RdiException if the services of the given config cannot be resolved
+     */
+    static ResolutionPlan compile(RdiConfig config) {
+        requireNonNull(config);
+        return DependencyResolver.compile(config.getServiceDescriptors());
+    }
+
+    /**
+     * Performs the dependency resolution of the given config as by {@link #compile(RdiConfig)}, reusing the outcome
+     * of a previous resolution stored in the given file. This saves the discovery of the dependencies and the
+     * detection of cycles on each start of the application. The file is rewritten whenever it is missing or doesn't
+     * match the config anymore.
+     *
+     * @param config   the RDI configuration containing all info about services and their dependencies
+     * @param planFile the path of the file storing the resolution, which doesn't need to exist
+     * @return the resolution plan of the config
+     * @throws RdiException if the services of the given config cannot be resolved
+     * @see DependencyResolver#compile(java.util.Set, Path)
+     */
+    static ResolutionPlan compile(RdiConfig config, Path planFile) {
+        requireNonNull(config);
+        requireNonNull(planFile);
+        return DependencyResolver.compile(config.getServiceDescriptors(), planFile);
+    }
+
+    /**
+     * Creates a new {@link RdiServiceContainer} from an already resolved plan. The container only holds the state of
+     * the services it uses, such as their singletons and statistics, which are independent from the ones of the other
+     * containers created from the same plan. Creating it doesn't perform any resolution or instantiation.
+     *
+     * @param plan the resolution plan, obtained from {@link #compile(RdiConfig)}
+     * @return a new {@link RdiServiceContainer}
+     */
+    static RdiServiceContainer create(ResolutionPlan plan) {
+        requireNonNull(plan);
+        return new DefaultRdiServiceContainer(plan.instantiate(), plan.getTypeIndex(), null);
+    }
+
+    /**
+     * Creates a child container of this one. The child only resolves the services of the given config, which may
+     * depend on the services of this container: references that aren't registered in the child are delegated to this
+     * container, and collections injected in the child also contain the matching services of this container. The
+     * child therefore shares the singletons of this container instead of instantiating its own, and creating it
+     * doesn't resolve the services of this container again. A service registered in the child under the same
+     * reference as a service of this container hides the latter for the child and its services.
+     *
+     * <p>
+     * Disposing the child only disposes its own services, and should be done before disposing this container. This
+     * container is unaware of its children.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}, which
+     * is the case of the containers generated by {@link com.github.alex1304.rdi.generator.ContainerGenerator}.
+     *
+     * @param config the RDI configuration containing the services specific to the child
+     * @return a new {@link RdiServiceContainer} having this one as parent
+     * @throws RdiException                  if the services of the given config cannot be resolved
+     * @throws UnsupportedOperationException if this container cannot have children
+     */
+    default RdiServiceContainer createChild(RdiConfig config) {
+        throw new UnsupportedOperationException("This container cannot have children");
+    }
+
+    /**
+     * Registers new services in this container, or replaces existing ones, while it is in use. A descriptor whose
+     * main reference matches a service of this container replaces it, otherwise it registers a new service. Only the
+     * given services and those depending on a replaced service, directly or through other services, are resolved
+     * again, including the services injecting a collection that a given service is assignable to. All other services
+     * keep their cached singleton instances.
+     *
+     * <p>
+     * The changes are applied atomically: subscriptions made after this method returns use the new services, while
+     * subscriptions already in progress complete with the services they started with. Singleton instances of the
+     * services resolved again are dropped without being disposed. Child containers created before the update keep
+     * the services of this container they were created with.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}, which
+     * is the case of the containers generated by {@link com.github.alex1304.rdi.generator.ContainerGenerator}.
+     *
+     * @param serviceDescriptors the descriptors of the services to register or replace
+     * @throws RdiException                  if a reference or alias of a given service belongs to another service, or
+     *                                       if the services cannot be resolved. In that case, this container is left
+     *                                       unchanged.
+     * @throws UnsupportedOperationException if the services of this container cannot be updated
+     */
+    default void updateServices(Collection<ServiceDescriptor> serviceDescriptors) {
+        throw new UnsupportedOperationException("The services of this container cannot be updated");
     }
 
     /**
@@ -51,4 +159,125 @@ public interface RdiServiceContainer {
      * @return true if present, else false
      */
     boolean hasService(ServiceReference<?> serviceRef);
+
+    /**
+     * Gets the references of all services in this container that are assignable to the given type, that is whose
+     * reference or one of its aliases has a class that is a subtype of it. Each matching service appears once in the
+     * returned list, sorted by descending priority then by name. Like {@link #hasService(ServiceReference)}, it only
+     * relies on the configuration and does not initialize any service.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param <T>  the type of services
+     * @param type the type of services to look for
+     * @return the references of the matching services, empty if none
+     * @throws UnsupportedOperationException if this container cannot look up services by type
+     */
+    default <T> List<ServiceReference<? extends T>> getServicesOfType(Class<T> type) {
+        throw new UnsupportedOperationException("This container cannot look up services by type");
+    }
+
+    /**
+     * Checks if this container contains at least one service assignable to the given type. The default implementation
+     * checks whether {@link #getServicesOfType(Class)} returns any service.
+     *
+     * @param type the type to test
+     * @return true if present, else false
+     * @throws UnsupportedOperationException if this container cannot look up services by type
+     * @see #getServicesOfType(Class)
+     */
+    default boolean hasServiceOfType(Class<?> type) {
+        return !getServicesOfType(type).isEmpty();
+    }
+
+    /**
+     * Gets the statistics on the instances this container has produced for the service with the given reference, such
+     * as how many times a singleton was served from cache or had to be instantiated again after being released.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param serviceRef the service reference
+     * @return the live statistics of the service
+     * @throws RdiException                  if the service is not found in this container
+     * @throws UnsupportedOperationException if this container doesn't keep statistics
+     */
+    default ServiceStatistics getStatistics(ServiceReference<?> serviceRef) {
+        throw new UnsupportedOperationException("This container doesn't keep statistics");
+    }
+
+    /**
+     * Instantiates all singletons of this container ahead of their first request, so that the cost of creating them
+     * is not paid by the first subscribers. Equivalent to calling {@link #warmUp(Predicate, int)} with a filter
+     * accepting all services and the default concurrency of Reactor's flatMap operator.
+     *
+     * @return a Mono completing when all singletons have been instantiated
+     * @throws UnsupportedOperationException if this container cannot be warmed up
+     * @see #warmUp(Predicate, int)
+     */
+    default Mono<Void> warmUp() {
+        return warmUp(descriptor -> true, Queues.SMALL_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates the singletons of this container accepted by the given filter ahead of their first request.
+     * Services that aren't singletons are ignored, and the singletons the selected ones depend on are instantiated as
+     * well. Each service is started as soon as all the singletons its factory depends on are available, each on its
+     * own worker so that blocking factories don't hold the others back. When more services are ready than the
+     * parallelism allows, those heading the longest remaining chain of factory durations start first, the durations
+     * being the ones measured so far or, for services not built yet, the estimate given by their descriptor. A failing
+     * service does not stop the warm-up of the others.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param filter      the filter selecting which singletons to instantiate
+     * @param parallelism the maximum number of services being instantiated at the same time across the whole
+     *                    warm-up
+     * @return a Mono completing when all selected singletons have been instantiated. If some of them failed, it will
+     * error with an {@link RdiException} listing them, the errors of each service being attached as suppressed
+     * exceptions.
+     * @throws IllegalArgumentException      if parallelism is not strictly positive
+     * @throws UnsupportedOperationException if this container cannot be warmed up
+     */
+    default Mono<Void> warmUp(Predicate<? super ServiceDescriptor> filter, int parallelism) {
+        throw new UnsupportedOperationException("This container cannot be warmed up");
+    }
+
+    /**
+     * Disposes this container with a timeout of 30 seconds per service.
+     *
+     * @return a Mono completing when all cached singletons have been disposed
+     * @throws UnsupportedOperationException if this container cannot be disposed
+     * @see #dispose(Duration)
+     */
+    default Mono<Void> dispose() {
+        return dispose(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Disposes this container, releasing the resources held by the singleton instances it has cached. For each cached
+     * instance, the dispose methods of its descriptor are invoked, or if there isn't any, the instance is closed if it
+     * implements {@link AutoCloseable}, or disposed if it implements {@link reactor.core.Disposable}. A service is
+     * only disposed once all services depending on it have been, and independent services are disposed concurrently.
+     * Instances that are not cached, including those of services that aren't singletons, are left untouched.
+     *
+     * <p>
+     * Once disposed, the container can no longer be used: requesting a service errors with {@link RdiException}.
+     * Subscribing more than once to the Mono returned by this method, or calling it again, has no effect.
+     *
+     * <p>
+     * This is an optional operation: the default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param timeout the maximum time to wait for the disposal of each service
+     * @return a Mono completing when all cached singletons have been disposed. If some of them failed or timed out, it
+     * will error with an {@link RdiException} listing them, the errors of each service being attached as suppressed
+     * exceptions.
+     * @throws IllegalArgumentException      if timeout is zero or negative
+     * @throws UnsupportedOperationException if this container cannot be disposed
+     */
+    default Mono<Void> dispose(Duration timeout) {
+        throw new UnsupportedOperationException("This container cannot be disposed");
+    }
 }
@@ -0,0 +1,81 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.resolver.ResolvedService;
+import com.github.alex1304.rdi.resolver.ServiceLookup;
+import com.github.alex1304.rdi.resolver.TypeIndex;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * Immutable snapshot of the services resolved by a container, falling back to the services of its parent.
+ */
+class ServiceIndex implements ServiceLookup {
+
+    private final Map<ServiceReference<?>, ResolvedService> services;
+    private final TypeIndex typeIndex;
+    private final ServiceLookup parent;
+    private volatile @Nullable List<ResolvedService> distinctServices;
+
+    ServiceIndex(Map<ServiceReference<?>, ResolvedService> services, TypeIndex typeIndex, ServiceLookup parent) {
+        this.services = services;
+        this.typeIndex = typeIndex;
+        this.parent = parent;
+    }
+
+    Map<ServiceReference<?>, ResolvedService> getServices() {
+        return services;
+    }
+
+    TypeIndex getTypeIndex() {
+        return typeIndex;
+    }
+
+    ServiceLookup getParent() {
+        return parent;
+    }
+
+    /*
+     * Computed on demand, as going through all the services of an instantiated plan creates their state.
+     */
+    List<ResolvedService> getDistinctServices() {
+        List<ResolvedService> distinctServices = this.distinctServices;
+        if (distinctServices == null) {
+            // Aliases map to the same resolved service as the reference they point to
+            Set<ResolvedService> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            distinctServices = services.values().stream()
+                    .filter(distinct::add)
+                    .sorted(Comparator.comparing(service -> service.getReference().getServiceName()))
+                    .collect(Collectors.toList());
+            this.distinctServices = distinctServices;
+        }
+        return distinctServices;
+    }
+
+    @Override
+    public @Nullable ResolvedService find(ServiceReference<?> ref) {
+        ResolvedService service = services.get(ref);
+        return service != null ? service : parent.find(ref);
+    }
+
+    /*
+     * The type index may be shared with a snapshot holding more services, hence the filter.
+     */
+    @Override
+    public List<ServiceReference<?>> findReferencesOfType(Class<?> type) {
+        List<ServiceReference<?>> refs = typeIndex.getReferences(type).stream()
+                .filter(services::containsKey)
+                .collect(Collectors.toList());
+        List<ServiceReference<?>> parentRefs = parent.findReferencesOfType(type);
+        if (parentRefs.isEmpty()) {
+            return Collections.unmodifiableList(refs);
+        }
+        // Services of this container hide the ones of the parent registered under the same reference
+        parentRefs.stream()
+                .filter(ref -> !services.containsKey(ref))
+                .forEach(refs::add);
+        refs.sort(Comparator.comparing(ref -> Objects.requireNonNull(find(ref)).getDescriptor(), TypeIndex.order()));
+        return Collections.unmodifiableList(refs);
+    }
+}
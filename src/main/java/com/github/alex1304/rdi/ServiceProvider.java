@@ -0,0 +1,36 @@
+package com.github.alex1304.rdi;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Handle to a service that is only instantiated the first time it is requested through the handle, rather than when
+ * the service the handle is injected into is instantiated. It is useful for collaborators that are expensive to
+ * create and only needed on rare code paths.
+ *
+ * @param <T> the type of service
+ * @see com.github.alex1304.rdi.config.Injectable#provider(ServiceReference)
+ */
+public interface ServiceProvider<T> {
+
+    /**
+     * Gets the reference of the service this handle provides.
+     *
+     * @return the service reference
+     */
+    ServiceReference<T> getReference();
+
+    /**
+     * Gets the service. The first successful subscription instantiates it with all dependencies injected, as
+     * {@link RdiServiceContainer#getService(ServiceReference)} would, and the instance is then cached by this handle:
+     * subsequent subscriptions emit the same instance, even if the service isn't configured as singleton. If the
+     * instantiation fails, the error is not cached and the next subscription tries again.
+     *
+     * <p>
+     * The service is requested independently of the instance holding the handle. Subscribing to the returned Mono
+     * while that instance is still being created, for example from its factory method, will never complete if the
+     * provided service depends on it.
+     *
+     * @return a Mono emitting the service instance
+     */
+    Mono<T> get();
+}
@@ -1,5 +1,7 @@
 package com.github.alex1304.rdi;
 
+import org.jspecify.annotations.Nullable;
+
 import java.util.Objects;
 
 import static java.util.Objects.requireNonNull;
@@ -16,6 +18,10 @@ import static java.util.Objects.requireNonNull;
  * application you are not supposed to use two references with the same name but different classes. However, as said
  * earlier, the other way around is possible.
  *
+ * <p>
+ * A reference may also be created from the name of the class, in which case the class is only loaded the first time
+ * it is needed, see {@link ServiceReference#of(String, String, ClassLoader)}.
+ *
  * @param <T> the generic type of the service class
  * @see ServiceReference#of(String, Class)
  * @see ServiceReference#ofType(Class)
@@ -23,13 +29,23 @@ import static java.util.Objects.requireNonNull;
 public class ServiceReference<T> {
 
     private final String serviceName;
-    private final Class<T> serviceClass;
+    private final String serviceClassName;
+    private final @Nullable ClassLoader classLoader;
+    private volatile @Nullable Class<T> serviceClass;
 
     private ServiceReference(String serviceName, Class<T> serviceClass) {
         this.serviceName = serviceName;
+        this.serviceClassName = serviceClass.getName();
+        this.classLoader = null;
         this.serviceClass = serviceClass;
     }
 
+    private ServiceReference(String serviceName, String serviceClassName, @Nullable ClassLoader classLoader) {
+        this.serviceName = serviceName;
+        this.serviceClassName = serviceClassName;
+        this.classLoader = classLoader;
+    }
+
     /**
      * Creates a new {@link ServiceReference} with the given name and class.
      *
@@ -57,6 +73,38 @@ public class ServiceReference<T> {
         return new ServiceReference<>(serviceClass.getName(), serviceClass);
     }
 
+    /**
+     * Creates a new {@link ServiceReference} with the given name and the given class name. The class is loaded by the
+     * given class loader the first time {@link #getServiceClass()} is called, which the container only does when the
+     * service is first resolved or instantiated. Descriptors built for such references also defer the lookup of the
+     * methods of the service, see {@link com.github.alex1304.rdi.config.ServiceDescriptor.Builder#build()}.
+     *
+     * @param serviceName      the service name
+     * @param serviceClassName the binary name of the service class, as by {@link Class#getName()}
+     * @param classLoader      the class loader able to load the service class, or <code>null</code> for the
+     *                         bootstrap class loader
+     * @return a new {@link ServiceReference}
+     */
+    public static ServiceReference<?> of(String serviceName, String serviceClassName,
+                                         @Nullable ClassLoader classLoader) {
+        requireNonNull(serviceName);
+        requireNonNull(serviceClassName);
+        return new ServiceReference<>(serviceName, serviceClassName, classLoader);
+    }
+
+    /**
+     * Creates a new {@link ServiceReference} with the given class name, which is also used as name for this reference.
+     * The class is loaded lazily as described in {@link #of(String, String, ClassLoader)}.
+     *
+     * @param serviceClassName the binary name of the service class, as by {@link Class#getName()}
+     * @param classLoader      the class loader able to load the service class, or <code>null</code> for the
+     *                         bootstrap class loader
+     * @return a new {@link ServiceReference}
+     */
+    public static ServiceReference<?> ofType(String serviceClassName, @Nullable ClassLoader classLoader) {
+        return of(serviceClassName, serviceClassName, classLoader);
+    }
+
     /**
      * Gets the name of the service that is referred to.
      *
@@ -67,14 +115,44 @@ public class ServiceReference<T> {
     }
 
     /**
-     * Gets the class of the service that is referred to.
+     * Gets the name of the class of the service that is referred to, without loading it.
+     *
+     * @return the service class name
+     */
+    public String getServiceClassName() {
+        return serviceClassName;
+    }
+
+    /**
+     * Gets the class of the service that is referred to, loading it if this reference was created from a class name.
      *
      * @return the service class
+     * @throws RdiException if the class cannot be loaded
      */
     public Class<T> getServiceClass() {
+        Class<T> serviceClass = this.serviceClass;
+        if (serviceClass == null) {
+            try {
+                @SuppressWarnings("unchecked")
+                Class<T> loaded = (Class<T>) Class.forName(serviceClassName, false, classLoader);
+                this.serviceClass = serviceClass = loaded;
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new RdiException("Failed to load class " + serviceClassName + " of service " + serviceName, e);
+            }
+        }
         return serviceClass;
     }
 
+    /**
+     * Gets whether the class of the service has been loaded, which is always the case for references created from a
+     * {@link Class}.
+     *
+     * @return true if {@link #getServiceClass()} doesn't need to load the class, else false
+     */
+    public boolean isServiceClassLoaded() {
+        return serviceClass != null;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(serviceName);
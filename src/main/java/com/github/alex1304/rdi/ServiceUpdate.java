@@ -0,0 +1,111 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.config.Injectable;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.resolver.DependencyResolver;
+import com.github.alex1304.rdi.resolver.ResolvedService;
+import com.github.alex1304.rdi.resolver.TypeIndex;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Computes the snapshot of a container after registering or replacing some services. Only the new services and the
+ * ones depending on a replaced service, directly or not, are resolved again; the others are carried over as they are,
+ * along with their cached singletons. Services injecting a collection are considered dependent on every service
+ * registered or replaced with a matching type.
+ */
+class ServiceUpdate {
+
+    private final ServiceIndex current;
+    private final List<ServiceDescriptor> descriptors;
+
+    ServiceUpdate(ServiceIndex current, Collection<ServiceDescriptor> descriptors) {
+        this.current = current;
+        this.descriptors = new ArrayList<>(descriptors);
+    }
+
+    ServiceIndex apply() {
+        // Reject duplicates among the new descriptors the same way the config does
+        RdiConfig.Builder configBuilder = RdiConfig.builder();
+        descriptors.forEach(configBuilder::registerService);
+        Set<ResolvedService> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ServiceDescriptor descriptor : descriptors) {
+            ResolvedService existing = current.getServices().get(descriptor.getServiceReference());
+            if (existing != null) {
+                replaced.add(existing);
+            }
+            references(descriptor).forEach(ref -> {
+                ResolvedService other = current.getServices().get(ref);
+                if (other != null && !other.getReference().equals(descriptor.getServiceReference())) {
+                    throw new RdiException("Duplicate service registered: " + ref);
+                }
+            });
+        }
+        Set<ResolvedService> affected = affectedServices(replaced);
+        Map<ServiceReference<?>, ResolvedService> unaffected = new HashMap<>();
+        current.getServices().forEach((ref, service) -> {
+            if (!affected.contains(service)) {
+                unaffected.put(ref, service);
+            }
+        });
+        Set<ServiceDescriptor> toResolve = new HashSet<>(descriptors);
+        affected.stream()
+                .filter(service -> !replaced.contains(service))
+                .map(ResolvedService::getDescriptor)
+                .forEach(toResolve::add);
+        ServiceIndex unaffectedView = new ServiceIndex(unaffected, current.getTypeIndex(), current.getParent());
+        Map<ServiceReference<?>, ResolvedService> services = new HashMap<>(unaffected);
+        services.putAll(DependencyResolver.resolveServices(toResolve, TypeIndex.of(toResolve), unaffectedView));
+        Set<ServiceDescriptor> allDescriptors = services.values().stream()
+                .map(ResolvedService::getDescriptor)
+                .collect(Collectors.toSet());
+        return new ServiceIndex(services, TypeIndex.of(allDescriptors), current.getParent());
+    }
+
+    private Set<ResolvedService> affectedServices(Set<ResolvedService> replaced) {
+        Set<Class<?>> changedTypes = Stream.concat(descriptors.stream(),
+                        replaced.stream().map(ResolvedService::getDescriptor))
+                .flatMap(ServiceUpdate::references)
+                .map(ServiceReference::getServiceClass)
+                .collect(Collectors.toSet());
+        Map<ResolvedService, List<ResolvedService>> dependents = new IdentityHashMap<>();
+        Deque<ResolvedService> toVisit = new ArrayDeque<>(replaced);
+        for (ResolvedService service : current.getDistinctServices()) {
+            Stream.of(service.getFactoryDependencies(), service.getSetterDependencies(),
+                            service.getProvidedDependencies())
+                    .flatMap(List::stream)
+                    .distinct()
+                    .map(current.getServices()::get)
+                    // Services of the parent are never replaced by an update of this container
+                    .filter(Objects::nonNull)
+                    .forEach(dependency -> dependents.computeIfAbsent(dependency, k -> new ArrayList<>())
+                            .add(service));
+            if (injectsCollectionOf(service.getDescriptor(), changedTypes)) {
+                toVisit.add(service);
+            }
+        }
+        Set<ResolvedService> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!toVisit.isEmpty()) {
+            ResolvedService service = toVisit.remove();
+            if (affected.add(service)) {
+                toVisit.addAll(dependents.getOrDefault(service, Collections.emptyList()));
+            }
+        }
+        return affected;
+    }
+
+    private static boolean injectsCollectionOf(ServiceDescriptor descriptor, Set<Class<?>> types) {
+        return Stream.concat(descriptor.getFactoryParameters().stream(), descriptor.getSetterParameters().stream())
+                .map(Injectable::getElementType)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .anyMatch(elementType -> types.stream().anyMatch(elementType::isAssignableFrom));
+    }
+
+    private static Stream<ServiceReference<?>> references(ServiceDescriptor descriptor) {
+        return Stream.concat(Stream.of(descriptor.getServiceReference()), descriptor.getAliases().stream());
+    }
+}
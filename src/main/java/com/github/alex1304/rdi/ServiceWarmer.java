@@ -0,0 +1,235 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.resolver.ResolvedService;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
+import org.jspecify.annotations.Nullable;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/*
+ * Instantiates singletons ahead of their first request. A singleton is started as soon as all the singletons its
+ * factory depends on are available, and when more services are ready than the parallelism allows, those heading the
+ * longest remaining chain of factory durations go first. Subscribing to a dependent only once its dependencies are
+ * cached means the order in which its factory arguments are zipped no longer matters, so the order of the critical
+ * path is fully decided here.
+ */
+class ServiceWarmer {
+
+    // Every service weighs at least this much so that, without any measure or hint, longer chains still go first
+    private static final long MIN_COST_NANOS = 1;
+
+    private final Map<ServiceReference<?>, ResolvedService> services;
+    private final List<ResolvedService> distinctServices;
+
+    ServiceWarmer(Map<ServiceReference<?>, ResolvedService> services, List<ResolvedService> distinctServices) {
+        this.services = services;
+        this.distinctServices = distinctServices;
+    }
+
+    /*
+     * Durations recorded for a service in the given map, such as the ones measured in previous runs, take precedence
+     * over the hint of its descriptor, but not over durations measured since the container was created.
+     */
+    Mono<Void> warmUp(Predicate<? super ServiceDescriptor> filter, int parallelism,
+                      Map<ServiceReference<?>, Duration> knownCosts) {
+        // Planned at subscription time so that durations measured since the container was created are taken into
+        // account
+        return Mono.defer(() -> new Run(plan(filter, knownCosts), parallelism).start());
+    }
+
+    private List<Node> plan(Predicate<? super ServiceDescriptor> filter,
+                            Map<ServiceReference<?>, Duration> knownCosts) {
+        Map<ResolvedService, Node> nodes = new IdentityHashMap<>();
+        Deque<ResolvedService> toVisit = distinctServices.stream()
+                .filter(service -> service.getDescriptor().isSingleton())
+                .filter(service -> filter.test(service.getDescriptor()))
+                .collect(Collectors.toCollection(ArrayDeque::new));
+        // Singletons needed by the selected ones are built anyway, so they are scheduled explicitly as well
+        while (!toVisit.isEmpty()) {
+            ResolvedService service = toVisit.remove();
+            if (nodes.containsKey(service)) {
+                continue;
+            }
+            Node node = new Node(service);
+            nodes.put(service, node);
+            node.cost = collectFactoryCost(service, node, knownCosts, new IdentityHashMap<>());
+            toVisit.addAll(node.singletonDependencies);
+        }
+        for (Node node : nodes.values()) {
+            for (ResolvedService dependency : node.singletonDependencies) {
+                nodes.get(dependency).dependents.add(node);
+            }
+            node.pendingDependencies = node.singletonDependencies.size();
+        }
+        Map<Node, Long> ranks = new IdentityHashMap<>();
+        nodes.values().forEach(node -> node.rank = rank(node, ranks));
+        return nodes.values().stream()
+                .sorted(Comparator.comparing(node -> node.service.getReference().getServiceName()))
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Prototypes are instantiated again by each subscription, so a prototype dependency is never cached ahead and
+     * its cost adds up to the one of the service that needs it. Singletons reached through them become plain
+     * dependencies of the service.
+     */
+    private long collectFactoryCost(ResolvedService service, Node node, Map<ServiceReference<?>, Duration> knownCosts,
+                                    Map<ResolvedService, Long> prototypeCosts) {
+        long slowestPrototype = 0;
+        for (ServiceReference<?> ref : service.getFactoryDependencies()) {
+            ResolvedService dependency = services.get(ref);
+            if (dependency == null) {
+                // Owned by a parent container, and instantiated along with the service like any dependency
+                continue;
+            }
+            if (dependency.getDescriptor().isSingleton()) {
+                node.singletonDependencies.add(dependency);
+                continue;
+            }
+            Long prototypeCost = prototypeCosts.get(dependency);
+            if (prototypeCost == null) {
+                prototypeCost = collectFactoryCost(dependency, node, knownCosts, prototypeCosts);
+                prototypeCosts.put(dependency, prototypeCost);
+            }
+            // Factory arguments are resolved concurrently
+            slowestPrototype = Math.max(slowestPrototype, prototypeCost);
+        }
+        return estimatedCostNanos(service, knownCosts) + slowestPrototype;
+    }
+
+    private static long estimatedCostNanos(ResolvedService service, Map<ServiceReference<?>, Duration> knownCosts) {
+        ServiceStatistics statistics = service.getStatistics();
+        long measured = statistics.getAverageBuildDuration().plus(statistics.getAverageSetterDuration()).toNanos();
+        if (measured > 0) {
+            return measured;
+        }
+        Duration known = knownCosts.get(service.getReference());
+        if (known != null) {
+            return Math.max(MIN_COST_NANOS, known.toNanos());
+        }
+        return Math.max(MIN_COST_NANOS, service.getDescriptor()
+                .getEstimatedBuildDuration()
+                .map(Duration::toNanos)
+                .orElse(0L));
+    }
+
+    /*
+     * Length of the longest chain starting from this node and going through the services that depend on it, which is
+     * the minimum remaining time to complete the warm-up once this node is started.
+     */
+    private static long rank(Node node, Map<Node, Long> ranks) {
+        Long rank = ranks.get(node);
+        if (rank != null) {
+            return rank;
+        }
+        long longestDependent = 0;
+        for (Node dependent : node.dependents) {
+            longestDependent = Math.max(longestDependent, rank(dependent, ranks));
+        }
+        long computed = node.cost + longestDependent;
+        ranks.put(node, computed);
+        return computed;
+    }
+
+    private static class Node {
+
+        private final ResolvedService service;
+        private final Set<ResolvedService> singletonDependencies =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Node> dependents = new ArrayList<>();
+        private long cost;
+        private long rank;
+        private int pendingDependencies;
+
+        private Node(ResolvedService service) {
+            this.service = service;
+        }
+    }
+
+    private static class Run {
+
+        private final PriorityQueue<Node> ready = new PriorityQueue<>(Comparator.<Node>comparingLong(node -> node.rank)
+                .reversed()
+                .thenComparing(node -> node.service.getReference().getServiceName()));
+        private final Map<ServiceReference<?>, Throwable> failures = new HashMap<>();
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        private final Disposable.Composite subscriptions = Disposables.composite();
+        private final int parallelism;
+        private int remaining;
+        private int running;
+        private boolean cancelled;
+
+        private Run(List<Node> nodes, int parallelism) {
+            this.parallelism = parallelism;
+            this.remaining = nodes.size();
+            nodes.stream().filter(node -> node.pendingDependencies == 0).forEach(ready::add);
+        }
+
+        private Mono<Void> start() {
+            if (remaining == 0) {
+                return Mono.empty();
+            }
+            return done.asMono()
+                    .doOnSubscribe(s -> drain())
+                    .doOnCancel(() -> {
+                        synchronized (this) {
+                            cancelled = true;
+                        }
+                        subscriptions.dispose();
+                    });
+        }
+
+        private void drain() {
+            List<Node> toStart = new ArrayList<>();
+            synchronized (this) {
+                while (!cancelled && running < parallelism && !ready.isEmpty()) {
+                    running++;
+                    toStart.add(ready.remove());
+                }
+            }
+            for (Node node : toStart) {
+                // Each service is subscribed on its own worker so that blocking factories don't hold the others back
+                subscriptions.add(node.service.getMono()
+                        // Tells the services not to count this subscription as a request
+                        .contextWrite(Context.of("background", true))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribe(null, error -> complete(node, error), () -> complete(node, null)));
+            }
+        }
+
+        private void complete(Node node, @Nullable Throwable error) {
+            boolean finished;
+            synchronized (this) {
+                running--;
+                remaining--;
+                if (error != null) {
+                    failures.put(node.service.getReference(), error);
+                }
+                for (Node dependent : node.dependents) {
+                    // A failed dependency is cached as well, so dependents are still attempted to report their error
+                    if (--dependent.pendingDependencies == 0) {
+                        ready.add(dependent);
+                    }
+                }
+                finished = remaining == 0;
+            }
+            if (!finished) {
+                drain();
+            } else if (failures.isEmpty()) {
+                done.tryEmitEmpty();
+            } else {
+                done.tryEmitError(DefaultRdiServiceContainer.aggregateFailures("warm up", failures));
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.ServiceDescriptors;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates a {@link RdiServiceContainer} and records how it is used during startup into a local profile file, so that
+ * the next starts can prepare it accordingly.
+ *
+ * <p>
+ * For each service, the profile keeps whether it was requested within the early window following the creation of
+ * the container, over the last runs, along with the time its factory method and setters took. On the next start,
+ * {@link #warmUp()} instantiates ahead of time the singletons that were requested early in all recorded runs,
+ * prioritizing the most expensive chains, while services that were not always needed early stay lazy. The profile is
+ * only written when {@link #save()} is called.
+ *
+ * <p>
+ * The profile carries a fingerprint of the configuration it was recorded with. If the configuration has changed
+ * since, or if the file cannot be read, the profile is ignored and a new one is started.
+ */
+public final class StartupProfiler {
+
+    private static final Logger LOGGER = Loggers.getLogger("rdi.profile");
+    private static final Duration DEFAULT_EARLY_WINDOW = Duration.ofSeconds(30);
+    private static final int MAX_RECORDED_RUNS = 10;
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String SERVICE_KEY_PREFIX = "service.";
+    private static final String EARLY_RUNS_SUFFIX = ".earlyRuns";
+    private static final String FACTORY_NANOS_SUFFIX = ".factoryNanos";
+    private static final String SETTER_NANOS_SUFFIX = ".setterNanos";
+
+    private final DefaultRdiServiceContainer container;
+    private final Set<ServiceDescriptor> serviceDescriptors;
+    private final Path profileFile;
+    private final Duration earlyWindow;
+    private final String fingerprint;
+    private final Map<String, ProfileEntry> previousEntries;
+    private final Instant startTime;
+
+    private StartupProfiler(RdiConfig config, Path profileFile, Duration earlyWindow) {
+        this.container = (DefaultRdiServiceContainer) RdiServiceContainer.create(config);
+        this.serviceDescriptors = config.getServiceDescriptors();
+        this.profileFile = profileFile;
+        this.earlyWindow = earlyWindow;
+        this.fingerprint = fingerprint(serviceDescriptors);
+        this.previousEntries = readProfile(profileFile, fingerprint);
+        this.startTime = Instant.now();
+    }
+
+    /**
+     * Creates a container from the given config, along with a profiler reading and writing the given profile file. A
+     * service is considered requested early if it is requested during the 30 seconds following this call.
+     *
+     * @param config      the RDI configuration containing all info about services and their dependencies
+     * @param profileFile the file the profile is read from and saved to. It doesn't need to exist
+     * @return a new {@link StartupProfiler}
+     */
+    public static StartupProfiler create(RdiConfig config, Path profileFile) {
+        return create(config, profileFile, DEFAULT_EARLY_WINDOW);
+    }
+
+    /**
+     * Creates a container from the given config, along with a profiler reading and writing the given profile file.
+     *
+     * @param config      the RDI configuration containing all info about services and their dependencies
+     * @param profileFile the file the profile is read from and saved to. It doesn't need to exist
+     * @param earlyWindow the duration following this call during which a requested service is considered needed
+     *                    early
+     * @return a new {@link StartupProfiler}
+     * @throws IllegalArgumentException if earlyWindow is negative
+     */
+    public static StartupProfiler create(RdiConfig config, Path profileFile, Duration earlyWindow) {
+        requireNonNull(config);
+        requireNonNull(profileFile);
+        requireNonNull(earlyWindow);
+        if (earlyWindow.isNegative()) {
+            throw new IllegalArgumentException("Early window must not be negative");
+        }
+        return new StartupProfiler(config, profileFile, earlyWindow);
+    }
+
+    /**
+     * Gets the container created by this profiler.
+     *
+     * @return the container
+     */
+    public RdiServiceContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * Checks whether a profile matching the current configuration was read when this profiler was created.
+     *
+     * @return true if a valid profile was read, else false
+     */
+    public boolean hasProfile() {
+        return !previousEntries.isEmpty();
+    }
+
+    /**
+     * Gets the references of the singletons that were requested early in all runs recorded in the profile, which are
+     * the ones instantiated by {@link #warmUp()}.
+     *
+     * @return the references of the services needed early, empty if there is no valid profile
+     */
+    public Set<ServiceReference<?>> getEarlyServices() {
+        return serviceDescriptors.stream()
+                .filter(ServiceDescriptor::isSingleton)
+                .map(ServiceDescriptor::getServiceReference)
+                .filter(ref -> {
+                    ProfileEntry entry = previousEntries.get(ref.getServiceName());
+                    return entry != null && entry.isAlwaysEarly();
+                })
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Instantiates the singletons that the profile identifies as needed early, as with
+     * {@link RdiServiceContainer#warmUp(java.util.function.Predicate, int)}, using the durations recorded in the
+     * profile to decide which ones to start first. Completes immediately if there is no valid profile.
+     *
+     * @return a Mono completing when all early singletons have been instantiated. If some of them failed, it will error
+     * with an {@link RdiException} listing them.
+     */
+    public Mono<Void> warmUp() {
+        Set<ServiceReference<?>> earlyServices = getEarlyServices();
+        if (earlyServices.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<ServiceReference<?>, Duration> knownCosts = new HashMap<>();
+        serviceDescriptors.forEach(descriptor -> {
+            ProfileEntry entry = previousEntries.get(descriptor.getServiceReference().getServiceName());
+            if (entry != null) {
+                knownCosts.put(descriptor.getServiceReference(),
+                        Duration.ofNanos(entry.factoryNanos + entry.setterNanos));
+            }
+        });
+        return container.warmUp(descriptor -> earlyServices.contains(descriptor.getServiceReference()),
+                Queues.SMALL_BUFFER_SIZE, knownCosts);
+    }
+
+    /**
+     * Saves the profile, adding the observations of the current run to the ones of the previous runs if the profile
+     * read at creation matched the configuration, or replacing it otherwise. Durations of services that were not
+     * instantiated during this run are kept from the previous profile. The file is replaced atomically when the file
+     * system supports it.
+     *
+     * @return a Mono completing when the profile has been written. If writing fails, it will error with
+     * {@link RdiException}.
+     */
+    public Mono<Void> save() {
+        return Mono.<Void>fromRunnable(this::writeProfile)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(UncheckedIOException.class, e -> new RdiException("Failed to save startup profile to "
+                        + profileFile, e.getCause()));
+    }
+
+    private void writeProfile() {
+        Properties properties = new Properties();
+        properties.setProperty(FINGERPRINT_KEY, fingerprint);
+        for (ServiceDescriptor descriptor : serviceDescriptors) {
+            String name = descriptor.getServiceReference().getServiceName();
+            ServiceStatistics statistics = container.getStatistics(descriptor.getServiceReference());
+            ProfileEntry previous = previousEntries.getOrDefault(name, new ProfileEntry("", 0, 0));
+            boolean early = statistics.getFirstRequestTime()
+                    .map(time -> Duration.between(startTime, time).compareTo(earlyWindow) <= 0)
+                    .orElse(false);
+            String earlyRuns = previous.earlyRuns + (early ? '1' : '0');
+            ProfileEntry entry = new ProfileEntry(
+                    earlyRuns.substring(Math.max(0, earlyRuns.length() - MAX_RECORDED_RUNS)),
+                    statistics.getBuildCount() > 0
+                            ? statistics.getAverageBuildDuration().toNanos() : previous.factoryNanos,
+                    statistics.getAverageSetterDuration().isZero()
+                            ? previous.setterNanos : statistics.getAverageSetterDuration().toNanos());
+            properties.setProperty(SERVICE_KEY_PREFIX + name + EARLY_RUNS_SUFFIX, entry.earlyRuns);
+            properties.setProperty(SERVICE_KEY_PREFIX + name + FACTORY_NANOS_SUFFIX, "" + entry.factoryNanos);
+            properties.setProperty(SERVICE_KEY_PREFIX + name + SETTER_NANOS_SUFFIX, "" + entry.setterNanos);
+        }
+        try {
+            AtomicFiles.write(profileFile, out -> {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                properties.store(writer, "RDI startup profile");
+                writer.flush();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOGGER.debug("Saved startup profile to {}", profileFile);
+    }
+
+    private static Map<String, ProfileEntry> readProfile(Path profileFile, String fingerprint) {
+        if (!Files.exists(profileFile)) {
+            return Collections.emptyMap();
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(profileFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Ignoring unreadable startup profile {}", profileFile, e);
+            return Collections.emptyMap();
+        }
+        if (!fingerprint.equals(properties.getProperty(FINGERPRINT_KEY))) {
+            LOGGER.info("Ignoring startup profile {} as the configuration has changed", profileFile);
+            return Collections.emptyMap();
+        }
+        Map<String, ProfileEntry> entries = new HashMap<>();
+        try {
+            for (String key : properties.stringPropertyNames()) {
+                if (!key.startsWith(SERVICE_KEY_PREFIX) || !key.endsWith(EARLY_RUNS_SUFFIX)) {
+                    continue;
+                }
+                String prefix = key.substring(0, key.length() - EARLY_RUNS_SUFFIX.length());
+                String earlyRuns = properties.getProperty(key);
+                if (!earlyRuns.matches("[01]*")) {
+                    throw new IllegalArgumentException("Invalid early runs: " + earlyRuns);
+                }
+                entries.put(prefix.substring(SERVICE_KEY_PREFIX.length()), new ProfileEntry(earlyRuns,
+                        Long.parseLong(properties.getProperty(prefix + FACTORY_NANOS_SUFFIX, "0")),
+                        Long.parseLong(properties.getProperty(prefix + SETTER_NANOS_SUFFIX, "0"))));
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Ignoring malformed startup profile {}", profileFile, e);
+            return Collections.emptyMap();
+        }
+        return entries;
+    }
+
+    /*
+     * Only the structure of the configuration is taken into account: values injected in factories and setters may
+     * change between runs without invalidating the profile.
+     */
+    private static String fingerprint(Set<ServiceDescriptor> serviceDescriptors) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : ServiceDescriptors.fingerprint(serviceDescriptors)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static class ProfileEntry {
+
+        private final String earlyRuns;
+        private final long factoryNanos;
+        private final long setterNanos;
+
+        private ProfileEntry(String earlyRuns, long factoryNanos, long setterNanos) {
+            this.earlyRuns = earlyRuns;
+            this.factoryNanos = factoryNanos;
+            this.setterNanos = setterNanos;
+        }
+
+        private boolean isAlwaysEarly() {
+            return !earlyRuns.isEmpty() && earlyRuns.indexOf('0') < 0;
+        }
+    }
+}
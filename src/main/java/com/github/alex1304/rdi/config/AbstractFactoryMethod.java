@@ -17,6 +17,10 @@ abstract class AbstractFactoryMethod implements FactoryMethod {
     private final @Nullable Class<?> returnType;
     private final List<Injectable> params;
     private final MethodHandle methodHandle;
+    // Exact type (Object[])Object, so that it can be called with invokeExact
+    private final MethodHandle invoker;
+    private final boolean reactive;
+    private final Mono<Object> emptyError;
 
     AbstractFactoryMethod(Class<?> owner, @Nullable String methodName, @Nullable Class<?> returnType, List<Injectable> params) {
         this.owner = owner;
@@ -24,28 +28,36 @@ abstract class AbstractFactoryMethod implements FactoryMethod {
         this.returnType = returnType;
         this.params = params;
         this.methodHandle = prepareMethodHandle();
+        this.invoker = methodHandle.asType(methodHandle.type().generic())
+                .asSpreader(Object[].class, methodHandle.type().parameterCount());
+        this.reactive = Publisher.class.isAssignableFrom(methodHandle.type().returnType());
+        this.emptyError = Mono.error(() -> new RdiException("Reactive factory "
+                + userFriendlyRepresentation(owner, methodName) + " completed empty"));
     }
 
-    private static MethodHandle asGenericSpreader(MethodHandle mh, int argsCount) {
-        return mh.asType(mh.type().generic()).asSpreader(Object[].class, argsCount);
+    @Override
+    public Mono<Object> invoke(Object... args) {
+        return Mono.defer(() -> invokeEagerly(args));
     }
 
     @Override
-    public Mono<Object> invoke(Object... args) {
-        return Mono.defer(() -> {
-            try {
-                if (Publisher.class.isAssignableFrom(methodHandle.type().returnType())) {
-                    //noinspection unchecked
-                    return Mono.from((Publisher<Object>) asGenericSpreader(methodHandle, args.length).invoke(args))
-                            .switchIfEmpty(Mono.error(() -> new RdiException("Reactive factory " +
-                                    userFriendlyRepresentation(owner, methodName) + " completed empty")));
-                }
-                Object o = asGenericSpreader(methodHandle, args.length).invoke(args);
-                return Mono.just(o);
-            } catch (Throwable t) {
-                return Mono.error(t);
-            }
-        });
+    public Mono<Object> invokeEagerly(Object... args) {
+        Object o;
+        try {
+            o = (Object) invoker.invokeExact(args);
+        } catch (Throwable t) {
+            return Mono.error(t);
+        }
+        if (o == null) {
+            return Mono.error(new RdiException("Factory " + userFriendlyRepresentation(owner, methodName)
+                    + " returned null"));
+        }
+        if (reactive) {
+            @SuppressWarnings("unchecked")
+            Publisher<Object> publisher = (Publisher<Object>) o;
+            return Mono.from(publisher).switchIfEmpty(emptyError);
+        }
+        return Mono.just(o);
     }
 
     @Override
@@ -53,6 +65,21 @@ abstract class AbstractFactoryMethod implements FactoryMethod {
         return Collections.unmodifiableList(params);
     }
 
+    @Override
+    public Class<?> getOwner() {
+        return owner;
+    }
+
+    @Override
+    public Optional<String> getMethodName() {
+        return Optional.ofNullable(methodName);
+    }
+
+    @Override
+    public Class<?> getReturnType() {
+        return returnType != null ? returnType : owner;
+    }
+
     abstract MethodHandle findMethodHandle(Class<?> owner, @Nullable String methodName, @Nullable Class<?> returnType,
                                            List<Class<?>> paramTypes) throws ReflectiveOperationException;
 
@@ -68,6 +95,11 @@ abstract class AbstractFactoryMethod implements FactoryMethod {
         }
         try {
             MethodHandle mh = findMethodHandle(owner, methodName, returnType, paramTypes);
+            if (!Publisher.class.isAssignableFrom(mh.type().returnType())
+                    && params.stream().anyMatch(inj -> inj.getMonoReference().isPresent())) {
+                throw new RdiException("Factory " + userFriendlyRepresentation(owner, methodName)
+                        + " receives a Mono, so it must return a Publisher");
+            }
             for (Entry<Integer, Object> entry : values.entrySet()) {
                 mh = MethodHandles.insertArguments(mh, entry.getKey(), entry.getValue());
             }
@@ -0,0 +1,30 @@
+package com.github.alex1304.rdi.config;
+
+/**
+ * Describes how the container invokes the setters of a service. Unless specified otherwise, they are invoked through
+ * method handles. Factory methods are always invoked through method handles, which are already adapted once for
+ * all and were measured as fast as generated accessors, if not faster.
+ *
+ * @see ServiceDescriptor.Builder#setAccessorStrategy(AccessorStrategy)
+ */
+public enum AccessorStrategy {
+
+    /**
+     * The setters are invoked through {@link java.lang.invoke.MethodHandle}s adapted once when the descriptor is built.
+     */
+    METHOD_HANDLE,
+
+    /**
+     * The setters are invoked through classes implementing {@link java.util.function.BiConsumer}, generated at runtime
+     * with {@link java.lang.invoke.LambdaMetafactory} like for lambda expressions. Invoking a setter this way takes
+     * about half the time it takes through a method handle, but generating these classes makes building the
+     * descriptor slower, and the time to obtain a service from the container is dominated by its reactive chain. This
+     * is only worth it for services whose setters are invoked very often, such as prototypes having many setters.
+     *
+     * <p>
+     * The generated classes are defined in the class loader of this library, so the service class and the types of
+     * the parameters must be visible from it. When this is not the case, the container silently falls back to
+     * {@link #METHOD_HANDLE}.
+     */
+    LAMBDA_METAFACTORY
+}
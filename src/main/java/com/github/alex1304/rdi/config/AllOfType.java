@@ -0,0 +1,29 @@
+package com.github.alex1304.rdi.config;
+
+import java.util.Optional;
+
+class AllOfType implements Injectable {
+
+    private final Class<?> elementType;
+    private final Class<?> type;
+
+    AllOfType(Class<?> elementType, Class<?> type) {
+        this.elementType = elementType;
+        this.type = type;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public Optional<Class<?>> getElementType() {
+        return Optional.of(elementType);
+    }
+
+    @Override
+    public String toString() {
+        return "AllOfType{elementType=" + elementType + "[" + type + "]}";
+    }
+}
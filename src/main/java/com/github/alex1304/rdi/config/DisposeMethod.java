@@ -0,0 +1,13 @@
+package com.github.alex1304.rdi.config;
+
+/**
+ * Information about a method to invoke on the cached instance of a singleton service when the container is disposed,
+ * in order to release the resources it holds. The method must be public, non-static and take no arguments. If it
+ * returns a {@link org.reactivestreams.Publisher}, the disposal is considered done when the publisher completes.
+ */
+public class DisposeMethod extends LifecycleMethod {
+
+    DisposeMethod(Class<?> owner, String methodName) {
+        super(owner, methodName, "dispose");
+    }
+}
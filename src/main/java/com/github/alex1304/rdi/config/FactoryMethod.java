@@ -5,6 +5,7 @@ import reactor.core.publisher.Mono;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 /**
@@ -33,7 +34,7 @@ public interface FactoryMethod {
      *                      the given injectable parameters.
      */
     static Function<Class<?>, FactoryMethod> constructor(Injectable... params) {
-        return owner -> new ConstructorFactoryMethod(owner, Arrays.asList(params));
+        return new FactoryMethodDefinition(Arrays.asList(params), ConstructorFactoryMethod::new);
     }
 
     /**
@@ -53,7 +54,29 @@ public interface FactoryMethod {
      */
     static Function<Class<?>, FactoryMethod> staticFactory(String methodName, Class<?> returnType,
                                                            Injectable... params) {
-        return owner -> new StaticFactoryMethod(owner, methodName, returnType, Arrays.asList(params));
+        return new FactoryMethodDefinition(Arrays.asList(params),
+                (owner, p) -> new StaticFactoryMethod(owner, methodName, returnType, p));
+    }
+
+    /**
+     * Creates a {@link FactoryMethod} representing a static factory method, located in the same class as the service
+     * to instantiate. This works the same way as {@link #staticFactory(String, Class, Injectable...)}, except that the
+     * return type is given by name and loaded along with the service class, by the same class loader. This is useful
+     * together with service references created from a class name, so that the return type isn't loaded before the
+     * service is.
+     *
+     * @param methodName     the name of the method
+     * @param returnTypeName the binary name of the return type of the method, as by {@link Class#getName()}
+     * @param params         describes what to inject in the method parameters
+     * @return a new {@link FactoryMethod}
+     * @throws RdiException if the method is not public, does not exist or has a signature that doesn't match with the
+     *                      given injectable parameters, or if the return type cannot be loaded.
+     * @see com.github.alex1304.rdi.ServiceReference#of(String, String, ClassLoader)
+     */
+    static Function<Class<?>, FactoryMethod> staticFactory(String methodName, String returnTypeName,
+                                                           Injectable... params) {
+        return new FactoryMethodDefinition(Arrays.asList(params), (owner, p) -> new StaticFactoryMethod(owner,
+                methodName, ServiceDescriptor.loadType(returnTypeName, owner.getClassLoader()), p));
     }
 
     /**
@@ -74,10 +97,42 @@ public interface FactoryMethod {
      */
     static Function<Class<?>, FactoryMethod> externalStaticFactory(Class<?> owner, String methodName,
                                                                    Class<?> returnType, Injectable... params) {
-        return __ -> new StaticFactoryMethod(owner, methodName, returnType, Arrays.asList(params));
+        return new FactoryMethodDefinition(Arrays.asList(params),
+                (__, p) -> new StaticFactoryMethod(owner, methodName, returnType, p));
     }
 
+    /**
+     * Invokes the factory with the given arguments. The constructor or the static method runs when the returned
+     * {@link Mono} is subscribed to, and again on each subscription.
+     *
+     * @param args the values to pass to the factory, in the order of {@link #getInjectableParameters()}
+     * @return a Mono emitting the instance created by the factory, or an error if the factory threw an exception,
+     * returned null or completed empty
+     */
     Mono<Object> invoke(Object... args);
 
+    /**
+     * Invokes the factory with the given arguments right away: the constructor or the static method runs before this
+     * method returns, only the {@link Mono} returned by a reactive factory is subscribed to lazily. This is how the
+     * container invokes factories, as it already defers the call until the service is requested. Other callers should
+     * use {@link #invoke(Object...)}.
+     *
+     * <p>
+     * The default implementation delegates to {@link #invoke(Object...)}, which is also correct for the container.
+     *
+     * @param args the values to pass to the factory, in the order of {@link #getInjectableParameters()}
+     * @return a Mono emitting the instance created by the factory, or an error if the factory threw an exception,
+     * returned null or completed empty
+     */
+    default Mono<Object> invokeEagerly(Object... args) {
+        return invoke(args);
+    }
+
     List<Injectable> getInjectableParameters();
+
+    Class<?> getOwner();
+
+    Optional<String> getMethodName();
+
+    Class<?> getReturnType();
 }
@@ -0,0 +1,30 @@
+package com.github.alex1304.rdi.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ * The functions returned by the static methods of FactoryMethod. Unlike custom functions, their parameters are known
+ * before they are applied, which allows ServiceDescriptor to defer the lookup of the factory.
+ */
+final class FactoryMethodDefinition implements Function<Class<?>, FactoryMethod> {
+
+    private final List<Injectable> params;
+    private final BiFunction<Class<?>, List<Injectable>, FactoryMethod> factory;
+
+    FactoryMethodDefinition(List<Injectable> params, BiFunction<Class<?>, List<Injectable>, FactoryMethod> factory) {
+        this.params = Collections.unmodifiableList(params);
+        this.factory = factory;
+    }
+
+    List<Injectable> getInjectableParameters() {
+        return params;
+    }
+
+    @Override
+    public FactoryMethod apply(Class<?> owner) {
+        return factory.apply(owner, params);
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.alex1304.rdi.config;
+
+/**
+ * Information about a method to invoke on a new instance of a service once all its dependencies have been injected,
+ * in order to complete its initialization. The method must be public, non-static and take no arguments. If it returns
+ * a {@link org.reactivestreams.Publisher}, the initialization is considered done when the publisher completes.
+ */
+public class InitMethod extends LifecycleMethod {
+
+    InitMethod(Class<?> owner, String methodName) {
+        super(owner, methodName, "init");
+    }
+}
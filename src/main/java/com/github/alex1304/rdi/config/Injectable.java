@@ -1,8 +1,12 @@
 package com.github.alex1304.rdi.config;
 
+import com.github.alex1304.rdi.ServiceProvider;
 import com.github.alex1304.rdi.ServiceReference;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Represents an injectable parameter. You may inject known values as well as references to other services.
@@ -26,7 +30,7 @@ public interface Injectable {
      * @return an injectable parameter
      */
     static Injectable ref(ServiceReference<?> ref) {
-        return new Ref(ref, ref.getServiceClass());
+        return new Ref(ref, null);
     }
 
     /**
@@ -46,6 +50,72 @@ public interface Injectable {
         return new Ref(ref, asSupertype);
     }
 
+    /**
+     * Creates an injectable parameter which represents a {@link ServiceProvider} for another service. Unlike
+     * {@link #ref(ServiceReference)}, the referred service is not instantiated before the service it is injected
+     * into: it is only instantiated when {@link ServiceProvider#get()} is first subscribed to. Dependencies injected
+     * via providers may therefore form cycles with other dependencies. The injection method's parameter type is
+     * expected to be {@link ServiceProvider}.
+     *
+     * @param ref the reference of the service to provide
+     * @return an injectable parameter
+     */
+    static Injectable provider(ServiceReference<?> ref) {
+        return new ProviderRef(ref);
+    }
+
+    /**
+     * Creates an injectable parameter which represents the {@link Mono} producing another service, rather than the
+     * service itself. Unlike {@link #ref(ServiceReference)}, the factory method receiving it is invoked without
+     * waiting for the referred service to be instantiated, so that a reactive factory can start its own work
+     * concurrently and only subscribe to the Mono when it actually needs the service. The referred service is
+     * otherwise treated as a regular dependency of the factory, in particular regarding circular dependencies.
+     *
+     * <p>
+     * Only factory methods returning a {@link org.reactivestreams.Publisher} may receive such a parameter, and their
+     * parameter type is expected to be {@link Mono}. The returned publisher should subscribe to the Mono at most once:
+     * each subscription requests the service again, which creates a new instance if it isn't a singleton.
+     *
+     * @param ref the reference of the service to inject as a Mono
+     * @return an injectable parameter
+     */
+    static Injectable mono(ServiceReference<?> ref) {
+        return new MonoRef(ref);
+    }
+
+    /**
+     * Creates an injectable parameter which represents all the services registered in the container that are
+     * assignable to the given type, injected as a {@link List}. A service is assignable to the type if the class of
+     * its reference or of one of its aliases is a subtype of it. The service owning the injection method is never part
+     * of the list.
+     *
+     * <p>
+     * The services in the list are sorted by descending priority, and by name for services having the same priority.
+     * The set of matching services is determined once when the container is created, and they are instantiated
+     * concurrently when the list is injected. The injection method's parameter type is expected to be {@link List}.
+     *
+     * @param elementType the type of the services to inject
+     * @return an injectable parameter
+     * @see ServiceDescriptor.Builder#setPriority(int)
+     */
+    static Injectable listOf(Class<?> elementType) {
+        return new AllOfType(elementType, List.class);
+    }
+
+    /**
+     * Creates an injectable parameter which represents all the services registered in the container that are
+     * assignable to the given type, injected as a {@link Set}. This works the same way as {@link #listOf(Class)},
+     * except that the injection method's parameter type is expected to be {@link Set}. The iteration order of the set
+     * follows the priority of the services.
+     *
+     * @param elementType the type of the services to inject
+     * @return an injectable parameter
+     * @see ServiceDescriptor.Builder#setPriority(int)
+     */
+    static Injectable setOf(Class<?> elementType) {
+        return new AllOfType(elementType, Set.class);
+    }
+
     /**
      * Creates an injectable parameter which represents an already known value.
      *
@@ -140,6 +210,21 @@ public interface Injectable {
         return new Value(value, type);
     }
 
+    /**
+     * Creates an injectable parameter which represents a value given as a string, converted to the given type the
+     * first time it is injected. This is how values declared in annotations are injected. The type may be a primitive
+     * type or a supertype of {@link String}: the conversion follows the <code>parseXxx</code> methods of the wrapper
+     * classes, and takes the first character of the string for <code>char</code>.
+     *
+     * @param literal the string representation of the value to inject
+     * @param type    the type of the value, which must match with the injection method's parameter type
+     * @return an injectable parameter
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    static Injectable parsedValue(String literal, Class<?> type) {
+        return new ParsedValue(literal, type);
+    }
+
     /**
      * Gets the type of this injectable parameter.
      *
@@ -147,6 +232,16 @@ public interface Injectable {
      */
     Class<?> getType();
 
+    /**
+     * Gets the name of the type of this injectable parameter, as given by {@link Class#getName()}. Unlike
+     * {@link #getType()}, this doesn't load the class of the referred service if it was given by name.
+     *
+     * @return the name of the type of the parameter
+     */
+    default String getTypeName() {
+        return getType().getName();
+    }
+
     /**
      * Gets the value of this injectable parameter, if it represents a provided value.
      *
@@ -164,4 +259,33 @@ public interface Injectable {
     default Optional<ServiceReference<?>> getReference() {
         return Optional.empty();
     }
+
+    /**
+     * Gets the reference of the service to provide, if this injectable parameter represents a
+     * {@link ServiceProvider}.
+     *
+     * @return the reference of the provided service, if applicable
+     */
+    default Optional<ServiceReference<?>> getProvidedReference() {
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the reference of the service to inject as a {@link Mono}, if this injectable parameter represents one.
+     *
+     * @return the reference of the service injected as a Mono, if applicable
+     */
+    default Optional<ServiceReference<?>> getMonoReference() {
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the type of the services to inject as a collection, if this injectable parameter represents all the
+     * services assignable to a given type.
+     *
+     * @return the type of the services in the collection, if applicable
+     */
+    default Optional<Class<?>> getElementType() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,81 @@
+package com.github.alex1304.rdi.config;
+
+import org.jspecify.annotations.Nullable;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.BiConsumer;
+
+/*
+ * Generates the setter accessors used by the LAMBDA_METAFACTORY strategy. Returns null when the accessor cannot be
+ * generated, in which case callers keep using their method handle.
+ */
+final class LambdaAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private LambdaAccessors() {
+        throw new AssertionError();
+    }
+
+    /*
+     * The target must be the direct method handle of the setter, receiving the instance as first argument.
+     */
+    static @Nullable BiConsumer<Object, Object> setter(Class<?> owner, MethodHandle target) {
+        if (!isVisible(owner, target.type())) {
+            return null;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) spin(BiConsumer.class, "accept",
+                    target, target.type().wrap().changeReturnType(void.class));
+            return setter;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static Object spin(Class<?> functionalInterface, String methodName, MethodHandle target,
+                               MethodType instantiatedType) throws Throwable {
+        MethodType erasedType = MethodType.genericMethodType(instantiatedType.parameterCount());
+        if (instantiatedType.returnType() == void.class) {
+            erasedType = erasedType.changeReturnType(void.class);
+        }
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, methodName, MethodType.methodType(functionalInterface),
+                erasedType, target, instantiatedType);
+        return site.getTarget().invoke();
+    }
+
+    /*
+     * The generated classes resolve the types they refer to through the class loader of this library, which may not
+     * see classes loaded by a child class loader.
+     */
+    private static boolean isVisible(Class<?> owner, MethodType type) {
+        if (!isVisible(owner) || !isVisible(type.returnType())) {
+            return false;
+        }
+        for (Class<?> paramType : type.parameterList()) {
+            if (!isVisible(paramType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, LambdaAccessors.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.alex1304.rdi.config;
+
+import com.github.alex1304.rdi.RdiException;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/*
+ * A public, non-static and no-arg method invoked on an instance at some point of its lifecycle. If the method returns
+ * a Publisher, its invocation is considered done when the publisher completes.
+ */
+abstract class LifecycleMethod {
+
+    private final Class<?> owner;
+    private final String methodName;
+    private final MethodHandle methodHandle;
+    private final boolean isReactive;
+    private final String kind;
+
+    LifecycleMethod(Class<?> owner, String methodName, String kind) {
+        this.owner = owner;
+        this.methodName = methodName;
+        this.kind = kind;
+        Method method = findMethod();
+        this.isReactive = Publisher.class.isAssignableFrom(method.getReturnType());
+        this.methodHandle = prepareMethodHandle(method);
+    }
+
+    /**
+     * Invokes the method on the given instance.
+     *
+     * @param instance the instance to invoke the method on
+     * @return a Mono completing when the invocation is done, either immediately if the method doesn't return a
+     * {@link Publisher}, or when the returned publisher completes
+     */
+    public Mono<Void> invoke(Object instance) {
+        return Mono.defer(() -> {
+            try {
+                if (isReactive) {
+                    Publisher<?> publisher = (Publisher<?>) methodHandle.invoke(instance);
+                    return publisher == null ? Mono.empty() : Mono.from(publisher).then();
+                }
+                methodHandle.invoke(instance);
+                return Mono.empty();
+            } catch (Throwable t) {
+                return Mono.error(t);
+            }
+        });
+    }
+
+    /**
+     * Gets the class on which the method is looked up.
+     *
+     * @return the owner class
+     */
+    public Class<?> getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gets the name of the method.
+     *
+     * @return the method name
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Gets whether the method returns a {@link Publisher}, in which case the invocation completes with it.
+     *
+     * @return true if the method is reactive, else false
+     */
+    public boolean isReactive() {
+        return isReactive;
+    }
+
+    private Method findMethod() {
+        try {
+            Method method = owner.getMethod(methodName);
+            if (Modifier.isStatic(method.getModifiers())) {
+                throw new RdiException(capitalize(kind) + " method '" + methodName + "()' of class " + owner.getName()
+                        + " must not be static");
+            }
+            return method;
+        } catch (NoSuchMethodException e) {
+            throw new RdiException("Error when acquiring " + kind + " method '" + methodName + "()' for class "
+                    + owner.getName(), e);
+        }
+    }
+
+    private MethodHandle prepareMethodHandle(Method method) {
+        try {
+            MethodHandle mh = MethodHandles.publicLookup().unreflect(method);
+            return mh.asType(mh.type().generic());
+        } catch (ReflectiveOperationException e) {
+            throw new RdiException("Error when acquiring " + kind + " method '" + methodName + "()' for class "
+                    + owner.getName(), e);
+        }
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass(), owner, methodName);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || obj.getClass() != getClass())
+            return false;
+        LifecycleMethod other = (LifecycleMethod) obj;
+        return Objects.equals(owner, other.owner) && Objects.equals(methodName, other.methodName);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{owner=" + owner + ", methodName=" + methodName + ", isReactive="
+                + isReactive + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.alex1304.rdi.config;
+
+import com.github.alex1304.rdi.ServiceReference;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+class MonoRef implements Injectable {
+
+    private final ServiceReference<?> ref;
+
+    MonoRef(ServiceReference<?> ref) {
+        this.ref = ref;
+    }
+
+    @Override
+    public Optional<ServiceReference<?>> getMonoReference() {
+        return Optional.of(ref);
+    }
+
+    @Override
+    public Class<?> getType() {
+        return Mono.class;
+    }
+
+    @Override
+    public String toString() {
+        return "MonoRef{ref=" + ref + "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.alex1304.rdi.config;
+
+import com.github.alex1304.rdi.RdiException;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+
+class ParsedValue implements Injectable {
+
+    private final String literal;
+    private final Class<?> type;
+    private volatile @Nullable Object value;
+
+    ParsedValue(String literal, Class<?> type) {
+        Objects.requireNonNull(literal);
+        Objects.requireNonNull(type);
+        if (!type.isPrimitive() && !type.isAssignableFrom(String.class) || type == void.class) {
+            throw new IllegalArgumentException("Unsupported type for a parsed value, only primitive types and "
+                    + "supertypes of String (included) are supported. Given: " + type);
+        }
+        this.literal = literal;
+        this.type = type;
+    }
+
+    @Override
+    public Class<?> getType() {
+        return type;
+    }
+
+    @Override
+    public Optional<Object> getValue() {
+        Object value = this.value;
+        if (value == null) {
+            this.value = value = parse();
+        }
+        return Optional.of(value);
+    }
+
+    private Object parse() {
+        try {
+            if (type == boolean.class) {
+                return Boolean.parseBoolean(literal);
+            } else if (type == byte.class) {
+                return Byte.parseByte(literal);
+            } else if (type == char.class) {
+                if (literal.isEmpty()) {
+                    throw new IllegalArgumentException("empty string");
+                }
+                return literal.charAt(0);
+            } else if (type == double.class) {
+                return Double.parseDouble(literal);
+            } else if (type == float.class) {
+                return Float.parseFloat(literal);
+            } else if (type == int.class) {
+                return Integer.parseInt(literal);
+            } else if (type == long.class) {
+                return Long.parseLong(literal);
+            } else if (type == short.class) {
+                return Short.parseShort(literal);
+            }
+            return literal;
+        } catch (IllegalArgumentException e) {
+            throw new RdiException("Cannot convert '" + literal + "' to " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        Object value = this.value;
+        return "Value{value=" + (value != null ? value : literal) + "[" + type + "]}";
+    }
+}
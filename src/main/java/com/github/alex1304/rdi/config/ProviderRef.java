@@ -0,0 +1,30 @@
+package com.github.alex1304.rdi.config;
+
+import com.github.alex1304.rdi.ServiceProvider;
+import com.github.alex1304.rdi.ServiceReference;
+
+import java.util.Optional;
+
+class ProviderRef implements Injectable {
+
+    private final ServiceReference<?> ref;
+
+    ProviderRef(ServiceReference<?> ref) {
+        this.ref = ref;
+    }
+
+    @Override
+    public Optional<ServiceReference<?>> getProvidedReference() {
+        return Optional.of(ref);
+    }
+
+    @Override
+    public Class<?> getType() {
+        return ServiceProvider.class;
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderRef{ref=" + ref + "}";
+    }
+}
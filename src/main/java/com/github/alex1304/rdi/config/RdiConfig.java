@@ -1,11 +1,11 @@
 package com.github.alex1304.rdi.config;
 
 import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.ServiceReference;
 import com.github.alex1304.rdi.finder.ServiceFinder;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -47,9 +47,20 @@ public class RdiConfig {
         return serviceDescriptors;
     }
 
+    /**
+     * Builder for {@link RdiConfig}. It can safely be filled by several threads at once, for example when modules of an
+     * application register their services concurrently. Each registration method either registers all the given
+     * services or none of them.
+     */
     public static class Builder {
 
+        // Services sharing a name are ordered by class, so that errors are reported in the same order on each run
+        private static final Comparator<ServiceDescriptor.Builder> BUILD_ORDER = Comparator.comparing(
+                        (ServiceDescriptor.Builder builder) -> builder.getServiceReference().getServiceName())
+                .thenComparing(builder -> builder.getServiceReference().getServiceClassName());
+
         private final Set<ServiceDescriptor> serviceDescriptors = new HashSet<>();
+        private final Set<ServiceReference<?>> registeredRefs = new HashSet<>();
 
         /**
          * Registers a new {@link ServiceDescriptor} containing all the dependency injection metadata for a particular
@@ -57,11 +68,37 @@ public class RdiConfig {
          *
          * @param serviceDescriptor the service descriptor to register
          * @return this builder
-         * @throws RdiException if the service represented by the given descriptor is already registered
+         * @throws RdiException if the service represented by the given descriptor, or one of its aliases, is already
+         *                      registered
          */
         public Builder registerService(ServiceDescriptor serviceDescriptor) {
             requireNonNull(serviceDescriptor);
-            checkAndAdd(serviceDescriptor);
+            checkAndAdd(Collections.singleton(serviceDescriptor));
+            return this;
+        }
+
+        /**
+         * Builds the given {@link ServiceDescriptor} builders in parallel and registers all the resulting descriptors.
+         * This is worth it for large numbers of services, since building a descriptor involves looking up the method
+         * handles of its factory and setter methods.
+         *
+         * <p>
+         * Errors don't depend on the order in which the descriptors are built: if some of them cannot be built, the
+         * error of the first one in the alphabetical order of the service names is thrown, with the errors of the
+         * others attached as suppressed exceptions in the same order, as described in {@link ServiceDescriptors}. No
+         * service is registered in this case.
+         *
+         * @param serviceDescriptorBuilders the builders of the service descriptors to register
+         * @return this builder
+         * @throws RdiException if some of the descriptors cannot be built, or if one of the services, or one of their
+         *                      aliases, is already registered
+         */
+        public Builder registerServices(Collection<ServiceDescriptor.Builder> serviceDescriptorBuilders) {
+            List<ServiceDescriptor.Builder> builders = new ArrayList<>(serviceDescriptorBuilders);
+            builders.forEach(Objects::requireNonNull);
+            List<ServiceDescriptor> descriptors = ServiceDescriptors.mapAll(builders, BUILD_ORDER,
+                    ServiceDescriptor.Builder::build);
+            checkAndAdd(descriptors);
             return this;
         }
 
@@ -74,14 +111,31 @@ public class RdiConfig {
          */
         public Builder fromServiceFinder(ServiceFinder serviceFinder) {
             requireNonNull(serviceFinder);
-            serviceFinder.findServices().forEach(this::checkAndAdd);
+            checkAndAdd(serviceFinder.findServices());
             return this;
         }
 
-        private void checkAndAdd(ServiceDescriptor descriptor) {
-            if (!serviceDescriptors.add(descriptor)) {
-                throw new RdiException("Duplicate service registered: " + descriptor.getServiceReference());
+        /*
+         * The descriptors are checked in the alphabetical order of the service names so that the duplicate reported
+         * doesn't depend on the iteration order of the given collection.
+         */
+        private synchronized void checkAndAdd(Collection<ServiceDescriptor> descriptors) {
+            List<ServiceDescriptor> sorted = descriptors.stream()
+                    .sorted(Comparator.comparing(descriptor -> descriptor.getServiceReference().getServiceName()))
+                    .collect(Collectors.toList());
+            Set<ServiceReference<?>> refs = new HashSet<>();
+            for (ServiceDescriptor descriptor : sorted) {
+                List<ServiceReference<?>> descriptorRefs = new ArrayList<>();
+                descriptorRefs.add(descriptor.getServiceReference());
+                descriptorRefs.addAll(descriptor.getAliases());
+                for (ServiceReference<?> ref : descriptorRefs) {
+                    if (registeredRefs.contains(ref) || !refs.add(ref)) {
+                        throw new RdiException("Duplicate service registered: " + ref);
+                    }
+                }
             }
+            registeredRefs.addAll(refs);
+            serviceDescriptors.addAll(sorted);
         }
 
         /**
@@ -90,8 +144,8 @@ public class RdiConfig {
          *
          * @return a new {@link RdiConfig} instance
          */
-        public RdiConfig build() {
-            return new RdiConfig(Collections.unmodifiableSet(serviceDescriptors));
+        public synchronized RdiConfig build() {
+            return new RdiConfig(Collections.unmodifiableSet(new HashSet<>(serviceDescriptors)));
         }
     }
 }
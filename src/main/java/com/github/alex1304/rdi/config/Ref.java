@@ -1,15 +1,17 @@
 package com.github.alex1304.rdi.config;
 
 import com.github.alex1304.rdi.ServiceReference;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Optional;
 
 class Ref implements Injectable {
 
     private final ServiceReference<?> ref;
-    private final Class<?> type;
+    // Null to use the class of the reference, which may not be loaded yet
+    private final @Nullable Class<?> type;
 
-    Ref(ServiceReference<?> ref, Class<?> type) {
+    Ref(ServiceReference<?> ref, @Nullable Class<?> type) {
         this.ref = ref;
         this.type = type;
     }
@@ -21,7 +23,12 @@ class Ref implements Injectable {
 
     @Override
     public Class<?> getType() {
-        return type;
+        return type != null ? type : ref.getServiceClass();
+    }
+
+    @Override
+    public String getTypeName() {
+        return type != null ? type.getName() : ref.getServiceClassName();
     }
 
     @Override
@@ -4,11 +4,10 @@ import com.github.alex1304.rdi.RdiException;
 import com.github.alex1304.rdi.ServiceReference;
 import org.jspecify.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
+import java.time.Duration;
+import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -18,21 +17,52 @@ import java.util.stream.Collectors;
  * This class implements {@link #equals(Object)} and {@link #hashCode()} on the service reference, meaning that there
  * should be only one descriptor per service container and per service.
  *
+ * <p>
+ * The factory method, setters, init and dispose methods of the service are looked up when the descriptor is built,
+ * unless the class of the service isn't loaded at this moment, see {@link Builder#build()}.
+ *
  * @see ServiceDescriptor#builder(ServiceReference)
  */
 public class ServiceDescriptor {
 
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : Arrays.asList(boolean.class, byte.class, char.class, double.class, float.class,
+                int.class, long.class, short.class, void.class)) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
     private final ServiceReference<?> ref;
+    private final Set<ServiceReference<?>> aliases;
     private final boolean isSingleton;
-    private final FactoryMethod factoryMethod;
-    private final List<SetterMethod> setterMethods;
-
-    private ServiceDescriptor(ServiceReference<?> ref, boolean isSingleton, FactoryMethod factoryMethod,
-                              List<SetterMethod> setterMethods) {
-        this.ref = ref;
-        this.isSingleton = isSingleton;
-        this.factoryMethod = factoryMethod;
-        this.setterMethods = setterMethods;
+    private final SingletonRetention singletonRetention;
+    private final @Nullable Duration idleTimeout;
+    private final @Nullable Duration timeToLive;
+    private final int priority;
+    private final @Nullable Duration estimatedBuildDuration;
+    private final AccessorStrategy accessorStrategy;
+    private final List<Injectable> factoryParameters;
+    private final List<Injectable> setterParameters;
+    private final Supplier<Members> membersResolver;
+    private volatile @Nullable Members members;
+
+    private ServiceDescriptor(Builder builder, List<Injectable> factoryParameters, List<Injectable> setterParameters,
+                              Supplier<Members> membersResolver, @Nullable Members members) {
+        this.ref = builder.ref;
+        this.aliases = Collections.unmodifiableSet(new LinkedHashSet<>(builder.aliases));
+        this.isSingleton = builder.isSingleton;
+        this.singletonRetention = builder.singletonRetention;
+        this.idleTimeout = builder.idleTimeout;
+        this.timeToLive = builder.timeToLive;
+        this.priority = builder.priority;
+        this.estimatedBuildDuration = builder.estimatedBuildDuration;
+        this.accessorStrategy = builder.accessorStrategy;
+        this.factoryParameters = factoryParameters;
+        this.setterParameters = setterParameters;
+        this.membersResolver = membersResolver;
+        this.members = members;
     }
 
     /**
@@ -54,8 +84,7 @@ public class ServiceDescriptor {
      * @throws RdiException if the class does not have a public no-arg constructor
      */
     public static ServiceDescriptor standalone(ServiceReference<?> serviceReference, boolean isSingleton) {
-        return new ServiceDescriptor(serviceReference, isSingleton, FactoryMethod.constructor()
-                .apply(serviceReference.getServiceClass()), Collections.emptyList());
+        return builder(serviceReference).setSingleton(isSingleton).build();
     }
 
     /**
@@ -104,6 +133,17 @@ public class ServiceDescriptor {
         return ref;
     }
 
+    /**
+     * Gets the additional references under which the service is exposed. Requesting the service by one of its aliases
+     * gives the same result as requesting it by its main reference, in particular the same instance if the service is
+     * a singleton.
+     *
+     * @return the aliases of the service, empty if none
+     */
+    public Set<ServiceReference<?>> getAliases() {
+        return aliases;
+    }
+
     /**
      * Gets whether the service is configured as singleton.
      *
@@ -113,22 +153,174 @@ public class ServiceDescriptor {
         return isSingleton;
     }
 
+    /**
+     * Gets how strongly the cached instance of the service is held, if the service is configured as singleton.
+     *
+     * @return the singleton retention
+     */
+    public SingletonRetention getSingletonRetention() {
+        return singletonRetention;
+    }
+
+    /**
+     * Gets the duration after which the cached instance of the service is released if it hasn't been requested, if
+     * the service is configured as singleton.
+     *
+     * @return the idle timeout, if configured
+     */
+    public Optional<Duration> getIdleTimeout() {
+        return Optional.ofNullable(idleTimeout);
+    }
+
+    /**
+     * Gets the duration after which the cached instance of the service is considered stale and gets refreshed in
+     * background, if the service is configured as singleton.
+     *
+     * @return the time to live, if configured
+     */
+    public Optional<Duration> getTimeToLive() {
+        return Optional.ofNullable(timeToLive);
+    }
+
+    /**
+     * Gets the priority of the service, which determines its position when it is injected along with other services
+     * of the same type in a collection.
+     *
+     * @return the priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the hint given in the configuration about how long the factory method of the service takes to produce an
+     * instance. It is used to schedule the warm-up of the container as long as no actual duration has been measured.
+     *
+     * @return the estimated build duration, if configured
+     */
+    public Optional<Duration> getEstimatedBuildDuration() {
+        return Optional.ofNullable(estimatedBuildDuration);
+    }
+
+    /**
+     * Gets how the setters of the service are invoked.
+     *
+     * @return the accessor strategy
+     */
+    public AccessorStrategy getAccessorStrategy() {
+        return accessorStrategy;
+    }
+
+    /**
+     * Gets the injectable parameters of the factory method of the service. Unlike {@link #getFactoryMethod()}, this
+     * never looks up the factory method.
+     *
+     * @return the injectable parameters of the factory method
+     */
+    public List<Injectable> getFactoryParameters() {
+        return factoryParameters;
+    }
+
+    /**
+     * Gets the injectable parameters of all the setter methods of the service, in the order of the setters. Unlike
+     * {@link #getSetterMethods()}, this never looks up the setter methods.
+     *
+     * @return the injectable parameters of the setter methods
+     */
+    public List<Injectable> getSetterParameters() {
+        return setterParameters;
+    }
+
+    /**
+     * Gets whether the factory method, setters, init and dispose methods of the service have been looked up. This is
+     * always the case once the descriptor is built, unless the lookup is deferred as described in
+     * {@link Builder#build()}.
+     *
+     * @return true if the methods of the service have been looked up, else false
+     */
+    public boolean isResolved() {
+        return members != null;
+    }
+
+    /**
+     * Gets the class on which the factory, setters, init and dispose methods of the service are looked up, which is
+     * the concrete type given to {@link Builder#setConcreteType(Class)}, or the class of the service if none was
+     * given.
+     *
+     * @return the concrete type of the service
+     * @throws RdiException if the lookup of the methods of the service was deferred and fails
+     */
+    public Class<?> getConcreteType() {
+        return members().concreteType;
+    }
+
     /**
      * Gets information about the factory method of the service that will be subject to dependency injection.
      *
      * @return the factory method
+     * @throws RdiException if the lookup of the methods of the service was deferred and fails
      */
     public FactoryMethod getFactoryMethod() {
-        return factoryMethod;
+        return members().factoryMethod;
     }
 
     /**
      * Gets information about all the setter methods of the service that will be subject to dependency injection.
      *
      * @return the setter methods
+     * @throws RdiException if the lookup of the methods of the service was deferred and fails
      */
     public List<SetterMethod> getSetterMethods() {
-        return setterMethods;
+        return members().setterMethods;
+    }
+
+    /**
+     * Gets information about all the init methods of the service, invoked once all dependencies are injected.
+     *
+     * @return the init methods
+     * @throws RdiException if the lookup of the methods of the service was deferred and fails
+     */
+    public List<InitMethod> getInitMethods() {
+        return members().initMethods;
+    }
+
+    /**
+     * Gets information about all the dispose methods of the service, invoked on the cached singleton instance when
+     * the container is disposed.
+     *
+     * @return the dispose methods
+     * @throws RdiException if the lookup of the methods of the service was deferred and fails
+     */
+    public List<DisposeMethod> getDisposeMethods() {
+        return members().disposeMethods;
+    }
+
+    /*
+     * A failed lookup isn't cached, so that it is attempted again the next time the service is instantiated.
+     */
+    private Members members() {
+        Members members = this.members;
+        if (members == null) {
+            synchronized (this) {
+                members = this.members;
+                if (members == null) {
+                    this.members = members = membersResolver.get();
+                }
+            }
+        }
+        return members;
+    }
+
+    static Class<?> loadType(String typeName, @Nullable ClassLoader classLoader) {
+        Class<?> primitive = PRIMITIVE_TYPES.get(typeName);
+        if (primitive != null) {
+            return primitive;
+        }
+        try {
+            return Class.forName(typeName, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new RdiException("Failed to load type " + typeName, e);
+        }
     }
 
     @Override
@@ -148,17 +340,63 @@ public class ServiceDescriptor {
 
     @Override
     public String toString() {
-        return "ServiceDescriptor{ref=" + ref + ", isSingleton=" + isSingleton + ", factoryMethod=" + factoryMethod
-                + ", setterMethods=" + setterMethods + "}";
+        Members members = this.members;
+        return "ServiceDescriptor{ref=" + ref + ", aliases=" + aliases + ", isSingleton=" + isSingleton
+                + ", singletonRetention=" + singletonRetention + ", idleTimeout=" + idleTimeout + ", timeToLive="
+                + timeToLive + ", priority=" + priority + ", estimatedBuildDuration=" + estimatedBuildDuration
+                + ", accessorStrategy=" + accessorStrategy + (members != null
+                ? ", factoryMethod=" + members.factoryMethod + ", setterMethods=" + members.setterMethods
+                + ", initMethods=" + members.initMethods + ", disposeMethods=" + members.disposeMethods
+                : ", factoryParameters=" + factoryParameters + ", setterParameters=" + setterParameters
+                + ", resolved=false") + "}";
+    }
+
+    private static final class Members {
+
+        private final Class<?> concreteType;
+        private final FactoryMethod factoryMethod;
+        private final List<SetterMethod> setterMethods;
+        private final List<InitMethod> initMethods;
+        private final List<DisposeMethod> disposeMethods;
+
+        private Members(Class<?> concreteType, FactoryMethod factoryMethod, List<SetterMethod> setterMethods,
+                        List<InitMethod> initMethods, List<DisposeMethod> disposeMethods) {
+            this.concreteType = concreteType;
+            this.factoryMethod = factoryMethod;
+            this.setterMethods = setterMethods;
+            this.initMethods = initMethods;
+            this.disposeMethods = disposeMethods;
+        }
+    }
+
+    private static final class SetterDefinition {
+
+        private final Injectable param;
+        private final Function<Class<?>, SetterMethod> factory;
+
+        private SetterDefinition(Injectable param, Function<Class<?>, SetterMethod> factory) {
+            this.param = param;
+            this.factory = factory;
+        }
     }
 
     public static class Builder {
 
         private final ServiceReference<?> ref;
+        private final Set<ServiceReference<?>> aliases = new LinkedHashSet<>();
         private final Function<Class<?>, FactoryMethod> defaultFactoryMethod;
-        private final List<Function<Class<?>, SetterMethod>> setterMethods = new ArrayList<>();
-        private @Nullable Class<?> concreteType;
+        private final List<SetterDefinition> setterMethods = new ArrayList<>();
+        private final List<Function<Class<?>, InitMethod>> initMethods = new ArrayList<>();
+        private final List<Function<Class<?>, DisposeMethod>> disposeMethods = new ArrayList<>();
+        // Held as a reference so that a concrete type given by name is loaded lazily as well
+        private @Nullable ServiceReference<?> concreteType;
         private boolean isSingleton = true;
+        private SingletonRetention singletonRetention = SingletonRetention.STRONG;
+        private @Nullable Duration idleTimeout;
+        private @Nullable Duration timeToLive;
+        private int priority;
+        private @Nullable Duration estimatedBuildDuration;
+        private AccessorStrategy accessorStrategy = AccessorStrategy.METHOD_HANDLE;
         private Function<Class<?>, ? extends FactoryMethod> factoryMethod;
 
         private Builder(ServiceReference<?> ref) {
@@ -167,6 +405,10 @@ public class ServiceDescriptor {
             this.factoryMethod = defaultFactoryMethod;
         }
 
+        ServiceReference<?> getServiceReference() {
+            return ref;
+        }
+
         /**
          * Sets whether to configure the service as singleton. If true, the service will only be instantiated once and
          * all other services depending on it will share the same instance. Defaults to <code>true</code>.
@@ -179,6 +421,111 @@ public class ServiceDescriptor {
             return this;
         }
 
+        /**
+         * Sets how strongly the container should hold on to the cached instance of the service. This only has an
+         * effect if the service is configured as singleton. Defaults to {@link SingletonRetention#STRONG}.
+         *
+         * <p>
+         * Services that are large but rarely used may be configured with {@link SingletonRetention#SOFT} so that they
+         * can be reclaimed under memory pressure. A released instance is transparently instantiated again the next
+         * time the service is requested. An instance reclaimed by the garbage collector is no longer reachable, so it
+         * cannot be disposed: singletons that aren't held strongly cannot have dispose methods, and they are not
+         * closed even if they implement {@link AutoCloseable}.
+         *
+         * @param singletonRetention the singleton retention to set
+         * @return this builder
+         */
+        public Builder setSingletonRetention(SingletonRetention singletonRetention) {
+            this.singletonRetention = Objects.requireNonNull(singletonRetention);
+            return this;
+        }
+
+        /**
+         * Sets a duration after which the cached instance of the service is released by the container if it hasn't
+         * been requested in the meantime. This only has an effect if the service is configured as singleton. A released
+         * instance is transparently instantiated again the next time the service is requested, and it is disposed in
+         * background as it would be when the container is disposed. Defaults to <code>null</code>, meaning that the
+         * instance is never released because of inactivity.
+         *
+         * @param idleTimeout the idle timeout to set, or <code>null</code> to disable it
+         * @return this builder
+         * @throws IllegalArgumentException if idleTimeout is zero or negative
+         */
+        public Builder setIdleTimeout(@Nullable Duration idleTimeout) {
+            if (idleTimeout != null && (idleTimeout.isZero() || idleTimeout.isNegative())) {
+                throw new IllegalArgumentException("Idle timeout must be positive");
+            }
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * Sets a duration after which the cached instance of the service is considered stale and should be refreshed.
+         * This only has an effect if the service is configured as singleton. Defaults to <code>null</code>, meaning
+         * that the instance is never refreshed.
+         *
+         * <p>
+         * Once the time to live has elapsed, the next request for the service still receives the current instance
+         * immediately, while the factory method and the setters are invoked in background to build a replacement.
+         * Only one refresh may be in progress at a time. When it completes, the new instance atomically replaces the
+         * current one for all subsequent requests. If it fails, the current instance is kept for another time to live
+         * period. Other services that were injected with the previous instance keep referring to it.
+         *
+         * @param timeToLive the time to live to set, or <code>null</code> to disable refreshing
+         * @return this builder
+         * @throws IllegalArgumentException if timeToLive is zero or negative
+         */
+        public Builder setTimeToLive(@Nullable Duration timeToLive) {
+            if (timeToLive != null && (timeToLive.isZero() || timeToLive.isNegative())) {
+                throw new IllegalArgumentException("Time to live must be positive");
+            }
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the priority of the service. When services are injected as a collection via
+         * {@link Injectable#listOf(Class)} or {@link Injectable#setOf(Class)}, services with a higher priority come
+         * first. Defaults to 0.
+         *
+         * @param priority the priority to set
+         * @return this builder
+         */
+        public Builder setPriority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Sets a hint about how long the factory method of the service takes to produce an instance. When the
+         * container is warmed up, services at the start of the longest chains of dependencies, weighted by these
+         * durations, are instantiated first, so that slow factories don't start late. The hint is only used until the
+         * container has measured the actual duration. Defaults to <code>null</code>, meaning no hint.
+         *
+         * @param estimatedBuildDuration the estimated build duration to set, or <code>null</code> to remove the hint
+         * @return this builder
+         * @throws IllegalArgumentException if estimatedBuildDuration is negative
+         */
+        public Builder setEstimatedBuildDuration(@Nullable Duration estimatedBuildDuration) {
+            if (estimatedBuildDuration != null && estimatedBuildDuration.isNegative()) {
+                throw new IllegalArgumentException("Estimated build duration must not be negative");
+            }
+            this.estimatedBuildDuration = estimatedBuildDuration;
+            return this;
+        }
+
+        /**
+         * Sets how the container invokes the setters of the service. Defaults to
+         * {@link AccessorStrategy#METHOD_HANDLE}.
+         *
+         * @param accessorStrategy the accessor strategy to set
+         * @return this builder
+         */
+        public Builder setAccessorStrategy(AccessorStrategy accessorStrategy) {
+            this.accessorStrategy = Objects.requireNonNull(accessorStrategy);
+            return this;
+        }
+
         /**
          * Sets the concrete type of the service to instantiate. It is useful when the {@link ServiceReference} is an
          * interface or an abstract type, it allows to specify which implementation to use.
@@ -188,11 +535,48 @@ public class ServiceDescriptor {
          * @throws IllegalArgumentException if concreteType is not a subtype of the service class
          */
         public Builder setConcreteType(@Nullable Class<?> concreteType) {
-            if (concreteType != null && !ref.getServiceClass().isAssignableFrom(concreteType)) {
+            if (concreteType != null && ref.isServiceClassLoaded()
+                    && !ref.getServiceClass().isAssignableFrom(concreteType)) {
                 throw new IllegalArgumentException(concreteType.getName() + " must be a subtype of " +
                         ref.getServiceName() + " in order to be set as concrete type");
             }
-            this.concreteType = concreteType;
+            this.concreteType = concreteType == null ? null : ServiceReference.ofType(concreteType);
+            return this;
+        }
+
+        /**
+         * Sets the concrete type of the service to instantiate by its name. This works the same way as
+         * {@link #setConcreteType(Class)}, except that the class is only loaded when the methods of the service are
+         * looked up, which is useful if the service reference is also created from a class name. Whether it is a
+         * subtype of the service class is checked at the same time.
+         *
+         * @param concreteTypeName the binary name of the concrete type to set, as by {@link Class#getName()}
+         * @param classLoader      the class loader able to load the concrete type, or <code>null</code> for the
+         *                         bootstrap class loader
+         * @return this builder
+         * @see ServiceReference#of(String, String, ClassLoader)
+         */
+        public Builder setConcreteType(String concreteTypeName, @Nullable ClassLoader classLoader) {
+            this.concreteType = ServiceReference.ofType(concreteTypeName, classLoader);
+            return this;
+        }
+
+        /**
+         * Adds an alias for the service, that is an additional reference under which the service is exposed. This is
+         * useful when the same implementation should be reachable via several interfaces: instead of registering one
+         * descriptor per interface, which would create as many instances, all aliases share the instance of the
+         * service if it is a singleton.
+         *
+         * <p>
+         * The class of the alias must be a supertype of the concrete type of the service, or of the class of the
+         * service reference if no concrete type is set. This is checked when the descriptor is built.
+         *
+         * @param alias the alias to add
+         * @return this builder
+         */
+        public Builder addAlias(ServiceReference<?> alias) {
+            Objects.requireNonNull(alias);
+            aliases.add(alias);
             return this;
         }
 
@@ -246,22 +630,164 @@ public class ServiceDescriptor {
          * @return this builder
          */
         public Builder addSetterMethod(String name, Injectable param, Class<?> returnType) {
-            setterMethods.add(owner -> new SetterMethod(owner, name, returnType, param));
+            setterMethods.add(new SetterDefinition(param, owner -> new SetterMethod(owner, name, returnType, param)));
+            return this;
+        }
+
+        /**
+         * Adds a setter method that is capable of injecting an additional dependency after instantiation.
+         *
+         * <p>
+         * This works the same way as {@link #addSetterMethod(String, Injectable, Class)}, except that the return type
+         * is given by name and loaded along with the service class, by the same class loader.
+         *
+         * @param name           the setter name
+         * @param param          the injectable parameter describing the dependency to inject in the setter
+         * @param returnTypeName the binary name of the return type of the setter method, as by
+         *                       {@link Class#getName()}
+         * @return this builder
+         * @see ServiceReference#of(String, String, ClassLoader)
+         */
+        public Builder addSetterMethod(String name, Injectable param, String returnTypeName) {
+            Objects.requireNonNull(returnTypeName);
+            setterMethods.add(new SetterDefinition(param, owner -> new SetterMethod(owner, name,
+                    loadType(returnTypeName, owner.getClassLoader()), param)));
+            return this;
+        }
+
+        /**
+         * Adds a method to invoke on each new instance of the service to complete its initialization, such as opening
+         * a connection pool or prefetching a cache. The method must be public, non-static and take no arguments. It
+         * may return a {@link org.reactivestreams.Publisher}, in which case the instance is only emitted once the
+         * publisher completes.
+         *
+         * <p>
+         * Init methods are invoked after all setters of all the instances created by the same request have been
+         * invoked, so that cyclic dependencies injected via setters are available. Init methods of a service wait for
+         * the ones of its dependencies, while those of independent services run concurrently. When several init
+         * methods are added, they are invoked one after the other in the order they were added.
+         *
+         * @param name the init method name
+         * @return this builder
+         */
+        public Builder addInitMethod(String name) {
+            Objects.requireNonNull(name);
+            initMethods.add(owner -> new InitMethod(owner, name));
+            return this;
+        }
+
+        /**
+         * Adds a method to invoke on the cached instance of the service when the container is disposed, in order to
+         * release the resources it holds. The method must be public, non-static and take no arguments. It may return
+         * a {@link org.reactivestreams.Publisher}, in which case the disposal is done when the publisher completes.
+         * This only has an effect if the service is configured as singleton.
+         *
+         * <p>
+         * When no dispose method is added, instances implementing {@link AutoCloseable} are closed, and those
+         * implementing {@link reactor.core.Disposable} are disposed. When several dispose methods are added, they are
+         * invoked one after the other in the order they were added.
+         *
+         * @param name the dispose method name
+         * @return this builder
+         * @see com.github.alex1304.rdi.RdiServiceContainer#dispose()
+         */
+        public Builder addDisposeMethod(String name) {
+            Objects.requireNonNull(name);
+            disposeMethods.add(owner -> new DisposeMethod(owner, name));
             return this;
         }
 
         /**
          * Builds the service descriptor.
          *
+         * <p>
+         * If the class of the service reference isn't loaded yet, which only happens for references created from a
+         * class name, the lookup of the factory method, setters, init and dispose methods is deferred until the
+         * service is first instantiated, along with the loading of the class and the checks on the aliases and the
+         * concrete type. Errors are then reported when the service is requested instead of being thrown by this
+         * method. This doesn't apply if the factory method is not one of those obtained from the static methods of
+         * {@link FactoryMethod}, as its injectable parameters can only be known by looking it up.
+         *
          * @return a newly built {@link ServiceDescriptor}
          * @throws RdiException if one of the injection methods cannot be found in the target class or are not public
+         * @throws IllegalArgumentException if one of the aliases is not a supertype of the service type, or is the
+         *                                  same as the service reference, or if the service is a singleton that has
+         *                                  dispose methods and isn't held strongly
          */
         public ServiceDescriptor build() {
-            Class<?> owner = concreteType != null ? concreteType : ref.getServiceClass();
-            return new ServiceDescriptor(ref, isSingleton, factoryMethod.apply(owner),
-                    Collections.unmodifiableList(setterMethods.stream()
-                            .map(setterMethod -> setterMethod.apply(owner))
-                            .collect(Collectors.toList())));
+            for (ServiceReference<?> alias : aliases) {
+                if (alias.equals(ref)) {
+                    throw new IllegalArgumentException("Service " + ref + " cannot be an alias of itself");
+                }
+            }
+            if (isSingleton && singletonRetention != SingletonRetention.STRONG && !disposeMethods.isEmpty()) {
+                throw new IllegalArgumentException("Service " + ref + " cannot have dispose methods, as its instance "
+                        + "may be reclaimed by the garbage collector before they are invoked. Use "
+                        + SingletonRetention.STRONG + " retention instead of " + singletonRetention);
+            }
+            // Snapshot of the builder, which may still be modified afterwards
+            ServiceReference<?> ref = this.ref;
+            Set<ServiceReference<?>> aliases = new LinkedHashSet<>(this.aliases);
+            @Nullable ServiceReference<?> concreteType = this.concreteType;
+            AccessorStrategy accessorStrategy = this.accessorStrategy;
+            Function<Class<?>, ? extends FactoryMethod> factoryMethod = this.factoryMethod;
+            List<SetterDefinition> setterMethods = new ArrayList<>(this.setterMethods);
+            List<Function<Class<?>, InitMethod>> initMethods = new ArrayList<>(this.initMethods);
+            List<Function<Class<?>, DisposeMethod>> disposeMethods = new ArrayList<>(this.disposeMethods);
+            Supplier<Members> membersResolver = () -> {
+                Class<?> owner = concreteType != null ? concreteType.getServiceClass() : ref.getServiceClass();
+                if (!ref.getServiceClass().isAssignableFrom(owner)) {
+                    throw new IllegalArgumentException(owner.getName() + " must be a subtype of " +
+                            ref.getServiceName() + " in order to be set as concrete type");
+                }
+                for (ServiceReference<?> alias : aliases) {
+                    if (!alias.getServiceClass().isAssignableFrom(owner)) {
+                        throw new IllegalArgumentException(owner.getName() + " must be a subtype of "
+                                + alias.getServiceClass().getName() + " in order to be exposed as " + alias);
+                    }
+                }
+                FactoryMethod builtFactoryMethod = factoryMethod.apply(owner);
+                List<SetterMethod> builtSetterMethods = setterMethods.stream()
+                        .map(setterMethod -> setterMethod.factory.apply(owner))
+                        .collect(Collectors.toList());
+                if (accessorStrategy != AccessorStrategy.METHOD_HANDLE) {
+                    builtSetterMethods.forEach(setterMethod -> setterMethod.useAccessorStrategy(accessorStrategy));
+                }
+                return new Members(owner, builtFactoryMethod, Collections.unmodifiableList(builtSetterMethods),
+                        Collections.unmodifiableList(initMethods.stream()
+                                .map(initMethod -> initMethod.apply(owner))
+                                .collect(Collectors.toList())),
+                        Collections.unmodifiableList(disposeMethods.stream()
+                                .map(disposeMethod -> disposeMethod.apply(owner))
+                                .collect(Collectors.toList())));
+            };
+            List<Injectable> setterParameters = Collections.unmodifiableList(setterMethods.stream()
+                    .map(setterMethod -> setterMethod.param)
+                    .collect(Collectors.toList()));
+            if (!ref.isServiceClassLoaded() && factoryMethod instanceof FactoryMethodDefinition) {
+                return new ServiceDescriptor(this,
+                        ((FactoryMethodDefinition) factoryMethod).getInjectableParameters(), setterParameters,
+                        membersResolver, null);
+            }
+            Members members = membersResolver.get();
+            return new ServiceDescriptor(this, members.factoryMethod.getInjectableParameters(), setterParameters,
+                    membersResolver, members);
+        }
+
+        /**
+         * Builds a descriptor that only carries the reference, the aliases and the settings of the service, without
+         * any injectable parameter. Its factory method, setters, init and dispose methods are never looked up: their
+         * getters throw {@link RdiException}, and so does the instantiation of the service by a container configured
+         * with it. It describes services whose instances are created by other means, such as the ones of a
+         * {@link com.github.alex1304.rdi.GeneratedServiceContainer}.
+         *
+         * @return a newly built {@link ServiceDescriptor}
+         */
+        public ServiceDescriptor buildWithoutMembers() {
+            ServiceReference<?> ref = this.ref;
+            return new ServiceDescriptor(this, Collections.emptyList(), Collections.emptyList(), () -> {
+                throw new RdiException("The members of service " + ref + " are not available from its descriptor");
+            }, null);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.github.alex1304.rdi.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Utilities for sets of service descriptors.
+ *
+ * <p>
+ * Descriptors are built in parallel, since each of them involves reflection and method handle lookups. This is used by
+ * {@link RdiConfig.Builder#registerServices(Collection)} and by the service finders of RDI. Errors don't depend on the
+ * scheduling of the tasks: if some of them fail, the error of the first one in the given order is thrown, with the
+ * errors of the others attached as suppressed exceptions in the same order.
+ *
+ * <p>
+ * Files derived from a configuration, such as resolution plans and startup profiles, are tied to the
+ * {@link #fingerprint(Collection) fingerprint} of its descriptors.
+ */
+public final class ServiceDescriptors {
+
+    private ServiceDescriptors() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Builds a service descriptor from each of the given sources, in parallel.
+     *
+     * @param sources the sources of the descriptors
+     * @param order   the order in which the errors are reported
+     * @param builder builds the descriptor of a source
+     * @param <T>     the type of the sources
+     * @return the descriptors
+     * @throws RuntimeException the error of the first source that failed in the given order, if any
+     */
+    public static <T> Set<ServiceDescriptor> buildAll(Collection<T> sources, Comparator<? super T> order,
+                                                      Function<? super T, ServiceDescriptor> builder) {
+        return new HashSet<>(mapAll(sources, order, builder));
+    }
+
+    /**
+     * Applies the given function to each of the given sources, in parallel.
+     *
+     * @param sources the sources
+     * @param order   the order of the results, in which the errors are reported as well
+     * @param mapper  the function to apply to each source
+     * @param <T>     the type of the sources
+     * @param <R>     the type of the results
+     * @return the results, in the given order
+     * @throws RuntimeException the error of the first source that failed in the given order, if any
+     */
+    public static <T, R> List<R> mapAll(Collection<T> sources, Comparator<? super T> order,
+                                        Function<? super T, ? extends R> mapper) {
+        List<Object> results = sources.stream()
+                .sorted(order)
+                .collect(Collectors.toList())
+                .parallelStream()
+                .map(source -> {
+                    try {
+                        return (Object) mapper.apply(source);
+                    } catch (RuntimeException e) {
+                        return new Failure(e);
+                    }
+                })
+                .collect(Collectors.toList());
+        List<R> values = new ArrayList<>(results.size());
+        RuntimeException error = null;
+        for (Object result : results) {
+            if (!(result instanceof Failure)) {
+                @SuppressWarnings("unchecked")
+                R value = (R) result;
+                values.add(value);
+            } else if (error == null) {
+                error = ((Failure) result).error;
+            } else {
+                error.addSuppressed(((Failure) result).error);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return values;
+    }
+
+    /**
+     * Computes a SHA-256 fingerprint of the structure of the given descriptors: their references, aliases, scope and
+     * priority, and the types and references injected in their factories and setters. Values injected in factories
+     * and setters are left out, so they may change without changing the fingerprint. No class of a service declared
+     * by name is loaded.
+     *
+     * @param serviceDescriptors the descriptors
+     * @return the fingerprint, which doesn't depend on the iteration order of the descriptors
+     */
+    public static byte[] fingerprint(Collection<ServiceDescriptor> serviceDescriptors) {
+        String structure = serviceDescriptors.stream()
+                .sorted(Comparator.comparing(descriptor -> descriptor.getServiceReference().getServiceName()))
+                .map(descriptor -> descriptor.getServiceReference().getServiceName()
+                        + ":" + descriptor.getServiceReference().getServiceClassName()
+                        + ":" + descriptor.isSingleton()
+                        + ":" + descriptor.getPriority()
+                        + ":" + descriptor.getAliases().stream()
+                        .map(alias -> alias.getServiceName())
+                        .sorted()
+                        .collect(Collectors.toList())
+                        + ":" + descriptor.getFactoryParameters().stream()
+                        .map(ServiceDescriptors::describe)
+                        .collect(Collectors.toList())
+                        + ":" + descriptor.getSetterParameters().stream()
+                        .map(ServiceDescriptors::describe)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.joining("\n"));
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(structure.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String describe(Injectable injectable) {
+        // The type name, as loading the class of a service declared by name must wait until it is instantiated
+        return injectable.getTypeName()
+                + injectable.getReference().map(ref -> "=" + ref.getServiceName()).orElse("")
+                + injectable.getMonoReference().map(ref -> "@" + ref.getServiceName()).orElse("")
+                + injectable.getProvidedReference().map(ref -> "~" + ref.getServiceName()).orElse("")
+                + injectable.getElementType().map(type -> "<" + type.getName() + ">").orElse("");
+    }
+
+    private static final class Failure {
+
+        private final RuntimeException error;
+
+        private Failure(RuntimeException error) {
+            this.error = error;
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.github.alex1304.rdi.config;
 
 import com.github.alex1304.rdi.RdiException;
+import org.jspecify.annotations.Nullable;
 import reactor.core.Exceptions;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 public class SetterMethod {
 
@@ -14,50 +16,95 @@ public class SetterMethod {
     private final String setterName;
     private final Class<?> returnType;
     private final Injectable param;
+    private final @Nullable Object value;
+    private final MethodHandle directHandle;
     private final MethodHandle methodHandle;
+    // Set while the descriptor is built, before it is published
+    private @Nullable BiConsumer<Object, Object> accessor;
 
     SetterMethod(Class<?> owner, String setterName, Class<?> returnType, Injectable param) {
         this.owner = owner;
         this.setterName = setterName;
         this.returnType = returnType;
         this.param = param;
-        this.methodHandle = prepareMethodHandle();
+        this.value = param.getValue().orElse(null);
+        this.directHandle = findDirectMethodHandle();
+        this.methodHandle = adapt(directHandle);
     }
 
     public Injectable getInjectableParameter() {
         return param;
     }
 
+    public Class<?> getOwner() {
+        return owner;
+    }
+
+    public String getMethodName() {
+        return setterName;
+    }
+
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
     public void invoke(Object instance, Object arg) {
+        BiConsumer<Object, Object> accessor = this.accessor;
         try {
-            methodHandle.invoke(instance, arg);
+            if (accessor != null) {
+                accessor.accept(instance, arg);
+                return;
+            }
+            Object ignored = (Object) methodHandle.invokeExact(instance, arg);
         } catch (Throwable t) {
             throw Exceptions.propagate(t);
         }
     }
 
     public void invoke(Object instance) {
+        BiConsumer<Object, Object> accessor = this.accessor;
         try {
-            methodHandle.invoke(instance);
+            if (accessor != null) {
+                accessor.accept(instance, value);
+                return;
+            }
+            Object ignored = (Object) methodHandle.invokeExact(instance);
         } catch (Throwable t) {
             throw Exceptions.propagate(t);
         }
     }
 
-    private MethodHandle prepareMethodHandle() {
+    /*
+     * Only applied to setters built by ServiceDescriptor.Builder, which are not shared yet.
+     */
+    void useAccessorStrategy(AccessorStrategy accessorStrategy) {
+        this.accessor = accessorStrategy == AccessorStrategy.LAMBDA_METAFACTORY
+                ? LambdaAccessors.setter(owner, directHandle)
+                : null;
+    }
+
+    private MethodHandle findDirectMethodHandle() {
+        if (param.getMonoReference().isPresent()) {
+            throw new RdiException("Setter method '" + setterName + "' for class " + owner.getName()
+                    + " cannot receive a Mono, only reactive factories can");
+        }
         try {
-            MethodHandle mh = MethodHandles.publicLookup()
+            return MethodHandles.publicLookup()
                     .findVirtual(owner, setterName, MethodType.methodType(returnType, param.getType()));
-            if (param.getValue().isPresent()) {
-                mh = MethodHandles.insertArguments(mh, 1, param.getValue().get());
-            }
-            return mh.asType(mh.type().generic());
         } catch (ReflectiveOperationException e) {
             throw new RdiException("Error when acquiring setter method '"
                     + setterName + "(" + param.getType().getName() + ")' for class " + owner.getName(), e);
         }
     }
 
+    private MethodHandle adapt(MethodHandle mh) {
+        if (value != null) {
+            mh = MethodHandles.insertArguments(mh, 1, value);
+        }
+        // Adapted once to a generic type so that invocations can use invokeExact
+        return mh.asType(mh.type().generic());
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(owner, param.getType(), setterName);
@@ -77,6 +124,6 @@ public class SetterMethod {
     @Override
     public String toString() {
         return "SetterMethod{owner=" + owner + ", setterName=" + setterName + ", returnType=" + returnType + ", param="
-                + param + ", methodHandle=" + methodHandle + "}";
+                + param + ", methodHandle=" + methodHandle + ", generatedAccessor=" + (accessor != null) + "}";
     }
 }
@@ -0,0 +1,36 @@
+package com.github.alex1304.rdi.config;
+
+/**
+ * Describes how strongly the container holds on to the cached instance of a singleton service. Unless specified
+ * otherwise, singletons are held strongly and stay in memory for the whole lifetime of the container.
+ *
+ * <p>
+ * When the cached instance is released, the next request for the service transparently instantiates it again through
+ * its factory method, and all its setters are invoked again on the new instance. Other services that were injected
+ * with the previous instance keep referring to it.
+ *
+ * <p>
+ * An instance released by the garbage collector is never disposed, since the container can no longer reach it. This
+ * is why only singletons held {@link #STRONG strongly} can have dispose methods.
+ *
+ * @see ServiceDescriptor.Builder#setSingletonRetention(SingletonRetention)
+ */
+public enum SingletonRetention {
+
+    /**
+     * The instance is held by a regular reference and is never released by the container.
+     */
+    STRONG,
+
+    /**
+     * The instance is held by a {@link java.lang.ref.SoftReference}, so that the garbage collector may release it
+     * when the JVM is running low on memory.
+     */
+    SOFT,
+
+    /**
+     * The instance is held by a {@link java.lang.ref.WeakReference}, so that it is released as soon as nothing else
+     * in the application refers to it.
+     */
+    WEAK
+}
@@ -0,0 +1,199 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reads just enough of a class file to tell whether the class is annotated with a runtime visible annotation, without
+ * loading it. See chapter 4 of the Java Virtual Machine Specification for the format.
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private ClassFileReader() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Reads the binary name of the class if it is annotated with the given annotation.
+     *
+     * @param bytes                the content of the class file
+     * @param annotationDescriptor the descriptor of the annotation, such as <code>Lcom/example/Foo;</code>
+     * @return the binary name of the class, or null if it is not annotated
+     * @throws IllegalArgumentException if the class file is malformed
+     */
+    static @Nullable String findAnnotatedClassName(ByteBuffer bytes, String annotationDescriptor) {
+        try {
+            return read(bytes, annotationDescriptor.getBytes(StandardCharsets.UTF_8));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated class file", e);
+        }
+    }
+
+    private static @Nullable String read(ByteBuffer in, byte[] annotationDescriptor) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        in.getShort(); // minor_version
+        in.getShort(); // major_version
+        int constantPoolCount = in.getShort() & 0xFFFF;
+        // Position of each constant in the buffer, right after its tag
+        int[] offsets = new int[constantPoolCount];
+        boolean mentionsAnnotation = false;
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.get();
+            offsets[i] = in.position();
+            switch (tag) {
+                case 1: // Utf8
+                    int length = in.getShort() & 0xFFFF;
+                    mentionsAnnotation |= length == annotationDescriptor.length && matches(in, annotationDescriptor);
+                    skip(in, length);
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(in, 8);
+                    i++; // Takes two entries
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+        // Most classes are discarded here, without reading their members
+        if (!mentionsAnnotation) {
+            return null;
+        }
+        in.getShort(); // access_flags
+        int thisClass = in.getShort() & 0xFFFF;
+        in.getShort(); // super_class
+        skip(in, 2 * (in.getShort() & 0xFFFF)); // interfaces
+        skipMembers(in); // fields
+        skipMembers(in); // methods
+        int attributesCount = in.getShort() & 0xFFFF;
+        for (int i = 0; i < attributesCount; i++) {
+            String name = utf8(in, offsets, in.getShort() & 0xFFFF);
+            int length = in.getInt();
+            int end = in.position() + length;
+            if (name.equals("RuntimeVisibleAnnotations")) {
+                int annotationsCount = in.getShort() & 0xFFFF;
+                for (int j = 0; j < annotationsCount; j++) {
+                    if (isUtf8(in, offsets, in.getShort() & 0xFFFF, annotationDescriptor)) {
+                        int nameIndex = offsets[thisClass];
+                        return utf8(in, offsets, in.getShort(nameIndex) & 0xFFFF).replace('/', '.');
+                    }
+                    skipElementValuePairs(in);
+                }
+            }
+            in.position(end);
+        }
+        return null;
+    }
+
+    private static void skipMembers(ByteBuffer in) {
+        int count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            skip(in, 6); // access_flags, name_index, descriptor_index
+            skipAttributes(in);
+        }
+    }
+
+    private static void skipAttributes(ByteBuffer in) {
+        int count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            in.getShort(); // attribute_name_index
+            skip(in, in.getInt());
+        }
+    }
+
+    private static void skipElementValuePairs(ByteBuffer in) {
+        int count = in.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            in.getShort(); // element_name_index
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(ByteBuffer in) {
+        int tag = in.get();
+        switch (tag) {
+            case 'e': // Enum constant
+                skip(in, 4);
+                break;
+            case '@': // Nested annotation
+                in.getShort();
+                skipElementValuePairs(in);
+                break;
+            case '[': // Array
+                int count = in.getShort() & 0xFFFF;
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(in);
+                }
+                break;
+            default: // Constant or class
+                skip(in, 2);
+        }
+    }
+
+    private static void skip(ByteBuffer in, int length) {
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        in.position(in.position() + length);
+    }
+
+    private static boolean matches(ByteBuffer in, byte[] expected) {
+        int start = in.position();
+        for (int i = 0; i < expected.length; i++) {
+            if (in.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUtf8(ByteBuffer in, int[] offsets, int index, byte[] expected) {
+        int offset = offsets[index];
+        if (in.get(offset - 1) != 1 || (in.getShort(offset) & 0xFFFF) != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (in.get(offset + 2 + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Class files use modified UTF-8, which only differs from UTF-8 for the null and supplementary characters
+    private static String utf8(ByteBuffer in, int[] offsets, int index) {
+        int offset = offsets[index];
+        byte[] bytes = new byte[in.getShort(offset) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = in.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
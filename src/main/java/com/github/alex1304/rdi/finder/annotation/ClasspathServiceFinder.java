@@ -0,0 +1,198 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.ServiceDescriptors;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A {@link ServiceFinder} that discovers the classes annotated with {@link RdiService} in directories and JAR files,
+ * then finds services from their annotations like {@link AnnotationServiceFinder}.
+ *
+ * <p>
+ * The class files are parsed directly instead of being loaded, in parallel, so that only the classes that are
+ * actually annotated are loaded by the class loader. Most class files are discarded after reading their constant
+ * pool. Entries that don't exist are ignored, and <code>Class-Path</code> attributes of JAR manifests are not
+ * followed. The annotated classes are then loaded and their descriptors built in parallel as well, with errors
+ * reported like {@link AnnotationServiceFinder}.
+ */
+public class ClasspathServiceFinder implements ServiceFinder {
+
+    private static final String SERVICE_ANNOTATION_DESCRIPTOR = "L" + RdiService.class.getName().replace('.', '/')
+            + ";";
+
+    private final List<Path> roots;
+    private final ClassLoader classLoader;
+
+    private ClasspathServiceFinder(List<Path> roots, ClassLoader classLoader) {
+        this.roots = roots;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Creates a new {@link ClasspathServiceFinder} scanning the given directories and JAR files, and loading the
+     * annotated classes with the given class loader.
+     *
+     * @param roots       the directories and JAR files to scan
+     * @param classLoader the class loader able to load the classes found in the roots
+     * @return a new {@link ClasspathServiceFinder}
+     */
+    public static ClasspathServiceFinder create(Collection<Path> roots, ClassLoader classLoader) {
+        Objects.requireNonNull(classLoader);
+        return new ClasspathServiceFinder(Collections.unmodifiableList(new ArrayList<>(roots)), classLoader);
+    }
+
+    /**
+     * Creates a new {@link ClasspathServiceFinder} scanning the entries of the <code>java.class.path</code> system
+     * property, and loading the annotated classes with the context class loader of the current thread.
+     *
+     * @return a new {@link ClasspathServiceFinder}
+     */
+    public static ClasspathServiceFinder ofClassPath() {
+        List<Path> roots = Arrays.stream(System.getProperty("java.class.path", "").split(File.pathSeparator))
+                .filter(entry -> !entry.isEmpty())
+                .map(Paths::get)
+                .collect(Collectors.toList());
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return create(roots, classLoader != null ? classLoader : ClasspathServiceFinder.class.getClassLoader());
+    }
+
+    /**
+     * Gets the directories and JAR files scanned by this finder.
+     *
+     * @return an unmodifiable list of paths
+     */
+    public List<Path> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Scans the roots for classes annotated with {@link RdiService}, without loading any class.
+     *
+     * @return the binary names of the annotated classes, sorted
+     * @throws RdiException if a root cannot be read or contains a malformed class file
+     */
+    public Set<String> findServiceClassNames() {
+        return roots.parallelStream()
+                .flatMap(root -> scan(root).stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    @Override
+    public Set<ServiceDescriptor> findServices() {
+        return ServiceDescriptors.buildAll(findServiceClassNames(), Comparator.naturalOrder(), name -> {
+            Class<?> clazz = loadClass(name);
+            return ServiceMetadata.of(clazz).toDescriptor(clazz);
+        });
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new RdiException("Failed to load service class " + name, e);
+        }
+    }
+
+    private static List<String> scan(Path root) {
+        try {
+            if (Files.isDirectory(root)) {
+                return scanDirectory(root);
+            }
+            if (Files.isRegularFile(root)) {
+                return scanArchive(root);
+            }
+            return Collections.emptyList();
+        } catch (IOException e) {
+            throw new RdiException("Failed to scan " + root, e);
+        }
+    }
+
+    private static List<String> scanDirectory(Path root) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(root)) {
+            classFiles = files.filter(file -> file.getFileName().toString().endsWith(".class"))
+                    .collect(Collectors.toList());
+        }
+        return classFiles.parallelStream()
+                .map(file -> {
+                    try {
+                        return read(Files.readAllBytes(file), file.toString());
+                    } catch (IOException e) {
+                        throw new RdiException("Failed to read " + file, e);
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> scanArchive(Path root) throws IOException {
+        try (ZipFile zip = new ZipFile(root.toFile())) {
+            // Entries of multi-release JARs under META-INF are versions of classes found at the root
+            return Collections.list(zip.entries()).parallelStream()
+                    .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(".class")
+                            && !entry.getName().startsWith("META-INF/"))
+                    .map(entry -> {
+                        try {
+                            return read(readEntry(zip, entry), root + "!/" + entry.getName());
+                        } catch (IOException e) {
+                            throw new RdiException("Failed to read " + entry.getName() + " in " + root, e);
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 4096);
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static @Nullable String read(byte[] classFile, String location) {
+        try {
+            return ClassFileReader.findAnnotatedClassName(ByteBuffer.wrap(classFile), SERVICE_ANNOTATION_DESCRIPTOR);
+        } catch (IllegalArgumentException e) {
+            throw new RdiException("Malformed class file " + location, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClasspathServiceFinder{roots=" + roots + "}";
+    }
+}
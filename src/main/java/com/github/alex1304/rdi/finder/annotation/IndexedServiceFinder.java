@@ -0,0 +1,294 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import com.github.alex1304.rdi.AtomicFiles;
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.ServiceDescriptors;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import org.jspecify.annotations.Nullable;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link ServiceFinder} that stores the services discovered by a {@link ClasspathServiceFinder} in an index file,
+ * so that subsequent starts of the same application don't need to scan and reflect over the classes again.
+ *
+ * <p>
+ * The index holds the names of the service classes along with everything their annotations declare: factory methods,
+ * setters, references and values. When it is read, the descriptors are built directly from the index without loading
+ * any class: the service classes and the types they refer to are only loaded, and their methods looked up, when the
+ * services are first instantiated. Errors in the annotations are therefore reported at this moment rather than by
+ * {@link #findServices()}. It is tied to the names, sizes and modification times of the class files in the scanned
+ * directories, and to the central directory of the scanned JAR files, which holds the names, sizes and CRC-32
+ * checksums of their entries. It is located at the end of a JAR file, so the entries don't need to be read, and a JAR
+ * file that is merely copied or touched keeps the index valid. If anything has changed, or if the index is
+ * unreadable, the roots are scanned again and the index is rewritten.
+ */
+public class IndexedServiceFinder implements ServiceFinder {
+
+    private static final Logger LOGGER = Loggers.getLogger("rdi.index");
+    private static final int MAGIC = 0x52444958; // "RDIX"
+    private static final int FORMAT_VERSION = 3;
+    private static final int END_RECORD_SIGNATURE = 0x06054b50;
+    private static final int END_RECORD_LENGTH = 22;
+
+    private final ClasspathServiceFinder scanner;
+    private final Path indexFile;
+
+    private IndexedServiceFinder(ClasspathServiceFinder scanner, Path indexFile) {
+        this.scanner = scanner;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Creates a new {@link IndexedServiceFinder} storing the services found by the given scanner in the given file.
+     *
+     * @param scanner   the finder scanning the classes when the index is missing or outdated
+     * @param indexFile the path of the index file, which doesn't need to exist
+     * @return a new {@link IndexedServiceFinder}
+     */
+    public static IndexedServiceFinder create(ClasspathServiceFinder scanner, Path indexFile) {
+        return new IndexedServiceFinder(Objects.requireNonNull(scanner), Objects.requireNonNull(indexFile));
+    }
+
+    /**
+     * Finds the services from the index if it is up to date, otherwise scans the classes and rewrites the index.
+     * Failing to write the index is logged and doesn't prevent the services from being returned.
+     *
+     * @return a {@link Set} of {@link ServiceDescriptor} corresponding to the services found
+     * @throws RdiException if the roots cannot be scanned, or if a service class cannot be loaded while scanning
+     */
+    @Override
+    public Set<ServiceDescriptor> findServices() {
+        List<RootState> roots = snapshot(scanner.getRoots());
+        List<ServiceMetadata> services = readIndex(roots);
+        if (services != null) {
+            return ServiceDescriptors.buildAll(services, Comparator.comparing(ServiceMetadata::getClassName),
+                    metadata -> metadata.toDeferredDescriptor(scanner.getClassLoader()));
+        }
+        // The classes are loaded by the scan anyway, so there is nothing to defer
+        services = ServiceDescriptors.mapAll(scanner.findServiceClassNames(), Comparator.naturalOrder(),
+                name -> ServiceMetadata.of(scanner.loadClass(name)));
+        writeIndex(roots, services);
+        return ServiceDescriptors.buildAll(services, Comparator.comparing(ServiceMetadata::getClassName),
+                metadata -> metadata.toDescriptor(scanner.loadClass(metadata.getClassName())));
+    }
+
+    @Nullable List<ServiceMetadata> readIndex(List<RootState> roots) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        List<ServiceMetadata> services;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring index {} written by another version of RDI", indexFile);
+                return null;
+            }
+            int rootCount = in.readInt();
+            if (rootCount != roots.size()) {
+                LOGGER.info("Ignoring index {} as the scanned roots have changed", indexFile);
+                return null;
+            }
+            for (RootState root : roots) {
+                RootState indexed = RootState.readFrom(in);
+                if (!root.path.equals(indexed.path)) {
+                    LOGGER.info("Ignoring index {} as the scanned roots have changed", indexFile);
+                    return null;
+                }
+                if (!root.checksum.equals(indexed.checksum)) {
+                    LOGGER.info("Ignoring index {} as the scanned classes have changed", indexFile);
+                    return null;
+                }
+            }
+            int count = in.readInt();
+            services = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                services.add(ServiceMetadata.readFrom(in));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable index {}", indexFile, e);
+            return null;
+        }
+        return services;
+    }
+
+    private void writeIndex(List<RootState> roots, List<ServiceMetadata> services) {
+        try {
+            AtomicFiles.write(indexFile, output -> {
+                DataOutputStream out = new DataOutputStream(output);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(roots.size());
+                for (RootState root : roots) {
+                    root.writeTo(out);
+                }
+                out.writeInt(services.size());
+                for (ServiceMetadata service : services) {
+                    service.writeTo(out);
+                }
+                out.flush();
+            });
+            LOGGER.debug("Saved index of {} service(s) to {}", services.size(), indexFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save index to {}", indexFile, e);
+        }
+    }
+
+    /*
+     * Reading the class files of directories would cost as much as scanning them, so only their metadata is gathered.
+     * JAR files already hold the checksums of their entries, which are read instead of their content.
+     */
+    static List<RootState> snapshot(List<Path> roots) {
+        List<RootState> states = new ArrayList<>(roots.size());
+        try {
+            for (Path root : roots) {
+                String path = root.toAbsolutePath().toString();
+                if (Files.isDirectory(root)) {
+                    List<Path> classFiles;
+                    try (Stream<Path> files = Files.walk(root)) {
+                        classFiles = files.filter(file -> file.getFileName().toString().endsWith(".class"))
+                                .sorted()
+                                .collect(Collectors.toList());
+                    }
+                    MessageDigest digest = sha256();
+                    for (Path file : classFiles) {
+                        update(digest, root.relativize(file) + ":" + Files.size(file) + ":"
+                                + Files.getLastModifiedTime(file).toMillis());
+                    }
+                    states.add(new RootState(path, "directory:" + toHex(digest.digest())));
+                } else if (Files.isRegularFile(root)) {
+                    MessageDigest digest = sha256();
+                    updateWithCentralDirectory(digest, root);
+                    states.add(new RootState(path, "jar:" + toHex(digest.digest())));
+                } else {
+                    states.add(new RootState(path, "missing"));
+                }
+            }
+        } catch (IOException e) {
+            throw new RdiException("Failed to read the metadata of " + roots, e);
+        }
+        return states;
+    }
+
+    /*
+     * The central directory lists the name, size and CRC-32 of every entry of a JAR file. It is located by the end of
+     * central directory record, which ends the file unless followed by a comment of up to 65535 bytes. Files that
+     * aren't ZIP archives, and ZIP64 archives whose record only holds placeholders, are hashed entirely instead.
+     */
+    private static void updateWithCentralDirectory(MessageDigest digest, Path jar) throws IOException {
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer tail = read(channel, size - Math.min(size, END_RECORD_LENGTH), END_RECORD_LENGTH);
+            int end = findEndRecord(tail);
+            if (end < 0 && size > END_RECORD_LENGTH) {
+                tail = read(channel, size - Math.min(size, END_RECORD_LENGTH + 0xFFFF), END_RECORD_LENGTH + 0xFFFF);
+                end = findEndRecord(tail);
+            }
+            if (end >= 0) {
+                long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+                long directoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+                if (directoryOffset != 0xFFFFFFFFL && directoryOffset + directorySize <= size) {
+                    digest.update(read(channel, directoryOffset, (int) directorySize));
+                    return;
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            channel.position(0);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    private static int findEndRecord(ByteBuffer tail) {
+        for (int i = tail.limit() - END_RECORD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == END_RECORD_SIGNATURE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, channel.size() - position))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) != -1) {
+            // Reads until the buffer is full
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedServiceFinder{roots=" + scanner.getRoots() + ", indexFile=" + indexFile + "}";
+    }
+
+    /*
+     * State of a scanned root as recorded in the index.
+     */
+    static class RootState {
+
+        private final String path;
+        private final String checksum;
+
+        private RootState(String path, String checksum) {
+            this.path = path;
+            this.checksum = checksum;
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeUTF(path);
+            out.writeUTF(checksum);
+        }
+
+        private static RootState readFrom(DataInputStream in) throws IOException {
+            return new RootState(in.readUTF(), in.readUTF());
+        }
+    }
+}
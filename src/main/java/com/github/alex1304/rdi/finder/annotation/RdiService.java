@@ -14,5 +14,13 @@ public @interface RdiService {
 
     String value() default "";
 
-    Class<?> as() default Void.class;
+    /**
+     * The types under which the service is exposed. The first type is used for the main reference of the service,
+     * along with the name given in {@link #value()} if any. The other types are registered as aliases of the service,
+     * referred to by type, so that they all share the same instance if the service is a singleton. Defaults to the
+     * annotated class itself.
+     *
+     * @return the types under which the service is exposed
+     */
+    Class<?>[] as() default {};
 }
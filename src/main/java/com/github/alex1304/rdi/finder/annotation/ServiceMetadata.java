@@ -0,0 +1,354 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.FactoryMethod;
+import com.github.alex1304.rdi.config.Injectable;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import org.jspecify.annotations.Nullable;
+import org.reactivestreams.Publisher;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/*
+ * What the annotations of a service class declare, with types referred to by name so that it can be stored in an
+ * index and turned into a descriptor later on.
+ */
+final class ServiceMetadata {
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : Arrays.asList(boolean.class, byte.class, char.class, double.class, float.class,
+                int.class, long.class, short.class, void.class)) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private final String className;
+    private final String name;
+    private final List<String> exposedTypes;
+    // Null for the default no-arg constructor
+    private final @Nullable MethodMetadata factory;
+    private final List<MethodMetadata> setters;
+    private final List<String> initMethods;
+    private final List<String> disposeMethods;
+
+    private ServiceMetadata(String className, String name, List<String> exposedTypes,
+                            @Nullable MethodMetadata factory, List<MethodMetadata> setters,
+                            List<String> initMethods, List<String> disposeMethods) {
+        this.className = className;
+        this.name = name;
+        this.exposedTypes = exposedTypes;
+        this.factory = factory;
+        this.setters = setters;
+        this.initMethods = initMethods;
+        this.disposeMethods = disposeMethods;
+    }
+
+    /*
+     * Reads the annotations of a class annotated with @RdiService.
+     */
+    static ServiceMetadata of(Class<?> clazz) {
+        RdiService service = clazz.getAnnotation(RdiService.class);
+        if (service == null) {
+            throw new IllegalArgumentException(clazz + " is not annotated with @RdiService");
+        }
+        Method[] methods = clazz.getDeclaredMethods();
+        MethodMetadata factory = findStaticFactory(clazz, methods)
+                .orElseGet(() -> findConstructor(clazz).orElse(null));
+        List<MethodMetadata> setters = Arrays.stream(methods)
+                .filter(m -> m.isAnnotationPresent(RdiSetter.class)
+                        && Modifier.isPublic(m.getModifiers())
+                        && m.getParameterCount() == 1)
+                .map(m -> new MethodMetadata(m.getName(), m.getReturnType().getName(),
+                        Collections.singletonList(ParameterMetadata.of(m.getParameters()[0]))))
+                .collect(Collectors.toList());
+        return new ServiceMetadata(clazz.getName(), service.value(),
+                Arrays.stream(service.as()).map(Class::getName).collect(Collectors.toList()),
+                factory, setters, lifecycleMethods(methods, RdiInit.class),
+                lifecycleMethods(methods, RdiDispose.class));
+    }
+
+    private static Optional<MethodMetadata> findStaticFactory(Class<?> clazz, Method[] methods) {
+        return Arrays.stream(methods)
+                .filter(m -> m.isAnnotationPresent(RdiFactory.class)
+                        && Modifier.isPublic(m.getModifiers())
+                        && Modifier.isStatic(m.getModifiers())
+                        && (Publisher.class.isAssignableFrom(m.getReturnType()) || m.getReturnType().equals(clazz)))
+                .findFirst()
+                .map(m -> new MethodMetadata(m.getName(), m.getReturnType().getName(), parameters(m)));
+    }
+
+    private static Optional<MethodMetadata> findConstructor(Class<?> clazz) {
+        return Arrays.stream(clazz.getDeclaredConstructors())
+                .filter(c -> c.isAnnotationPresent(RdiFactory.class)
+                        && Modifier.isPublic(c.getModifiers()))
+                .findFirst()
+                .map(c -> new MethodMetadata(CONSTRUCTOR_NAME, void.class.getName(), parameters(c)));
+    }
+
+    private static List<ParameterMetadata> parameters(Executable executable) {
+        return Arrays.stream(executable.getParameters())
+                .map(ParameterMetadata::of)
+                .collect(Collectors.toList());
+    }
+
+    // In a deterministic order
+    private static List<String> lifecycleMethods(Method[] methods, Class<? extends Annotation> annotation) {
+        return Arrays.stream(methods)
+                .filter(m -> m.isAnnotationPresent(annotation)
+                        && Modifier.isPublic(m.getModifiers())
+                        && !Modifier.isStatic(m.getModifiers())
+                        && m.getParameterCount() == 0)
+                .map(Method::getName)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    /*
+     * The class must be the one named by this metadata. Other types are resolved through its class loader.
+     */
+    ServiceDescriptor toDescriptor(Class<?> clazz) {
+        @Nullable ClassLoader loader = clazz.getClassLoader();
+        Class<?> serviceType = exposedTypes.isEmpty() ? clazz : resolve(exposedTypes.get(0), loader);
+        ServiceReference<?> ref = !name.isEmpty()
+                ? ServiceReference.of(name, serviceType)
+                : ServiceReference.ofType(serviceType);
+        ServiceDescriptor.Builder builder = ServiceDescriptor.builder(ref)
+                .setConcreteType(clazz);
+        for (int i = 1; i < exposedTypes.size(); i++) {
+            builder.addAlias(ServiceReference.ofType(resolve(exposedTypes.get(i), loader)));
+        }
+        if (factory == null) {
+            builder.setFactoryMethod(FactoryMethod.constructor());
+        } else if (factory.name.equals(CONSTRUCTOR_NAME)) {
+            builder.setFactoryMethod(FactoryMethod.constructor(factory.toInjectables(loader, false)));
+        } else {
+            builder.setFactoryMethod(FactoryMethod.staticFactory(factory.name, resolve(factory.returnType, loader),
+                    factory.toInjectables(loader, false)));
+        }
+        for (MethodMetadata setter : setters) {
+            builder.addSetterMethod(setter.name, setter.toInjectables(loader, false)[0],
+                    resolve(setter.returnType, loader));
+        }
+        initMethods.forEach(builder::addInitMethod);
+        disposeMethods.forEach(builder::addDisposeMethod);
+        return builder.build();
+    }
+
+    /*
+     * Refers to all classes by name, so that none of them is loaded before the service is instantiated.
+     */
+    ServiceDescriptor toDeferredDescriptor(@Nullable ClassLoader loader) {
+        String serviceType = exposedTypes.isEmpty() ? className : exposedTypes.get(0);
+        ServiceDescriptor.Builder builder = ServiceDescriptor.builder(ServiceReference.of(
+                        !name.isEmpty() ? name : serviceType, serviceType, loader))
+                .setConcreteType(className, loader);
+        for (int i = 1; i < exposedTypes.size(); i++) {
+            builder.addAlias(ServiceReference.ofType(exposedTypes.get(i), loader));
+        }
+        if (factory == null) {
+            builder.setFactoryMethod(FactoryMethod.constructor());
+        } else if (factory.name.equals(CONSTRUCTOR_NAME)) {
+            builder.setFactoryMethod(FactoryMethod.constructor(factory.toInjectables(loader, true)));
+        } else {
+            builder.setFactoryMethod(FactoryMethod.staticFactory(factory.name, factory.returnType,
+                    factory.toInjectables(loader, true)));
+        }
+        for (MethodMetadata setter : setters) {
+            builder.addSetterMethod(setter.name, setter.toInjectables(loader, true)[0], setter.returnType);
+        }
+        initMethods.forEach(builder::addInitMethod);
+        disposeMethods.forEach(builder::addDisposeMethod);
+        return builder.build();
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(className);
+        out.writeUTF(name);
+        writeStrings(out, exposedTypes);
+        out.writeBoolean(factory != null);
+        if (factory != null) {
+            factory.writeTo(out);
+        }
+        out.writeShort(setters.size());
+        for (MethodMetadata setter : setters) {
+            setter.writeTo(out);
+        }
+        writeStrings(out, initMethods);
+        writeStrings(out, disposeMethods);
+    }
+
+    static ServiceMetadata readFrom(DataInput in) throws IOException {
+        String className = in.readUTF();
+        String name = in.readUTF();
+        List<String> exposedTypes = readStrings(in);
+        MethodMetadata factory = in.readBoolean() ? MethodMetadata.readFrom(in) : null;
+        int setterCount = in.readUnsignedShort();
+        List<MethodMetadata> setters = new ArrayList<>(setterCount);
+        for (int i = 0; i < setterCount; i++) {
+            setters.add(MethodMetadata.readFrom(in));
+        }
+        return new ServiceMetadata(className, name, exposedTypes, factory, setters, readStrings(in),
+                readStrings(in));
+    }
+
+    private static void writeStrings(DataOutput out, List<String> strings) throws IOException {
+        out.writeShort(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(DataInput in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    private static Class<?> resolve(String typeName, @Nullable ClassLoader loader) {
+        Class<?> primitive = PRIMITIVE_TYPES.get(typeName);
+        if (primitive != null) {
+            return primitive;
+        }
+        try {
+            return Class.forName(typeName, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new RdiException("Failed to load type " + typeName, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceMetadata{className=" + className + ", name=" + name + "}";
+    }
+
+    private static final class MethodMetadata {
+
+        private final String name;
+        private final String returnType;
+        private final List<ParameterMetadata> params;
+
+        private MethodMetadata(String name, String returnType, List<ParameterMetadata> params) {
+            this.name = name;
+            this.returnType = returnType;
+            this.params = params;
+        }
+
+        private Injectable[] toInjectables(@Nullable ClassLoader loader, boolean deferred) {
+            return params.stream()
+                    .map(param -> param.toInjectable(loader, deferred))
+                    .toArray(Injectable[]::new);
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(name);
+            out.writeUTF(returnType);
+            out.writeShort(params.size());
+            for (ParameterMetadata param : params) {
+                param.writeTo(out);
+            }
+        }
+
+        private static MethodMetadata readFrom(DataInput in) throws IOException {
+            String name = in.readUTF();
+            String returnType = in.readUTF();
+            int count = in.readUnsignedShort();
+            List<ParameterMetadata> params = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                params.add(ParameterMetadata.readFrom(in));
+            }
+            return new MethodMetadata(name, returnType, params);
+        }
+    }
+
+    private static final class ParameterMetadata {
+
+        private static final byte SERVICE_OF_TYPE = 0;
+        private static final byte NAMED_SERVICE = 1;
+        private static final byte VALUE = 2;
+
+        private final String type;
+        private final byte kind;
+        // The name of the service or the value, depending on the kind
+        private final String argument;
+
+        private ParameterMetadata(String type, byte kind, String argument) {
+            this.type = type;
+            this.kind = kind;
+            this.argument = argument;
+        }
+
+        private static ParameterMetadata of(Parameter p) {
+            RdiRef ref = p.getAnnotation(RdiRef.class);
+            if (ref != null) {
+                return new ParameterMetadata(p.getType().getName(), NAMED_SERVICE, ref.value());
+            }
+            RdiVal val = p.getAnnotation(RdiVal.class);
+            if (val != null) {
+                if (!p.getType().isPrimitive() && !p.getType().equals(String.class)
+                        && !p.getType().equals(CharSequence.class) && !p.getType().equals(Object.class)) {
+                    throw new RdiException("Unsupported parameter type for @RdiVal, only primitive "
+                            + "types and supertypes of String (included) are supported. Given: " + p.getType());
+                }
+                return new ParameterMetadata(p.getType().getName(), VALUE, val.value());
+            }
+            return new ParameterMetadata(p.getType().getName(), SERVICE_OF_TYPE, "");
+        }
+
+        private Injectable toInjectable(@Nullable ClassLoader loader, boolean deferred) {
+            switch (kind) {
+                case NAMED_SERVICE:
+                    return Injectable.ref(deferred
+                            ? ServiceReference.of(argument, type, loader)
+                            : ServiceReference.of(argument, resolve(type, loader)));
+                case VALUE:
+                    // Only primitive types and supertypes of String, which are never loaded lazily
+                    return Injectable.parsedValue(argument, resolve(type, loader));
+                default:
+                    return Injectable.ref(deferred
+                            ? ServiceReference.ofType(type, loader)
+                            : ServiceReference.ofType(resolve(type, loader)));
+            }
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            out.writeUTF(type);
+            out.writeByte(kind);
+            out.writeUTF(argument);
+        }
+
+        private static ParameterMetadata readFrom(DataInput in) throws IOException {
+            String type = in.readUTF();
+            byte kind = in.readByte();
+            if (kind != SERVICE_OF_TYPE && kind != NAMED_SERVICE && kind != VALUE) {
+                throw new IOException("Unknown parameter kind " + kind);
+            }
+            return new ParameterMetadata(type, kind, in.readUTF());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.github.alex1304.rdi.finder.annotation.processing;
+
+import com.github.alex1304.rdi.finder.annotation.RdiDispose;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiInit;
+import com.github.alex1304.rdi.finder.annotation.RdiRef;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.alex1304.rdi.finder.annotation.RdiSetter;
+import com.github.alex1304.rdi.finder.annotation.RdiVal;
+import org.jspecify.annotations.Nullable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static com.github.alex1304.rdi.generator.SourceLiterals.charLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.doubleLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.floatLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.stringLiteral;
+
+/**
+ * Annotation processor generating a {@link com.github.alex1304.rdi.finder.ServiceFinder} for all classes annotated
+ * with {@link RdiService} in the compiled sources. The descriptors are written out in the generated class the same way
+ * {@link com.github.alex1304.rdi.finder.annotation.AnnotationServiceFinder} would build them, so that no annotation is
+ * read at runtime, and configuration errors such as invalid {@link RdiVal} values or missing factories are reported
+ * by the compiler.
+ *
+ * <p>
+ * The processor is registered as a service, but does nothing unless the fully qualified name of the class to
+ * generate is given via the <code>rdi.generatedFinder</code> option, for example
+ * <code>-Ardi.generatedFinder=com.example.GeneratedServiceFinder</code>. The generated class has a public no-arg
+ * constructor.
+ */
+public class RdiServiceProcessor extends AbstractProcessor {
+
+    /**
+     * The name of the option giving the fully qualified name of the class to generate.
+     */
+    public static final String GENERATED_FINDER_OPTION = "rdi.generatedFinder";
+
+    private boolean finderGenerated;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(RdiService.class.getName());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(GENERATED_FINDER_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        String finderName = processingEnv.getOptions().get(GENERATED_FINDER_OPTION);
+        if (finderName == null) {
+            return false;
+        }
+        Set<TypeElement> types = ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(RdiService.class));
+        if (types.isEmpty()) {
+            return false;
+        }
+        /*
+         * A source file created in the last round isn't compiled without a warning, so the finder is written in the
+         * round where the annotated classes appear. Only classes generated by other processors may appear later.
+         */
+        if (finderGenerated) {
+            types.forEach(type -> error(type, "Service class generated after " + finderName + " was written, it "
+                    + "must be declared in the compiled sources"));
+            return false;
+        }
+        finderGenerated = true;
+        // Sorted by name of the service class
+        Map<String, String> descriptors = new TreeMap<>();
+        boolean valid = true;
+        for (TypeElement type : types) {
+            String descriptor = describe(type);
+            if (descriptor != null) {
+                descriptors.put(type.getQualifiedName().toString(), descriptor);
+            } else {
+                valid = false;
+            }
+        }
+        if (valid) {
+            writeFinder(finderName, descriptors.values());
+        }
+        return false;
+    }
+
+    private @Nullable String describe(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.PUBLIC)
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            return error(type, "A service must be a public, concrete and top-level or static nested class");
+        }
+        AnnotationMirror service = mirror(type, RdiService.class);
+        String name = annotationValue(service, "value").map(v -> (String) v.getValue()).orElse("");
+        List<String> as = annotationValue(service, "as")
+                .map(v -> ((List<?>) v.getValue()).stream()
+                        .map(element -> classLiteral((TypeMirror) ((AnnotationValue) element).getValue()))
+                        .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+        String serviceType = as.isEmpty() ? classLiteral(type.asType()) : as.get(0);
+        StringBuilder sb = new StringBuilder("ServiceDescriptor.builder(")
+                .append(name.isEmpty()
+                        ? "ServiceReference.ofType(" + serviceType + ")"
+                        : "ServiceReference.of(" + stringLiteral(name) + ", " + serviceType + ")")
+                .append(")\n                .setConcreteType(").append(classLiteral(type.asType())).append(")");
+        for (int i = 1; i < as.size(); i++) {
+            sb.append("\n                .addAlias(ServiceReference.ofType(").append(as.get(i)).append("))");
+        }
+        String factory = factory(type);
+        if (factory == null) {
+            return null;
+        }
+        sb.append("\n                .setFactoryMethod(").append(factory).append(")");
+        List<String> initMethods = new ArrayList<>();
+        List<String> disposeMethods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getAnnotation(RdiSetter.class) != null) {
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+                        || method.getParameters().size() != 1) {
+                    return error(method, "@RdiSetter methods must be public, non-static and take exactly one "
+                            + "parameter");
+                }
+                String param = injectable(method.getParameters().get(0));
+                if (param == null) {
+                    return null;
+                }
+                sb.append("\n                .addSetterMethod(").append(stringLiteral(method.getSimpleName()))
+                        .append(", ").append(param).append(", ").append(classLiteral(method.getReturnType()))
+                        .append(")");
+            }
+            boolean isInit = method.getAnnotation(RdiInit.class) != null;
+            boolean isDispose = method.getAnnotation(RdiDispose.class) != null;
+            if ((isInit || isDispose) && (!method.getModifiers().contains(Modifier.PUBLIC)
+                    || method.getModifiers().contains(Modifier.STATIC) || !method.getParameters().isEmpty())) {
+                return error(method, "@RdiInit and @RdiDispose methods must be public, non-static and take no "
+                        + "parameters");
+            }
+            if (isInit) {
+                initMethods.add(method.getSimpleName().toString());
+            }
+            if (isDispose) {
+                disposeMethods.add(method.getSimpleName().toString());
+            }
+        }
+        initMethods.stream().sorted().forEach(m -> sb.append("\n                .addInitMethod(")
+                .append(stringLiteral(m)).append(")"));
+        disposeMethods.stream().sorted().forEach(m -> sb.append("\n                .addDisposeMethod(")
+                .append(stringLiteral(m)).append(")"));
+        return sb.append("\n                .build()").toString();
+    }
+
+    /*
+     * Same precedence as AnnotationServiceFinder: static factories first, then constructors, then the no-arg
+     * constructor.
+     */
+    private @Nullable String factory(TypeElement type) {
+        List<ExecutableElement> annotated = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getAnnotation(RdiFactory.class) != null) {
+                annotated.add(method);
+            }
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getAnnotation(RdiFactory.class) != null) {
+                annotated.add(constructor);
+            }
+        }
+        if (annotated.isEmpty()) {
+            boolean hasNoArgConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                    .anyMatch(c -> c.getModifiers().contains(Modifier.PUBLIC) && c.getParameters().isEmpty());
+            if (!hasNoArgConstructor) {
+                return error(type, "A service without @RdiFactory must have a public no-arg constructor");
+            }
+            return "FactoryMethod.constructor()";
+        }
+        ExecutableElement factory = annotated.get(0);
+        boolean isConstructor = factory.getKind() == ElementKind.CONSTRUCTOR;
+        if (!factory.getModifiers().contains(Modifier.PUBLIC)
+                || !isConstructor && !factory.getModifiers().contains(Modifier.STATIC)) {
+            return error(factory, "@RdiFactory methods must be public, and static unless they are constructors");
+        }
+        TypeMirror returnType = processingEnv.getTypeUtils().erasure(factory.getReturnType());
+        TypeElement publisher = processingEnv.getElementUtils().getTypeElement("org.reactivestreams.Publisher");
+        if (!isConstructor && !processingEnv.getTypeUtils().isSameType(returnType, type.asType())
+                && (publisher == null || !processingEnv.getTypeUtils().isAssignable(returnType,
+                processingEnv.getTypeUtils().erasure(publisher.asType())))) {
+            return error(factory, "A static @RdiFactory method must return the service class or a Publisher");
+        }
+        StringBuilder sb = new StringBuilder(isConstructor
+                ? "FactoryMethod.constructor("
+                : "FactoryMethod.staticFactory(" + stringLiteral(factory.getSimpleName()) + ", "
+                        + classLiteral(returnType));
+        boolean first = isConstructor;
+        for (VariableElement param : factory.getParameters()) {
+            String injectable = injectable(param);
+            if (injectable == null) {
+                return null;
+            }
+            sb.append(first ? "" : ", ").append(injectable);
+            first = false;
+        }
+        return sb.append(")").toString();
+    }
+
+    private @Nullable String injectable(VariableElement param) {
+        TypeMirror type = param.asType();
+        RdiRef ref = param.getAnnotation(RdiRef.class);
+        if (ref != null) {
+            return "Injectable.ref(ServiceReference.of(" + stringLiteral(ref.value()) + ", " + classLiteral(type)
+                    + "))";
+        }
+        RdiVal val = param.getAnnotation(RdiVal.class);
+        if (val == null) {
+            return "Injectable.ref(ServiceReference.ofType(" + classLiteral(type) + "))";
+        }
+        String value = val.value();
+        try {
+            switch (type.getKind()) {
+                case BOOLEAN:
+                    return "Injectable.value(" + Boolean.parseBoolean(value) + ")";
+                case BYTE:
+                    return "Injectable.value((byte) " + Byte.parseByte(value) + ")";
+                case CHAR:
+                    if (value.isEmpty()) {
+                        return error(param, "@RdiVal value for a char parameter must not be empty");
+                    }
+                    return "Injectable.value(" + charLiteral(value.charAt(0)) + ")";
+                case DOUBLE:
+                    return "Injectable.value(" + doubleLiteral(Double.parseDouble(value)) + ")";
+                case FLOAT:
+                    return "Injectable.value(" + floatLiteral(Float.parseFloat(value)) + ")";
+                case INT:
+                    return "Injectable.value(" + Integer.parseInt(value) + ")";
+                case LONG:
+                    return "Injectable.value(" + Long.parseLong(value) + "L)";
+                case SHORT:
+                    return "Injectable.value((short) " + Short.parseShort(value) + ")";
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            return error(param, "Invalid @RdiVal value for a parameter of type " + type + ": " + value);
+        }
+        String typeName = processingEnv.getTypeUtils().erasure(type).toString();
+        if (typeName.equals("java.lang.String") || typeName.equals("java.lang.CharSequence")
+                || typeName.equals("java.lang.Object")) {
+            return "Injectable.value(" + stringLiteral(value) + ", " + typeName + ".class)";
+        }
+        return error(param, "Unsupported parameter type for @RdiVal, only primitive types and supertypes of String "
+                + "(included) are supported. Given: " + type);
+    }
+
+    private void writeFinder(String finderName, Collection<String> descriptors) {
+        int lastDot = finderName.lastIndexOf('.');
+        String packageName = lastDot > 0 ? finderName.substring(0, lastDot) : null;
+        String simpleName = finderName.substring(lastDot + 1);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(finderName);
+            try (Writer writer = file.openWriter()) {
+                if (packageName != null) {
+                    writer.write("package " + packageName + ";\n\n");
+                }
+                writer.write("import com.github.alex1304.rdi.ServiceReference;\n"
+                        + "import com.github.alex1304.rdi.config.FactoryMethod;\n"
+                        + "import com.github.alex1304.rdi.config.Injectable;\n"
+                        + "import com.github.alex1304.rdi.config.ServiceDescriptor;\n"
+                        + "import com.github.alex1304.rdi.finder.ServiceFinder;\n\n"
+                        + "import java.util.HashSet;\n"
+                        + "import java.util.Set;\n\n"
+                        + "/**\n"
+                        + " * Generated by " + RdiServiceProcessor.class.getName() + ", do not edit.\n"
+                        + " */\n"
+                        + "public final class " + simpleName + " implements ServiceFinder {\n\n"
+                        + "    @Override\n"
+                        + "    public Set<ServiceDescriptor> findServices() {\n"
+                        + "        Set<ServiceDescriptor> services = new HashSet<>();\n");
+                for (String descriptor : descriptors) {
+                    writer.write("        services.add(" + descriptor + ");\n");
+                }
+                writer.write("        return services;\n"
+                        + "    }\n"
+                        + "}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not generate " + finderName
+                    + ": " + e);
+        }
+    }
+
+    private @Nullable String error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return null;
+    }
+
+    private static AnnotationMirror mirror(Element element, Class<?> annotationType) {
+        return element.getAnnotationMirrors().stream()
+                .filter(m -> ((TypeElement) m.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(annotationType.getName()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(element + " is not annotated with " + annotationType));
+    }
+
+    private static Optional<AnnotationValue> annotationValue(AnnotationMirror mirror, String name) {
+        return mirror.getElementValues().entrySet().stream()
+                .filter(e -> e.getKey().getSimpleName().contentEquals(name))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .map(v -> (AnnotationValue) v);
+    }
+
+    private String classLiteral(TypeMirror type) {
+        if (type.getKind() == TypeKind.TYPEVAR || type.getKind() == TypeKind.DECLARED
+                || type.getKind() == TypeKind.ARRAY) {
+            type = processingEnv.getTypeUtils().erasure(type);
+        }
+        return type + ".class";
+    }
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package com.github.alex1304.rdi.finder.annotation.processing;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,737 @@
+package com.github.alex1304.rdi.generator;
+
+import com.github.alex1304.rdi.GeneratedServiceContainer;
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.RdiServiceContainer;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.DisposeMethod;
+import com.github.alex1304.rdi.config.FactoryMethod;
+import com.github.alex1304.rdi.config.InitMethod;
+import com.github.alex1304.rdi.config.Injectable;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.SetterMethod;
+import com.github.alex1304.rdi.resolver.DependencyResolver;
+import com.github.alex1304.rdi.resolver.TypeIndex;
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.github.alex1304.rdi.generator.SourceLiterals.charLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.doubleLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.floatLiteral;
+import static com.github.alex1304.rdi.generator.SourceLiterals.stringLiteral;
+
+/**
+ * Generates the source code of a container instantiating the services of a {@link RdiConfig} with plain Java calls
+ * instead of method handles and reactive chains. For each service, the generated class has a typed accessor which
+ * invokes the constructor or static factory, then the setters and the init methods of the service directly, and stores
+ * the instance in a field if the service is a singleton. Reactor is only used for the services that are reactive: those
+ * with a factory or an init method returning a {@link Publisher}, a factory receiving a Mono, or depending on another
+ * reactive service. Their accessor returns a Mono instead of the instance. Each singleton is created while holding a
+ * lock of its own, shared by the services of a cycle, and its accessor returns the cached instance without locking.
+ *
+ * <p>
+ * The generated class extends {@link GeneratedServiceContainer}, so it can be used wherever a
+ * {@link RdiServiceContainer} is expected. It doesn't need the configuration at runtime, only at generation time: to
+ * generate it from annotated classes, give the config built by
+ * {@link RdiConfig#fromServiceFinder(com.github.alex1304.rdi.finder.ServiceFinder)} with an
+ * {@link com.github.alex1304.rdi.finder.annotation.AnnotationServiceFinder}. Unlike the default container, init
+ * methods run right after the setters of their own service rather than once all instances of the request are ready,
+ * and cycles between services are only supported if they go through setters of singletons that aren't reactive.
+ */
+public final class ContainerGenerator {
+
+    private static final String INDENT = "    ";
+
+    private ContainerGenerator() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Generates the source code of a container for the services of the given config.
+     *
+     * @param config    the RDI configuration containing all info about services and their dependencies
+     * @param className the fully qualified name of the class to generate
+     * @return the source code of the class
+     * @throws RdiException if the services of the given config cannot be resolved, or if one of them cannot be
+     *                      instantiated by generated code
+     */
+    public static String generate(RdiConfig config, String className) {
+        Objects.requireNonNull(config);
+        Objects.requireNonNull(className);
+        return new Generation(config.getServiceDescriptors(), className).source();
+    }
+
+    /**
+     * Generates the source code of a container for the services of the given config, and writes it in the given
+     * source directory, in the subdirectory corresponding to its package.
+     *
+     * @param config     the RDI configuration containing all info about services and their dependencies
+     * @param className  the fully qualified name of the class to generate
+     * @param sourceRoot the root directory of the sources
+     * @return the path of the written file
+     * @throws RdiException if the code cannot be generated as described in {@link #generate(RdiConfig, String)}, or
+     *                      if the file cannot be written
+     */
+    public static Path write(RdiConfig config, String className, Path sourceRoot) {
+        String source = generate(config, className);
+        Path file = sourceRoot.resolve(className.replace('.', '/') + ".java");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RdiException("Failed to write " + file, e);
+        }
+        return file;
+    }
+
+    private static final class Generation {
+
+        private final String className;
+        private final TypeIndex typeIndex;
+        private final Map<ServiceReference<?>, Service> serviceByRef = new HashMap<>();
+        private final List<Service> services = new ArrayList<>();
+        private final Set<String> usedNames = new HashSet<>();
+        private final Set<String> usedConstants = new HashSet<>();
+        private final StringBuilder out = new StringBuilder();
+
+        private Generation(Set<ServiceDescriptor> serviceDescriptors, String className) {
+            this.className = className;
+            // Reports missing services, missing members and circular dependencies the same way as the container
+            this.typeIndex = DependencyResolver.compile(serviceDescriptors).getTypeIndex();
+            // Accessors of getClass() would clash with the one of Object
+            usedNames.add("class");
+            serviceDescriptors.stream()
+                    .sorted(Comparator.comparing(descriptor -> descriptor.getServiceReference().getServiceName()))
+                    .forEach(descriptor -> {
+                        Service service = new Service(descriptor, uniqueName(descriptor.getServiceReference()));
+                        services.add(service);
+                        serviceByRef.put(descriptor.getServiceReference(), service);
+                        descriptor.getAliases().forEach(alias -> serviceByRef.put(alias, service));
+                    });
+            for (Service service : services) {
+                service.constant = uniqueConstant(service.ref);
+                for (ServiceReference<?> alias : service.descriptor.getAliases()) {
+                    service.aliasConstants.add(uniqueConstant(alias));
+                }
+                for (Injectable inj : service.parameters()) {
+                    service.dependencies.addAll(targets(service, inj));
+                }
+            }
+            markReactiveServices();
+            checkCycles();
+        }
+
+        private String source() {
+            int lastDot = className.lastIndexOf('.');
+            if (lastDot > 0) {
+                line(0, "package " + className.substring(0, lastDot) + ";");
+                line(0, "");
+            }
+            line(0, "import com.github.alex1304.rdi.GeneratedServiceContainer;");
+            line(0, "import com.github.alex1304.rdi.RdiException;");
+            line(0, "import com.github.alex1304.rdi.ServiceInstantiationException;");
+            line(0, "import com.github.alex1304.rdi.ServiceReference;");
+            line(0, "import com.github.alex1304.rdi.resolver.StatisticsRecorder;");
+            line(0, "import reactor.core.publisher.Flux;");
+            line(0, "import reactor.core.publisher.Mono;");
+            line(0, "");
+            line(0, "import java.util.Arrays;");
+            line(0, "import java.util.Collections;");
+            line(0, "import java.util.LinkedHashSet;");
+            line(0, "");
+            line(0, "/**");
+            line(0, " * Generated by " + ContainerGenerator.class.getName() + ", do not edit.");
+            line(0, " */");
+            line(0, "@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            String simpleName = className.substring(lastDot + 1);
+            line(0, "public final class " + simpleName + " extends GeneratedServiceContainer {");
+            line(0, "");
+            for (Service service : services) {
+                line(1, "public static final " + constantDeclaration(service.constant, service.ref));
+                for (int i = 0; i < service.aliasConstants.size(); i++) {
+                    line(1, "public static final " + constantDeclaration(service.aliasConstants.get(i),
+                            service.aliases().get(i)));
+                }
+            }
+            line(0, "");
+            for (Service service : services) {
+                line(1, "private final StatisticsRecorder " + service.statistics() + ";");
+                if (service.descriptor.isSingleton()) {
+                    // Fields of services in a cycle are only accessed with the lock of the cycle held
+                    line(1, "private " + (service.cyclic ? "" : "volatile ")
+                            + (service.reactive ? "Mono<" + service.type() + ">" : service.type()) + " "
+                            + service.field() + ";");
+                    if (service.lock.equals(service.lock())) {
+                        line(1, "private final Object " + service.lock + " = new Object();");
+                    }
+                }
+            }
+            line(0, "");
+            line(1, "public " + simpleName + "() {");
+            for (Service service : topologicalOrder()) {
+                StringBuilder sb = new StringBuilder("this.").append(service.statistics()).append(" = register(")
+                        .append(service.constant).append(", ")
+                        .append(service.descriptor.getPriority()).append(", ")
+                        .append(service.descriptor.isSingleton()).append(", ")
+                        .append(service.reactive ? "this::" + service.accessor()
+                                : "() -> Mono.fromCallable(this::" + service.accessor() + ")");
+                service.aliasConstants.forEach(alias -> sb.append(", ").append(alias));
+                line(2, sb.append(");").toString());
+            }
+            line(1, "}");
+            for (Service service : services) {
+                line(0, "");
+                if (service.reactive) {
+                    reactiveAccessor(service);
+                } else {
+                    accessor(service);
+                }
+            }
+            line(0, "}");
+            return out.toString();
+        }
+
+        private void accessor(Service service) {
+            boolean singleton = service.descriptor.isSingleton();
+            String field = "this." + service.field();
+            String statistics = "this." + service.statistics();
+            line(1, "public " + service.type() + " " + service.accessor() + "() {");
+            line(2, statistics + ".recordRequest();");
+            int indent = 2;
+            if (singleton) {
+                if (!service.cyclic) {
+                    // Only published once set up, so it can be read without holding the lock
+                    line(2, service.type() + " cached = " + field + ";");
+                    cachedInstance(2, "cached", statistics);
+                }
+                line(2, "synchronized (this." + service.lock + ") {");
+                indent = 3;
+                cachedInstance(indent, field, statistics);
+            }
+            line(indent, "try {");
+            FactoryMethod factory = service.descriptor.getFactoryMethod();
+            List<String> args = new ArrayList<>();
+            boolean hasDependencies = false;
+            for (Injectable inj : factory.getInjectableParameters()) {
+                String arg = argument(service, inj);
+                if (isDependency(inj)) {
+                    line(indent + 1, typeName(inj.getType()) + " arg" + args.size() + " = " + arg + ";");
+                    args.add("arg" + args.size());
+                    hasDependencies = true;
+                } else {
+                    args.add(arg);
+                }
+            }
+            if (singleton && service.cyclic && hasDependencies) {
+                // Getting the dependencies may have created the instance through a setter
+                cachedInstance(indent + 1, field, statistics);
+            }
+            String concreteType = typeName(service.descriptor.getConcreteType());
+            line(indent + 1, "long start = System.nanoTime();");
+            line(indent + 1, concreteType + " instance = " + cast(factory.getReturnType(),
+                    service.descriptor.getConcreteType()) + invocation(factory, args) + ";");
+            line(indent + 1, statistics + ".recordBuild(System.nanoTime() - start);");
+            if (singleton && service.cyclic) {
+                // The services of the cycle get the instance from the field while its setters run
+                line(indent + 1, field + " = instance;");
+            }
+            for (SetterMethod setter : service.descriptor.getSetterMethods()) {
+                line(indent + 1, "instance." + setter.getMethodName() + "("
+                        + argument(service, setter.getInjectableParameter()) + ");");
+            }
+            for (InitMethod init : service.descriptor.getInitMethods()) {
+                line(indent + 1, "instance." + init.getMethodName() + "();");
+            }
+            if (singleton) {
+                if (!service.cyclic) {
+                    line(indent + 1, field + " = instance;");
+                }
+                line(indent + 1, "created(" + service.constant + ", instance, " + disposer(service) + ");");
+            }
+            line(indent + 1, "return instance;");
+            line(indent, "} catch (Exception e) {");
+            if (singleton && service.cyclic) {
+                line(indent + 1, field + " = null;");
+            }
+            line(indent + 1, "throw new ServiceInstantiationException(" + service.constant + ", e);");
+            line(indent, "}");
+            if (singleton) {
+                line(2, "}");
+            }
+            line(1, "}");
+        }
+
+        private void cachedInstance(int indent, String instance, String statistics) {
+            line(indent, "if (" + instance + " != null) {");
+            line(indent + 1, statistics + ".recordHit();");
+            line(indent + 1, "return " + instance + ";");
+            line(indent, "}");
+        }
+
+        private void reactiveAccessor(Service service) {
+            boolean singleton = service.descriptor.isSingleton();
+            String field = "this." + service.field();
+            String statistics = "this." + service.statistics();
+            line(1, "public Mono<" + service.type() + "> " + service.accessor() + "() {");
+            line(2, statistics + ".recordRequest();");
+            int indent;
+            if (singleton) {
+                line(2, "Mono<" + service.type() + "> cached = " + field + ";");
+                cachedInstance(2, "cached", statistics);
+                line(2, "synchronized (this." + service.lock + ") {");
+                cachedInstance(3, field, statistics);
+                line(3, field + " = cacheSingleton(");
+                indent = 5;
+            } else {
+                line(2, "return");
+                indent = 4;
+            }
+            FactoryMethod factory = service.descriptor.getFactoryMethod();
+            String concreteType = typeName(service.descriptor.getConcreteType());
+            List<String> monos = new ArrayList<>();
+            List<String> args = reactiveArguments(service, factory.getInjectableParameters(), monos);
+            line(indent, "all(" + String.join(", ", monos) + ")");
+            line(indent + 2, ".flatMap(args -> {");
+            line(indent + 3, "long start = System.nanoTime();");
+            line(indent + 3, "return Mono.fromCallable(() -> " + invocation(factory, args) + ")");
+            if (Publisher.class.isAssignableFrom(factory.getReturnType())) {
+                line(indent + 5, ".flatMap(publisher -> Mono.from((org.reactivestreams.Publisher<?>) publisher))");
+                line(indent + 5, ".switchIfEmpty(Mono.error(() -> new RdiException(" + stringLiteral(
+                        "Reactive factory of service " + service.ref.getServiceName() + " completed empty") + ")))");
+            }
+            line(indent + 5, ".doOnNext(instance -> " + statistics + ".recordBuild(System.nanoTime() - start));");
+            line(indent + 2, "})");
+            line(indent + 2, ".map(instance -> (" + concreteType + ") instance)");
+            List<SetterMethod> setters = service.descriptor.getSetterMethods();
+            if (!setters.isEmpty()) {
+                List<String> setterMonos = new ArrayList<>();
+                List<String> setterArgs = reactiveArguments(service, setters.stream()
+                        .map(SetterMethod::getInjectableParameter)
+                        .collect(Collectors.toList()), setterMonos);
+                line(indent + 2, ".flatMap(instance -> all(" + String.join(", ", setterMonos)
+                        + ").flatMap(args -> Mono.fromCallable(() -> {");
+                for (int i = 0; i < setters.size(); i++) {
+                    line(indent + 4, "instance." + setters.get(i).getMethodName() + "(" + setterArgs.get(i) + ");");
+                }
+                line(indent + 4, "return instance;");
+                line(indent + 2, "})))");
+            }
+            List<InitMethod> inits = service.descriptor.getInitMethods();
+            if (!inits.isEmpty()) {
+                line(indent + 2, ".flatMap(instance -> Flux.concat(" + inits.stream()
+                        .map(init -> lifecycleInvocation(init.getMethodName(), init.isReactive()))
+                        .collect(Collectors.joining(", ")) + ").then(Mono.just(instance)))");
+            }
+            if (singleton) {
+                line(indent + 2, ".doOnNext(instance -> created(" + service.constant + ", instance, "
+                        + disposer(service) + "))");
+            }
+            String end = singleton ? ");" : ";";
+            if (concreteType.equals(service.type())) {
+                line(indent + 2, ".onErrorMap(e -> new ServiceInstantiationException(" + service.constant + ", e))"
+                        + end);
+            } else {
+                // Mono isn't covariant, so the instance is upcast to the declared type of the service
+                line(indent + 2, ".onErrorMap(e -> new ServiceInstantiationException(" + service.constant + ", e))");
+                line(indent + 2, ".map(instance -> (" + service.type() + ") instance)" + end);
+            }
+            if (singleton) {
+                line(3, "return " + field + ";");
+                line(2, "}");
+            }
+            line(1, "}");
+        }
+
+        /*
+         * Values and providers are given directly, the other arguments are taken from the array combining the Monos
+         * added to the given list.
+         */
+        private List<String> reactiveArguments(Service service, List<Injectable> params, List<String> monos) {
+            List<String> args = new ArrayList<>();
+            for (Injectable inj : params) {
+                if (!isDependency(inj)) {
+                    args.add(argument(service, inj));
+                    continue;
+                }
+                List<Service> targets = targets(service, inj);
+                if (inj.getMonoReference().isPresent()) {
+                    monos.add("Mono.just(" + mono(targets.get(0)) + ")");
+                } else if (inj.getElementType().isPresent()) {
+                    monos.add("all(" + targets.stream().map(this::mono).collect(Collectors.joining(", "))
+                            + ").map(values -> " + collection(inj, "values") + ")");
+                } else {
+                    monos.add(mono(targets.get(0)));
+                }
+                args.add("(" + typeName(inj.getType()) + ") args[" + (monos.size() - 1) + "]");
+            }
+            return args;
+        }
+
+        private String mono(Service target) {
+            return target.reactive ? "this." + target.accessor() + "()"
+                    : "Mono.fromCallable(this::" + target.accessor() + ")";
+        }
+
+        private String argument(Service service, Injectable inj) {
+            if (inj.getValue().isPresent()) {
+                return literal(service, inj.getValue().get());
+            }
+            if (inj.getProvidedReference().isPresent()) {
+                return "this.provider(" + serviceByRef.get(inj.getProvidedReference().get()).constant + ")";
+            }
+            List<Service> targets = targets(service, inj);
+            if (inj.getElementType().isPresent()) {
+                return collection(inj, targets.stream()
+                        .map(target -> "this." + target.accessor() + "()")
+                        .collect(Collectors.joining(", ")));
+            }
+            Service target = targets.get(0);
+            return cast(target.ref.getServiceClass(), inj.getType()) + "this." + target.accessor() + "()";
+        }
+
+        private static String collection(Injectable inj, String elements) {
+            if (Set.class.equals(inj.getType())) {
+                return "Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(" + elements + ")))";
+            }
+            return "Collections.unmodifiableList(Arrays.asList(" + elements + "))";
+        }
+
+        private String invocation(FactoryMethod factory, List<String> args) {
+            String owner = typeName(factory.getOwner());
+            return factory.getMethodName()
+                    .map(name -> owner + "." + name)
+                    .orElse("new " + owner) + "(" + String.join(", ", args) + ")";
+        }
+
+        private String disposer(Service service) {
+            List<DisposeMethod> disposeMethods = service.descriptor.getDisposeMethods();
+            if (disposeMethods.isEmpty()) {
+                return "null";
+            }
+            return "() -> Flux.concat(" + disposeMethods.stream()
+                    .map(dispose -> lifecycleInvocation(dispose.getMethodName(), dispose.isReactive()))
+                    .collect(Collectors.joining(", ")) + ").then()";
+        }
+
+        private static String lifecycleInvocation(String methodName, boolean reactive) {
+            if (reactive) {
+                return "Mono.fromCallable(() -> instance." + methodName + "())"
+                        + ".flatMap(publisher -> completionOf(publisher))";
+            }
+            return "Mono.fromCallable(() -> { instance." + methodName + "(); return true; })";
+        }
+
+        private List<Service> targets(Service owner, Injectable inj) {
+            if (inj.getReference().isPresent()) {
+                return Collections.singletonList(serviceByRef.get(inj.getReference().get()));
+            }
+            if (inj.getMonoReference().isPresent()) {
+                return Collections.singletonList(serviceByRef.get(inj.getMonoReference().get()));
+            }
+            if (inj.getElementType().isPresent()) {
+                return typeIndex.getReferences(inj.getElementType().get()).stream()
+                        .map(serviceByRef::get)
+                        .filter(service -> service != owner)
+                        .collect(Collectors.toList());
+            }
+            return Collections.emptyList();
+        }
+
+        private static boolean isDependency(Injectable inj) {
+            return inj.getReference().isPresent() || inj.getMonoReference().isPresent()
+                    || inj.getElementType().isPresent();
+        }
+
+        /*
+         * A service is reactive if creating it requires subscribing to a publisher, including the one of another
+         * reactive service it depends on.
+         */
+        private void markReactiveServices() {
+            for (Service service : services) {
+                ServiceDescriptor descriptor = service.descriptor;
+                service.reactive = Publisher.class.isAssignableFrom(descriptor.getFactoryMethod().getReturnType())
+                        || descriptor.getInitMethods().stream().anyMatch(InitMethod::isReactive)
+                        || descriptor.getFactoryParameters().stream()
+                        .anyMatch(inj -> inj.getMonoReference().isPresent());
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Service service : services) {
+                    if (!service.reactive && service.dependencies.stream().anyMatch(dep -> dep.reactive)) {
+                        service.reactive = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        /*
+         * Dependencies are looked up from the accessors, which can only return an instance that is still being set up
+         * if it is stored in a field and doesn't need to be subscribed to.
+         */
+        private void checkCycles() {
+            for (List<Service> component : stronglyConnectedComponents()) {
+                boolean cyclic = component.size() > 1 || component.get(0).dependencies.contains(component.get(0));
+                if (!cyclic) {
+                    continue;
+                }
+                // A single lock for the whole cycle, so that threads entering it from different services can't
+                // deadlock
+                String lock = component.get(0).lock();
+                for (Service service : component) {
+                    if (service.reactive || !service.descriptor.isSingleton()) {
+                        throw new RdiException("Cannot generate a container for the services "
+                                + component.stream().map(s -> s.ref).collect(Collectors.toList())
+                                + ": generated containers only support circular dependencies between singletons "
+                                + "that aren't reactive, and " + service.ref + " isn't one of them");
+                    }
+                    service.cyclic = true;
+                    service.lock = lock;
+                }
+            }
+        }
+
+        private List<List<Service>> stronglyConnectedComponents() {
+            // Tarjan's algorithm
+            Map<Service, Integer> indexes = new HashMap<>();
+            Map<Service, Integer> lowLinks = new HashMap<>();
+            Deque<Service> stack = new ArrayDeque<>();
+            Set<Service> onStack = new HashSet<>();
+            List<List<Service>> components = new ArrayList<>();
+            for (Service service : services) {
+                if (!indexes.containsKey(service)) {
+                    connect(service, indexes, lowLinks, stack, onStack, components);
+                }
+            }
+            return components;
+        }
+
+        private static void connect(Service service, Map<Service, Integer> indexes, Map<Service, Integer> lowLinks,
+                                    Deque<Service> stack, Set<Service> onStack, List<List<Service>> components) {
+            indexes.put(service, indexes.size());
+            lowLinks.put(service, indexes.get(service));
+            stack.push(service);
+            onStack.add(service);
+            for (Service dep : service.dependencies) {
+                if (!indexes.containsKey(dep)) {
+                    connect(dep, indexes, lowLinks, stack, onStack, components);
+                    lowLinks.put(service, Math.min(lowLinks.get(service), lowLinks.get(dep)));
+                } else if (onStack.contains(dep)) {
+                    lowLinks.put(service, Math.min(lowLinks.get(service), indexes.get(dep)));
+                }
+            }
+            if (lowLinks.get(service).equals(indexes.get(service))) {
+                List<Service> component = new ArrayList<>();
+                Service member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != service);
+                components.add(component);
+            }
+        }
+
+        private List<Service> topologicalOrder() {
+            Set<Service> visited = new HashSet<>();
+            List<Service> order = new ArrayList<>();
+            for (Service service : services) {
+                visit(service, visited, order);
+            }
+            return order;
+        }
+
+        private static void visit(Service service, Set<Service> visited, List<Service> order) {
+            if (!visited.add(service)) {
+                return;
+            }
+            for (Service dep : service.dependencies) {
+                visit(dep, visited, order);
+            }
+            order.add(service);
+        }
+
+        private String constantDeclaration(String constant, ServiceReference<?> ref) {
+            String type = typeName(ref.getServiceClass());
+            String init = ref.getServiceName().equals(ref.getServiceClass().getName())
+                    ? "ServiceReference.ofType(" + type + ".class)"
+                    : "ServiceReference.of(" + stringLiteral(ref.getServiceName()) + ", " + type + ".class)";
+            return "ServiceReference<" + type + "> " + constant + " = " + init + ";";
+        }
+
+        private String uniqueName(ServiceReference<?> ref) {
+            String name = ref.getServiceName();
+            String simpleName = name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+            StringBuilder sb = new StringBuilder();
+            boolean upper = true;
+            for (char c : simpleName.toCharArray()) {
+                if (Character.isJavaIdentifierPart(c) && c != '$') {
+                    sb.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                } else {
+                    upper = true;
+                }
+            }
+            if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) {
+                sb.insert(0, "Service");
+            }
+            return unique(sb.toString(), usedNames);
+        }
+
+        private String uniqueConstant(ServiceReference<?> ref) {
+            String name = serviceByRef.get(ref).name;
+            if (!ref.equals(serviceByRef.get(ref).ref)) {
+                name += "As" + uniqueName(ref);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(name.charAt(i - 1))
+                        && name.charAt(i - 1) != '_') {
+                    sb.append('_');
+                }
+                sb.append(Character.toUpperCase(c));
+            }
+            return unique(sb.toString(), usedConstants);
+        }
+
+        private static String unique(String name, Set<String> used) {
+            String candidate = name;
+            for (int i = 2; !used.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+                candidate = name + i;
+            }
+            return candidate;
+        }
+
+        private String cast(Class<?> from, Class<?> to) {
+            return to.isAssignableFrom(from) ? "" : "(" + typeName(to) + ") ";
+        }
+
+        private static String typeName(Class<?> type) {
+            if (type.isArray()) {
+                return typeName(type.getComponentType()) + "[]";
+            }
+            for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+                if (Modifier.isPrivate(c.getModifiers())) {
+                    throw new RdiException("Class " + type.getName() + " is not accessible from generated code");
+                }
+            }
+            String name = type.getCanonicalName();
+            if (name == null) {
+                throw new RdiException("Class " + type.getName() + " cannot be referred to by generated code");
+            }
+            return name;
+        }
+
+        private static String literal(Service service, Object value) {
+            if (value instanceof String) {
+                return stringLiteral((String) value);
+            }
+            if (value instanceof Character) {
+                return charLiteral((Character) value);
+            }
+            if (value instanceof Boolean || value instanceof Integer) {
+                return value.toString();
+            }
+            if (value instanceof Long) {
+                return value + "L";
+            }
+            if (value instanceof Byte) {
+                return "(byte) " + value;
+            }
+            if (value instanceof Short) {
+                return "(short) " + value;
+            }
+            if (value instanceof Double) {
+                return doubleLiteral((Double) value);
+            }
+            if (value instanceof Float) {
+                return floatLiteral((Float) value);
+            }
+            if (value instanceof Enum) {
+                return typeName(((Enum<?>) value).getDeclaringClass()) + "." + ((Enum<?>) value).name();
+            }
+            throw new RdiException("Value " + value + " injected in service " + service.ref + " cannot be written in "
+                    + "generated code, only primitives, strings and enum constants can");
+        }
+
+        private void line(int indent, String s) {
+            if (!s.isEmpty()) {
+                for (int i = 0; i < indent; i++) {
+                    out.append(INDENT);
+                }
+            }
+            out.append(s).append('\n');
+        }
+    }
+
+    private static final class Service {
+
+        private final ServiceDescriptor descriptor;
+        private final ServiceReference<?> ref;
+        private final String name;
+        private final List<String> aliasConstants = new ArrayList<>();
+        private final List<Service> dependencies = new ArrayList<>();
+        private String constant = "";
+        private boolean reactive;
+        private boolean cyclic;
+        private String lock;
+
+        private Service(ServiceDescriptor descriptor, String name) {
+            this.descriptor = descriptor;
+            this.ref = descriptor.getServiceReference();
+            this.name = name;
+            this.lock = lock();
+        }
+
+        private List<Injectable> parameters() {
+            List<Injectable> params = new ArrayList<>(descriptor.getFactoryParameters());
+            params.addAll(descriptor.getSetterParameters());
+            return params;
+        }
+
+        private List<ServiceReference<?>> aliases() {
+            return new ArrayList<>(descriptor.getAliases());
+        }
+
+        private String type() {
+            return Generation.typeName(ref.getServiceClass());
+        }
+
+        private String accessor() {
+            return "get" + name;
+        }
+
+        private String statistics() {
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1) + "Statistics";
+        }
+
+        private String lock() {
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1) + "Lock";
+        }
+
+        private String field() {
+            return Character.toLowerCase(name.charAt(0)) + name.substring(1) + (reactive ? "Mono" : "Instance");
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.alex1304.rdi.generator;
+
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.AccessorStrategy;
+import com.github.alex1304.rdi.config.DisposeMethod;
+import com.github.alex1304.rdi.config.FactoryMethod;
+import com.github.alex1304.rdi.config.InitMethod;
+import com.github.alex1304.rdi.config.Injectable;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.SetterMethod;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import com.github.alex1304.rdi.finder.annotation.ClasspathServiceFinder;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates the reflection metadata that GraalVM native-image needs to run a container built from a given
+ * {@link RdiConfig}, in the format of a <code>reflect-config.json</code> file. The container looks up the factories,
+ * setters and lifecycle methods of the services through reflection and method handles, which only work in a native
+ * image if these members are registered when the image is built. The metadata lists exactly those members, each under
+ * the class declaring it, along with the classes the container loads by name: the classes of the services and of their
+ * aliases, their concrete types and the return types of their factories and setters.
+ *
+ * <p>
+ * The metadata only covers the container. A {@link ServiceFinder} reading annotations when the application starts
+ * needs metadata of its own, which is why the finder generated at compile time is preferable in a native image.
+ * Services using {@link AccessorStrategy#LAMBDA_METAFACTORY} should also be switched back to
+ * {@link AccessorStrategy#METHOD_HANDLE}, as classes cannot be generated at runtime in a native image.
+ *
+ * <p>
+ * It can be run as a program during the build, with the file to write as first argument and optionally the name of a
+ * {@link ServiceFinder} class having a public no-arg constructor as second argument. Without the second argument, the
+ * services are found by a {@link ClasspathServiceFinder} scanning the class path.
+ */
+public final class NativeImageMetadataGenerator {
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private NativeImageMetadataGenerator() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Generates the reflection metadata for the services of the given config.
+     *
+     * @param config the RDI configuration containing all info about services and their dependencies
+     * @return the content of a <code>reflect-config.json</code> file, with the classes sorted by name
+     * @throws RdiException if the lookup of the members of a service was deferred and fails
+     */
+    public static String generate(RdiConfig config) {
+        Objects.requireNonNull(config);
+        Map<String, Set<String>> methodsByClass = new TreeMap<>();
+        for (ServiceDescriptor descriptor : config.getServiceDescriptors()) {
+            Stream.concat(Stream.of(descriptor.getServiceReference()), descriptor.getAliases().stream())
+                    .map(ServiceReference::getServiceClass)
+                    .forEach(type -> addType(methodsByClass, type));
+            addType(methodsByClass, descriptor.getConcreteType());
+            FactoryMethod factory = descriptor.getFactoryMethod();
+            addType(methodsByClass, factory.getOwner());
+            Class<?>[] factoryParameterTypes = factory.getInjectableParameters().stream()
+                    .map(Injectable::getType)
+                    .toArray(Class<?>[]::new);
+            Optional<String> factoryName = factory.getMethodName();
+            if (factoryName.isPresent()) {
+                addType(methodsByClass, factory.getReturnType());
+                addMethod(methodsByClass, factory.getOwner(), factoryName.get(), factoryParameterTypes);
+            } else {
+                addMember(methodsByClass, factory.getOwner(), CONSTRUCTOR_NAME, factoryParameterTypes);
+            }
+            for (SetterMethod setter : descriptor.getSetterMethods()) {
+                addType(methodsByClass, setter.getReturnType());
+                addMethod(methodsByClass, setter.getOwner(), setter.getMethodName(),
+                        setter.getInjectableParameter().getType());
+            }
+            for (InitMethod init : descriptor.getInitMethods()) {
+                addMethod(methodsByClass, init.getOwner(), init.getMethodName());
+            }
+            for (DisposeMethod dispose : descriptor.getDisposeMethods()) {
+                addMethod(methodsByClass, dispose.getOwner(), dispose.getMethodName());
+            }
+        }
+        return toJson(methodsByClass);
+    }
+
+    /**
+     * Generates the reflection metadata for the services of the given config, and writes it to the given file. The
+     * file is picked up by native-image if it is placed in <code>META-INF/native-image</code> or one of its
+     * subdirectories in the resources of the application.
+     *
+     * @param config the RDI configuration containing all info about services and their dependencies
+     * @param file   the file to write
+     * @return the path of the written file
+     * @throws RdiException if the metadata cannot be generated as described in {@link #generate(RdiConfig)}, or if the
+     *                      file cannot be written
+     */
+    public static Path write(RdiConfig config, Path file) {
+        String json = generate(config);
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RdiException("Failed to write " + file, e);
+        }
+        return file;
+    }
+
+    /**
+     * Writes the reflection metadata of the services found on the class path, or by the given finder.
+     *
+     * @param args the file to write, optionally followed by the name of a {@link ServiceFinder} class having a public
+     *             no-arg constructor
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: " + NativeImageMetadataGenerator.class.getName()
+                    + " <output file> [<service finder class>]");
+            System.exit(1);
+        }
+        ServiceFinder finder = args.length == 2 ? instantiateFinder(args[1]) : ClasspathServiceFinder.ofClassPath();
+        Path file = write(RdiConfig.fromServiceFinder(finder), Paths.get(args[0]));
+        System.out.println("Wrote reflection metadata to " + file);
+    }
+
+    private static ServiceFinder instantiateFinder(String className) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            return Class.forName(className, true, classLoader != null ? classLoader
+                            : NativeImageMetadataGenerator.class.getClassLoader())
+                    .asSubclass(ServiceFinder.class)
+                    .getConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            throw new RdiException("Cannot instantiate service finder " + className, e);
+        }
+    }
+
+    private static void addType(Map<String, Set<String>> methodsByClass, Class<?> type) {
+        if (!type.isPrimitive()) {
+            methodsByClass.computeIfAbsent(type.getTypeName(), k -> new TreeSet<>());
+        }
+    }
+
+    /*
+     * Public methods may be inherited, in which case the lookup from the owner resolves the method of the superclass.
+     */
+    private static void addMethod(Map<String, Set<String>> methodsByClass, Class<?> owner, String name,
+                                  Class<?>... parameterTypes) {
+        Class<?> declaringClass;
+        try {
+            Method method = owner.getMethod(name, parameterTypes);
+            declaringClass = method.getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            declaringClass = owner;
+        }
+        addType(methodsByClass, owner);
+        addMember(methodsByClass, declaringClass, name, parameterTypes);
+    }
+
+    private static void addMember(Map<String, Set<String>> methodsByClass, Class<?> declaringClass, String name,
+                                  Class<?>... parameterTypes) {
+        methodsByClass.computeIfAbsent(declaringClass.getTypeName(), k -> new TreeSet<>())
+                .add("{ \"name\": " + quote(name) + ", \"parameterTypes\": [" + Arrays.stream(parameterTypes)
+                        .map(type -> quote(type.getTypeName()))
+                        .collect(Collectors.joining(", ")) + "] }");
+    }
+
+    private static String toJson(Map<String, Set<String>> methodsByClass) {
+        StringBuilder out = new StringBuilder("[\n");
+        for (Iterator<Map.Entry<String, Set<String>>> it = methodsByClass.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Set<String>> entry = it.next();
+            out.append("  {\n    \"name\": ").append(quote(entry.getKey()));
+            if (!entry.getValue().isEmpty()) {
+                out.append(",\n    \"methods\": [\n      ")
+                        .append(String.join(",\n      ", entry.getValue()))
+                        .append("\n    ]");
+            }
+            out.append("\n  }").append(it.hasNext() ? ",\n" : "\n");
+        }
+        return out.append("]\n").toString();
+    }
+
+    private static String quote(String s) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.alex1304.rdi.generator;
+
+/**
+ * Writes values as Java literals, for the classes generated by RDI. Unicode escapes are translated by the compiler
+ * before the source is split into tokens, so they are never used for line terminators, quotes or backslashes: these
+ * characters are written with escape sequences instead.
+ */
+public final class SourceLiterals {
+
+    private SourceLiterals() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Writes a string literal.
+     *
+     * @param s the value of the literal
+     * @return the literal, with the enclosing double quotes
+     */
+    public static String stringLiteral(CharSequence s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            sb.append(c == '"' ? "\\\"" : escape(c));
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Writes a char literal.
+     *
+     * @param c the value of the literal
+     * @return the literal, with the enclosing single quotes
+     */
+    public static String charLiteral(char c) {
+        return "'" + (c == '\'' ? "\\'" : escape(c)) + "'";
+    }
+
+    /**
+     * Writes a double literal, or the corresponding constant of {@link Double} if the value is not finite.
+     *
+     * @param d the value of the literal
+     * @return the literal
+     */
+    public static String doubleLiteral(double d) {
+        if (Double.isNaN(d)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(d)) {
+            return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return d + "d";
+    }
+
+    /**
+     * Writes a float literal, or the corresponding constant of {@link Float} if the value is not finite.
+     *
+     * @param f the value of the literal
+     * @return the literal
+     */
+    public static String floatLiteral(float f) {
+        if (Float.isNaN(f)) {
+            return "Float.NaN";
+        }
+        if (Float.isInfinite(f)) {
+            return f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY";
+        }
+        return f + "f";
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case '\\':
+                return "\\\\";
+            case '\b':
+                return "\\b";
+            case '\t':
+                return "\\t";
+            case '\n':
+                return "\\n";
+            case '\f':
+                return "\\f";
+            case '\r':
+                return "\\r";
+            default:
+                break;
+        }
+        if (c < 0x20 || c == 0x7f) {
+            // Three digits, so that a digit following the escape isn't read as part of it
+            return String.format("\\%03o", (int) c);
+        }
+        if (c > 0x7f) {
+            return String.format("\\u%04x", (int) c);
+        }
+        return String.valueOf(c);
+    }
+}
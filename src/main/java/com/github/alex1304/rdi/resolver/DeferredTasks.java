@@ -0,0 +1,186 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceInstantiationException;
+import org.jspecify.annotations.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Work postponed until all the instances created by a request are available: the invocation of setters first, then
+ * the init methods of the new instances. Each subscription to a service has its own frame, linked to the frame of the
+ * subscription that requested it, so that dependencies subscribed concurrently don't mix up their tasks. A frame is
+ * closed once the instance of its service is obtained, and its tasks are then handed over to the closest frame still
+ * open, or run if there is none.
+ *
+ * <p>
+ * The singletons created by the request are kept pending in their slots until the tasks that include them have
+ * completed, so that other requests never obtain an instance whose setters or init methods haven't run yet. They are
+ * published if the tasks succeed. If an init method fails, its error is cached in place of the instance, and the other
+ * singletons of the failed request are dropped so that they are created again by the next request.
+ */
+class DeferredTasks {
+
+    private final @Nullable DeferredTasks parent;
+    private final DeferredTasks request;
+    private final List<Mono<Void>> setters = new ArrayList<>();
+    private final Map<ResolutionContext, List<Object>> instancesToInit = new IdentityHashMap<>();
+    private final List<NewSingleton> singletons = new ArrayList<>();
+    private final Map<ResolutionContext, Throwable> initErrors = Collections.synchronizedMap(new IdentityHashMap<>());
+    private boolean closed;
+
+    DeferredTasks(@Nullable DeferredTasks parent) {
+        this.parent = parent;
+        this.request = parent != null ? parent.request : this;
+    }
+
+    /*
+     * The frame of the top-level subscription, identifying the request in the slots of pending singletons.
+     */
+    Object getRequest() {
+        return request;
+    }
+
+    synchronized void addSetters(Mono<Void> setterMono) {
+        setters.add(setterMono);
+    }
+
+    synchronized void addInstanceToInit(ResolutionContext rctx, Object instance) {
+        instancesToInit.computeIfAbsent(rctx, k -> new ArrayList<>()).add(instance);
+    }
+
+    synchronized void addSingleton(ResolutionContext rctx, ServiceSlot slot, Object instance) {
+        slot.setPendingSingleton(request, instance);
+        singletons.add(new NewSingleton(rctx, slot, instance));
+    }
+
+    synchronized void close() {
+        closed = true;
+    }
+
+    /*
+     * Drops the pending singletons of a subscription that terminated before its frame was closed.
+     */
+    void abandon() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        singletons.forEach(NewSingleton::discard);
+    }
+
+    /*
+     * Must be called once this frame is closed.
+     *
+     * @return false if there is no open frame left to take over the tasks, in which case the caller runs them
+     */
+    boolean handOver() {
+        for (DeferredTasks frame = parent; frame != null; frame = frame.parent) {
+            if (frame.tryAddAll(this)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized boolean tryAddAll(DeferredTasks other) {
+        if (closed) {
+            return false;
+        }
+        // The other frame is closed, so it isn't modified anymore
+        setters.addAll(other.setters);
+        other.instancesToInit.forEach((rctx, instances) -> instancesToInit.computeIfAbsent(rctx,
+                k -> new ArrayList<>()).addAll(instances));
+        singletons.addAll(other.singletons);
+        return true;
+    }
+
+    Mono<Void> run() {
+        Mono<Void> tasks = instancesToInit.isEmpty() ? Mono.when(setters)
+                : Mono.when(setters).then(Mono.defer(this::runInitMethods));
+        if (singletons.isEmpty()) {
+            return tasks;
+        }
+        return tasks.doOnSuccess(__ -> singletons.forEach(NewSingleton::publish))
+                .doOnError(e -> singletons.forEach(singleton -> {
+                    Throwable initError = initErrors.get(singleton.rctx);
+                    if (initError != null) {
+                        singleton.slot.failPendingSingleton(singleton.instance, initError);
+                    } else {
+                        singleton.discard();
+                    }
+                }))
+                .doOnCancel(() -> singletons.forEach(NewSingleton::discard));
+    }
+
+    private Mono<Void> runInitMethods() {
+        Map<ResolutionContext, Mono<Void>> initMonos = new IdentityHashMap<>();
+        Set<ResolutionContext> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+        return Mono.when(instancesToInit.keySet().stream()
+                .map(rctx -> initMono(rctx, initMonos, visiting))
+                .collect(Collectors.toList()));
+    }
+
+    /*
+     * The init methods of a service wait for the ones of its dependencies, including those reached through
+     * dependencies that don't have any init method themselves. Dependencies forming a cycle via setters don't wait for
+     * each other.
+     */
+    private Mono<Void> initMono(ResolutionContext rctx, Map<ResolutionContext, Mono<Void>> initMonos,
+                                Set<ResolutionContext> visiting) {
+        Mono<Void> initMono = initMonos.get(rctx);
+        if (initMono != null) {
+            return initMono;
+        }
+        if (!visiting.add(rctx)) {
+            return Mono.empty();
+        }
+        List<Mono<Void>> dependencyInits = Stream.concat(rctx.getFactoryDependencies().stream(),
+                        rctx.getSetterDependencies().stream())
+                .map(dependency -> initMono(dependency, initMonos, visiting))
+                .collect(Collectors.toList());
+        visiting.remove(rctx);
+        List<Object> instances = instancesToInit.getOrDefault(rctx, Collections.emptyList());
+        initMono = Mono.when(dependencyInits)
+                .then(Mono.when(instances.stream()
+                                .map(instance -> invokeInitMethods(rctx, instance))
+                                .collect(Collectors.toList()))
+                        .doOnError(e -> initErrors.put(rctx, e)))
+                .cache();
+        initMonos.put(rctx, initMono);
+        return initMono;
+    }
+
+    private static Mono<Void> invokeInitMethods(ResolutionContext rctx, Object instance) {
+        return Flux.fromIterable(rctx.getDescriptor().getInitMethods())
+                .concatMap(initMethod -> initMethod.invoke(instance))
+                .then()
+                .onErrorMap(e -> new ServiceInstantiationException(rctx.getReference(), e));
+    }
+
+    private static class NewSingleton {
+
+        private final ResolutionContext rctx;
+        private final ServiceSlot slot;
+        private final Object instance;
+
+        private NewSingleton(ResolutionContext rctx, ServiceSlot slot, Object instance) {
+            this.rctx = rctx;
+            this.slot = slot;
+            this.instance = instance;
+        }
+
+        private void publish() {
+            slot.publishSingleton(instance);
+        }
+
+        private void discard() {
+            slot.discardPendingSingleton(instance);
+        }
+    }
+}
@@ -3,15 +3,19 @@ package com.github.alex1304.rdi.resolver;
 import com.github.alex1304.rdi.RdiException;
 import com.github.alex1304.rdi.ServiceInstantiationException;
 import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.Injectable;
 import com.github.alex1304.rdi.config.ServiceDescriptor;
 import com.github.alex1304.rdi.config.SetterMethod;
 import org.jspecify.annotations.Nullable;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.Logger;
 import reactor.util.Loggers;
+import reactor.util.context.Context;
 import reactor.util.context.ContextView;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,13 +48,193 @@ public class DependencyResolver {
      * @return a Map containing the results of the dependency resolution
      */
     public static Map<ServiceReference<?>, Mono<Object>> resolve(Set<ServiceDescriptor> serviceDescriptors) {
-        Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef = serviceDescriptors.stream()
-                .map(ResolutionContext::new)
-                .collect(Collectors.toMap(ResolutionContext::getReference, Function.identity()));
+        return resolveServices(serviceDescriptors).entrySet().stream()
+                .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue().getMono()));
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors. Unlike {@link #resolve(Set)},
+     * the result of the resolution for each service is a {@link ResolvedService} which, in addition to the assembled
+     * {@link Mono}, gives access to runtime information about the service.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @return a Map containing the results of the dependency resolution
+     */
+    public static Map<ServiceReference<?>, ResolvedService> resolveServices(Set<ServiceDescriptor> serviceDescriptors) {
+        return resolveServices(serviceDescriptors, TypeIndex.of(serviceDescriptors));
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors, using a {@link TypeIndex}
+     * already built for these descriptors to find the services to inject as collections.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @param typeIndex          the type index of the given service descriptors
+     * @return a Map containing the results of the dependency resolution
+     */
+    public static Map<ServiceReference<?>, ResolvedService> resolveServices(Set<ServiceDescriptor> serviceDescriptors,
+                                                                           TypeIndex typeIndex) {
+        return resolveServices(serviceDescriptors, typeIndex, ServiceLookup.NONE);
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors, allowing them to depend on
+     * services that were already resolved elsewhere. References that don't match any of the given descriptors are
+     * looked up in the given {@link ServiceLookup}, and services of the lookup that are assignable to the element type
+     * of a collection are injected along with the matching services among the given descriptors. The services found
+     * in the lookup are not resolved again, and are not part of the returned Map.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @param typeIndex          the type index of the given service descriptors
+     * @param external           the services already resolved that the given descriptors may depend on
+     * @return a Map containing the results of the dependency resolution
+     */
+    public static Map<ServiceReference<?>, ResolvedService> resolveServices(Set<ServiceDescriptor> serviceDescriptors,
+                                                                           TypeIndex typeIndex,
+                                                                           ServiceLookup external) {
+        return compile(serviceDescriptors, typeIndex, external).instantiate();
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors into a {@link ResolutionPlan},
+     * which can be instantiated any number of times without being resolved again.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @return the resolution plan
+     */
+    public static ResolutionPlan compile(Set<ServiceDescriptor> serviceDescriptors) {
+        return compile(serviceDescriptors, TypeIndex.of(serviceDescriptors), ServiceLookup.NONE);
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors into a {@link ResolutionPlan},
+     * allowing them to depend on services that were already resolved elsewhere, as described in
+     * {@link #resolveServices(Set, TypeIndex, ServiceLookup)}. All instantiations of the plan share the services
+     * found in the lookup.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @param typeIndex          the type index of the given service descriptors
+     * @param external           the services already resolved that the given descriptors may depend on
+     * @return the resolution plan
+     */
+    public static ResolutionPlan compile(Set<ServiceDescriptor> serviceDescriptors, TypeIndex typeIndex,
+                                         ServiceLookup external) {
+        return Objects.requireNonNull(compile(new ArrayList<>(serviceDescriptors), typeIndex, external, null, null));
+    }
+
+    /**
+     * Resolves the dependency tree described by the given set of service descriptors into a {@link ResolutionPlan},
+     * reusing the outcome of a previous resolution stored in the given file. The file holds the order in which the
+     * services were resolved and the services injected in each of their factory and setter parameters, so that the
+     * resolution can be replayed without discovering the dependencies and checking them for cycles again. The file is
+     * tied to a fingerprint of the structure of the descriptors, and the services injected as collections are checked
+     * against the classes of the services while replaying. If the file is missing, unreadable, or doesn't match the
+     * descriptors anymore, the services are resolved as by {@link #compile(Set)} and the file is rewritten. Failing to
+     * write it is logged and doesn't prevent the plan from being returned.
+     *
+     * @param serviceDescriptors the set of service descriptors to use to perform the dependency resolution
+     * @param planFile           the path of the file storing the resolution, which doesn't need to exist
+     * @return the resolution plan
+     */
+    public static ResolutionPlan compile(Set<ServiceDescriptor> serviceDescriptors, Path planFile) {
+        TypeIndex typeIndex = TypeIndex.of(serviceDescriptors);
+        byte[] fingerprint = PlanFile.fingerprint(serviceDescriptors);
+        PlanFile storedPlan = PlanFile.read(planFile, fingerprint);
+        if (storedPlan != null) {
+            Map<String, ServiceDescriptor> descriptorByName = serviceDescriptors.stream()
+                    .collect(Collectors.toMap(descriptor -> descriptor.getServiceReference().getServiceName(),
+                            Function.identity(), (first, second) -> first));
+            List<ServiceDescriptor> ordered = storedPlan.getServiceNames().stream()
+                    .map(descriptorByName::get)
+                    .collect(Collectors.toList());
+            if (ordered.size() == serviceDescriptors.size() && !ordered.contains(null)) {
+                ResolutionPlan plan = compile(ordered, typeIndex, ServiceLookup.NONE, storedPlan.getSteps(), null);
+                if (plan != null) {
+                    return plan;
+                }
+            }
+            PlanFile.logOutdated(planFile);
+        }
+        List<ServiceDescriptor> ordered = serviceDescriptors.stream()
+                .sorted(Comparator.comparing(descriptor -> descriptor.getServiceReference().getServiceName()))
+                .collect(Collectors.toList());
+        List<PlanFile.Step> steps = new ArrayList<>();
+        ResolutionPlan plan = Objects.requireNonNull(compile(ordered, typeIndex, ServiceLookup.NONE, null, steps));
+        new PlanFile(ordered.stream()
+                .map(descriptor -> descriptor.getServiceReference().getServiceName())
+                .collect(Collectors.toList()), steps)
+                .write(planFile, fingerprint);
+        return plan;
+    }
+
+    /*
+     * The index of each service is its position in the given list. Steps to replay are followed instead of being
+     * discovered, in which case null is returned if they don't match the descriptors. Otherwise, the steps are
+     * recorded in the given list if there is one.
+     */
+    private static @Nullable ResolutionPlan compile(List<ServiceDescriptor> serviceDescriptors, TypeIndex typeIndex,
+                                                    ServiceLookup external,
+                                                    @Nullable List<PlanFile.Step> replayedSteps,
+                                                    @Nullable List<PlanFile.Step> recordedSteps) {
+        List<ResolutionContext> resolutionContexts = new ArrayList<>();
+        for (ServiceDescriptor descriptor : serviceDescriptors) {
+            resolutionContexts.add(new ResolutionContext(descriptor, resolutionContexts.size()));
+        }
+        Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef = new HashMap<>();
+        for (ResolutionContext rctx : resolutionContexts) {
+            register(resolutionContextByRef, rctx.getReference(), rctx);
+            // Aliases share the resolution context, and therefore the Mono, of the service they refer to
+            rctx.getDescriptor().getAliases().forEach(alias -> register(resolutionContextByRef, alias, rctx));
+        }
+        Map<ResolvedService, ResolutionContext> externalContexts = new IdentityHashMap<>();
+        Function<ServiceReference<?>, @Nullable ResolutionContext> lookup = ref -> {
+            ResolutionContext rctx = resolutionContextByRef.get(ref);
+            if (rctx != null) {
+                return rctx;
+            }
+            ResolvedService service = external.find(ref);
+            return service == null ? null : externalContexts.computeIfAbsent(service,
+                    k -> ResolutionContext.external(k, isolate(k.getMono())));
+        };
+        Function<Class<?>, List<ResolutionContext>> servicesOfType = type -> {
+            List<ResolutionContext> services = typeIndex.getReferences(type).stream()
+                    .map(resolutionContextByRef::get)
+                    .collect(Collectors.toList());
+            List<ServiceReference<?>> externalRefs = external.findReferencesOfType(type);
+            if (externalRefs.isEmpty()) {
+                return services;
+            }
+            // Local services take precedence over the external ones registered under the same reference
+            externalRefs.stream()
+                    .filter(ref -> !resolutionContextByRef.containsKey(ref))
+                    .map(lookup)
+                    .forEach(services::add);
+            services.sort(Comparator.comparing(ResolutionContext::getDescriptor, TypeIndex.order()));
+            return services;
+        };
+        Map<RefWithParent, CycleDetector> instantiationChains = new ConcurrentHashMap<>();
+        if (replayedSteps != null) {
+            if (!replay(resolutionContexts, replayedSteps, lookup, servicesOfType, instantiationChains)) {
+                return null;
+            }
+        } else {
+            discover(resolutionContexts, resolutionContextByRef, lookup, servicesOfType, instantiationChains,
+                    recordedSteps);
+        }
+        finalizeMonoAssembly(resolutionContexts);
+        return new ResolutionPlan(resolutionContextByRef, resolutionContexts.size(), typeIndex);
+    }
+
+    private static void discover(List<ResolutionContext> resolutionContexts,
+                                 Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef,
+                                 Function<ServiceReference<?>, @Nullable ResolutionContext> lookup,
+                                 Function<Class<?>, List<ResolutionContext>> servicesOfType,
+                                 Map<RefWithParent, CycleDetector> instantiationChains,
+                                 @Nullable List<PlanFile.Step> recordedSteps) {
         Queue<RefWithParent> stack = Collections.asLifoQueue(new ArrayDeque<>());
         Map<RefWithParent, CycleDetector> dependencyChains = new ConcurrentHashMap<>();
-        Map<RefWithParent, CycleDetector> instantiationChains = new ConcurrentHashMap<>();
-        stack.addAll(resolutionContextByRef.keySet().stream()
+        stack.addAll(resolutionContexts.stream()
+                .map(ResolutionContext::getReference)
                 .peek(ref -> throwIfCycleDetected(ref, null, null, dependencyChains, () -> "")) // Should never throw,
                 // just initialize the chains
                 .map(ref -> new RefWithParent(null, ref))
@@ -65,10 +249,9 @@ public class DependencyResolver {
                     stack.add(refWithParent);
                     ResolutionResult factoryResolution = ResolutionResult.compute(
                             rctx.getReference(),
-                            rctx.getDescriptor().getFactoryMethod().getInjectableParameters().stream()
-                                    .flatMap(inj -> inj.getReference().map(Stream::of).orElse(Stream.empty()))
-                                    .collect(Collectors.toList()),
-                            resolutionContextByRef);
+                            dependencies(rctx, rctx.getDescriptor().getFactoryParameters(),
+                                    servicesOfType),
+                            lookup);
                     if (factoryResolution.isFullyResolved()) {
                         if (LOGGER_ASSEMBLY.isDebugEnabled()) {
                             logAssembly(rctx.getReference(),
@@ -77,8 +260,13 @@ public class DependencyResolver {
                                             .map(ResolutionContext::getReference)
                                             .collect(Collectors.toList()));
                         }
-                        createMono(rctx, factoryResolution, instantiationChains);
-                        rctx.setStep(ResolutionStep.RESOLVING_SETTERS);
+                        List<InjectionTarget> factoryTargets = injectionTargets(rctx,
+                                rctx.getDescriptor().getFactoryParameters(),
+                                lookup, servicesOfType);
+                        completeFactory(rctx, factoryTargets, instantiationChains);
+                        if (recordedSteps != null) {
+                            recordedSteps.add(PlanFile.Step.of(rctx, false, factoryTargets));
+                        }
                     } else {
                         if (LOGGER_ASSEMBLY.isDebugEnabled()) {
                             logAssembly(rctx.getReference(),
@@ -96,13 +284,11 @@ public class DependencyResolver {
                     break;
                 }
                 case RESOLVING_SETTERS: {
+                    List<Injectable> setterParams = rctx.getDescriptor().getSetterParameters();
                     ResolutionResult setterResolution = ResolutionResult.compute(
                             rctx.getReference(),
-                            rctx.getDescriptor().getSetterMethods().stream()
-                                    .map(SetterMethod::getInjectableParameter)
-                                    .flatMap(inj -> inj.getReference().map(Stream::of).orElse(Stream.empty()))
-                                    .collect(Collectors.toList()),
-                            resolutionContextByRef);
+                            dependencies(rctx, setterParams, servicesOfType),
+                            lookup);
                     if (setterResolution.isFullyResolved()) {
                         if (LOGGER_ASSEMBLY.isDebugEnabled()) {
                             logAssembly(rctx.getReference(),
@@ -111,10 +297,12 @@ public class DependencyResolver {
                                             .map(ResolutionContext::getReference)
                                             .collect(Collectors.toList()));
                         }
-                        if (!rctx.getDescriptor().getSetterMethods().isEmpty()) {
-                            enrichMonoWithSetterResolution(rctx, setterResolution);
+                        List<InjectionTarget> setterTargets = injectionTargets(rctx, setterParams,
+                                lookup, servicesOfType);
+                        completeSetters(rctx, setterParams, setterTargets);
+                        if (recordedSteps != null) {
+                            recordedSteps.add(PlanFile.Step.of(rctx, true, setterTargets));
                         }
-                        rctx.setStep(ResolutionStep.DONE);
                     } else {
                         if (LOGGER_ASSEMBLY.isDebugEnabled()) {
                             logAssembly(rctx.getReference(),
@@ -130,12 +318,149 @@ public class DependencyResolver {
                     throw new AssertionError();
             }
         }
-        finalizeMonoAssembly(resolutionContextByRef);
-        return resolutionContextByRef.entrySet().stream()
-                .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue().getMono()));
     }
 
-    private static void createMono(ResolutionContext rctx, ResolutionResult factoryResolution,
+    /*
+     * Trusts the order of the steps, so the dependency chains aren't tracked. A step only matches if it injects the
+     * same services as recorded, and if the services its instances depend on are already assembled.
+     */
+    private static boolean replay(List<ResolutionContext> resolutionContexts, List<PlanFile.Step> steps,
+                                  Function<ServiceReference<?>, @Nullable ResolutionContext> lookup,
+                                  Function<Class<?>, List<ResolutionContext>> servicesOfType,
+                                  Map<RefWithParent, CycleDetector> instantiationChains) {
+        for (PlanFile.Step step : steps) {
+            if (step.getService() >= resolutionContexts.size()) {
+                return false;
+            }
+            ResolutionContext rctx = resolutionContexts.get(step.getService());
+            if (rctx.getStep() != (step.isSetters() ? ResolutionStep.RESOLVING_SETTERS
+                    : ResolutionStep.RESOLVING_FACTORY)) {
+                return false;
+            }
+            List<Injectable> params = step.isSetters() ? rctx.getDescriptor().getSetterParameters()
+                    : rctx.getDescriptor().getFactoryParameters();
+            List<InjectionTarget> targets = injectionTargets(rctx, params, lookup, servicesOfType);
+            if (!step.matches(targets) || !services(targets, false).stream().allMatch(ResolutionContext::hasMono)) {
+                return false;
+            }
+            if (step.isSetters()) {
+                completeSetters(rctx, params, targets);
+            } else {
+                completeFactory(rctx, targets, instantiationChains);
+            }
+        }
+        return resolutionContexts.stream().allMatch(rctx -> rctx.getStep() == ResolutionStep.DONE);
+    }
+
+    private static void completeFactory(ResolutionContext rctx, List<InjectionTarget> factoryTargets,
+                                        Map<RefWithParent, CycleDetector> instantiationChains) {
+        rctx.setFactoryDependencies(services(factoryTargets, false));
+        rctx.setProvidedDependencies(services(factoryTargets, true));
+        createMono(rctx, factoryTargets, instantiationChains);
+        rctx.setStep(ResolutionStep.RESOLVING_SETTERS);
+    }
+
+    private static void completeSetters(ResolutionContext rctx, List<Injectable> setterParams,
+                                        List<InjectionTarget> setterTargets) {
+        rctx.setSetterDependencies(services(setterTargets, false));
+        rctx.setProvidedDependencies(Stream.concat(rctx.getProvidedDependencies().stream(),
+                        services(setterTargets, true).stream())
+                .distinct()
+                .collect(Collectors.toList()));
+        if (!setterParams.isEmpty()) {
+            enrichMonoWithSetterResolution(rctx, setterTargets);
+        }
+        rctx.setStep(ResolutionStep.DONE);
+    }
+
+    private static void register(Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef,
+                                 ServiceReference<?> ref, ResolutionContext rctx) {
+        if (resolutionContextByRef.putIfAbsent(ref, rctx) != null) {
+            throw new RdiException("Duplicate service registered: " + ref);
+        }
+    }
+
+    private static List<ServiceReference<?>> dependencies(ResolutionContext owner, List<Injectable> injectables,
+                                                          Function<Class<?>, List<ResolutionContext>> servicesOfType) {
+        List<ServiceReference<?>> deps = new ArrayList<>();
+        for (Injectable inj : injectables) {
+            if (inj.getReference().isPresent()) {
+                deps.add(inj.getReference().get());
+            } else if (inj.getMonoReference().isPresent()) {
+                deps.add(inj.getMonoReference().get());
+            } else if (inj.getElementType().isPresent()) {
+                servicesOfType.apply(inj.getElementType().get()).stream()
+                        .filter(rctx -> rctx != owner)
+                        .map(ResolutionContext::getReference)
+                        .forEach(deps::add);
+            }
+        }
+        return deps;
+    }
+
+    /*
+     * For each injectable that is not a value, gets the services to inject: a single one for a reference, a Mono or a
+     * provider, all the services of the element type for a collection. Provided services aren't dependencies, as they
+     * are instantiated on demand, but they still have to exist.
+     */
+    private static List<InjectionTarget> injectionTargets(
+            ResolutionContext owner, List<Injectable> injectables,
+            Function<ServiceReference<?>, @Nullable ResolutionContext> lookup,
+            Function<Class<?>, List<ResolutionContext>> servicesOfType) {
+        List<InjectionTarget> targets = new ArrayList<>();
+        for (Injectable inj : injectables) {
+            if (inj.getReference().isPresent()) {
+                targets.add(new InjectionTarget(inj, Collections.singletonList(
+                        lookup.apply(inj.getReference().get()))));
+            } else if (inj.getMonoReference().isPresent()) {
+                targets.add(new InjectionTarget(inj, Collections.singletonList(
+                        lookup.apply(inj.getMonoReference().get()))));
+            } else if (inj.getProvidedReference().isPresent()) {
+                ServiceReference<?> provided = inj.getProvidedReference().get();
+                ResolutionContext rctx = lookup.apply(provided);
+                if (rctx == null) {
+                    throw ResolutionResult.missingService(owner.getReference(), provided);
+                }
+                targets.add(new InjectionTarget(inj, Collections.singletonList(rctx)));
+            } else if (inj.getElementType().isPresent()) {
+                targets.add(new InjectionTarget(inj, servicesOfType.apply(inj.getElementType().get()).stream()
+                        .filter(rctx -> rctx != owner)
+                        .collect(Collectors.toList())));
+            }
+        }
+        return targets;
+    }
+
+    private static List<ResolutionContext> services(List<InjectionTarget> targets, boolean provided) {
+        return targets.stream()
+                .filter(target -> target.isProvider() == provided)
+                .flatMap(target -> target.getServices().stream())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * A service resolved elsewhere is requested as if it was subscribed to directly: it has its own instantiation
+     * chains, and its setters and init methods run before it is injected.
+     */
+    private static Mono<Object> isolate(Mono<Object> mono) {
+        return mono.contextWrite(ctx -> ctx.delete("parent")
+                .delete("grandParent")
+                .delete("setterDelegate")
+                .delete("isFreshInstance")
+                .delete("refreshing"));
+    }
+
+    private static Mono<Object[]> zipArguments(ResolutionContext owner, List<InjectionTarget> targets,
+                                               ContextView ctx) {
+        return Mono.zip(targets.stream()
+                        .map(target -> target.toArgument(mono -> putParentInSubscriberContext(mono, ctx,
+                                owner.getReference()), ctx.get("slots")))
+                        .collect(Collectors.toList()), Function.identity())
+                .switchIfEmpty(Mono.fromCallable(() -> new Object[0]));
+    }
+
+    private static void createMono(ResolutionContext rctx, List<InjectionTarget> factoryTargets,
                                    Map<RefWithParent, CycleDetector> instantiationChains) {
         rctx.setMono(
                 Mono.deferContextual(ctx -> {
@@ -145,14 +470,12 @@ public class DependencyResolver {
                                     instantiationChains,
                                     () -> "Circular instantiation detected involving " + rctx.getReference()
                                             + ". Maybe mark " + rctx.getReference() + " as singleton?");
-                            if (factoryResolution.hasNoDeps()) {
-                                return rctx.getDescriptor().getFactoryMethod().invoke();
+                            ServiceSlot slot = slot(rctx, ctx);
+                            if (factoryTargets.isEmpty()) {
+                                return invokeFactory(rctx, slot, new Object[0]);
                             } else {
-                                return Mono.zip(factoryResolution.getResolved().stream()
-                                                .map(rctx0 -> putParentInSubscriberContext(rctx0.getMono(), ctx,
-                                                        rctx.getReference()))
-                                                .collect(Collectors.toList()), Function.identity())
-                                        .flatMap(rctx.getDescriptor().getFactoryMethod()::invoke);
+                                return zipArguments(rctx, factoryTargets, ctx)
+                                        .flatMap(args -> invokeFactory(rctx, slot, args));
                             }
                         })
                         .doOnNext(o -> logSubscription(rctx.getReference(), o, "New instance created"))
@@ -162,44 +485,113 @@ public class DependencyResolver {
         }
     }
 
+    private static Mono<Object> invokeFactory(ResolutionContext rctx, ServiceSlot slot, Object[] args) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return rctx.getDescriptor().getFactoryMethod().invokeEagerly(args)
+                    .doOnNext(o -> slot.getStatistics().recordBuild(System.nanoTime() - start));
+        });
+    }
+
+    private static ServiceSlot slot(ResolutionContext rctx, ContextView ctx) {
+        ServiceSlots slots = ctx.get("slots");
+        return slots.get(rctx);
+    }
+
     private static Mono<Object> wrapSingleton(ResolutionContext rctx) {
         logAssembly(rctx.getReference(), "Wrapping in singleton");
-        AtomicBoolean lock = new AtomicBoolean();
-        Sinks.Many<Long> lockNotifier = Sinks.many().replay().latestOrDefault(0L);
         Mono<Object> factoryMono = rctx.getMono();
-        return Mono.deferContextual(ctx -> lockNotifier.asFlux().filter(__ -> lock.compareAndSet(false, true))
+        return Mono.deferContextual(ctx -> {
+            if (isRefreshSubscription(rctx, ctx)) {
+                logSubscription(rctx.getReference(), null, "Building replacement for stale singleton");
+                return factoryMono;
+            }
+            ServiceSlot slot = slot(rctx, ctx);
+            DeferredTasks tasks = ctx.get("setterDelegate");
+            return lockSingleton(rctx, slot, tasks.getRequest())
+                    .flatMap(__ -> Mono.defer(() -> {
+                                Object o = slot.getSingleton(tasks.getRequest());
+                                if (o != null) {
+                                    slot.getStatistics().recordHit();
+                                    logSubscription(rctx.getReference(), o, "Obtained cached singleton instance");
+                                    AtomicBoolean isFreshInstance = ctx.get("isFreshInstance");
+                                    isFreshInstance.set(false);
+                                    if (!slot.hasPendingSingleton()
+                                            && slot.getSingletonHolder().tryStartRefresh()) {
+                                        refreshInBackground(rctx, slot, ctx.get("slots"));
+                                    }
+                                    return Mono.just(o);
+                                }
+                                Throwable t = slot.getInstantiationError();
+                                if (t != null) {
+                                    logSubscription(rctx.getReference(), null,
+                                            "Obtained cached instantiation error: " + t);
+                                    return Mono.error(t);
+                                }
+                                // Only published once its setters and init methods have run
+                                return factoryMono.doOnNext(newInstance -> tasks.addSingleton(rctx, slot, newInstance))
+                                        .doOnNext(newInstance -> logSubscription(rctx.getReference(), newInstance,
+                                                "Instantiated singleton, now pending until initialized"))
+                                        .doOnError(slot::setInstantiationError)
+                                        .doOnError(error -> logSubscription(rctx.getReference(), null,
+                                                "Caching instantiation error: " + error));
+                            })
+                            .doFinally(signal -> unlockSingleton(rctx, slot)));
+        });
+    }
+
+    /*
+     * Acquires the lock of the slot. If the singleton was created by another request and is still pending, the lock
+     * is released until that request publishes or drops the instance.
+     */
+    private static Mono<Long> lockSingleton(ResolutionContext rctx, ServiceSlot slot, Object request) {
+        AtomicBoolean lock = slot.getLock();
+        return slot.getLockNotifier().asFlux().filter(__ -> lock.compareAndSet(false, true))
                 .next()
                 .doOnSubscribe(s -> logSubscription(rctx.getReference(), null, "Waiting on singleton lock"))
-                .flatMap(__ -> {
-                    logSubscription(rctx.getReference(), null, "Acquired singleton lock");
-                    Object o = rctx.getSingleton();
-                    if (o != null) {
-                        logSubscription(rctx.getReference(), o, "Obtained cached singleton instance");
-                        AtomicBoolean isFreshInstance = ctx.get("isFreshInstance");
-                        isFreshInstance.set(false);
-                        return Mono.just(o);
+                .flatMap(signal -> {
+                    Mono<Void> pending = slot.awaitPendingSingleton(request);
+                    if (pending == null) {
+                        logSubscription(rctx.getReference(), null, "Acquired singleton lock");
+                        return Mono.just(signal);
                     }
-                    Throwable t = rctx.getInstantiationError();
-                    if (t != null) {
-                        logSubscription(rctx.getReference(), null, "Obtained cached instantiation error: " + t);
-                        return Mono.error(t);
-                    }
-                    return factoryMono.doOnNext(rctx::setSingleton)
-                            .doOnNext(newInstance -> logSubscription(rctx.getReference(), newInstance,
-                                    "Instantiated singleton, now caching"))
-                            .doOnError(rctx::setInstantiationError)
-                            .doOnError(error -> logSubscription(rctx.getReference(), null,
-                                    "Caching instantiation error: " + error));
-                })
-                .doFinally(__ -> {
-                    logSubscription(rctx.getReference(), null, "Released singleton lock");
-                    lock.set(false); // unlock
-                    lockNotifier.emitNext(0L, (signalType, emitResult) ->
-                            emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED); // notify those waiting on lock
+                    unlockSingleton(rctx, slot);
+                    logSubscription(rctx.getReference(), null, "Waiting for another request to initialize the " +
+                            "singleton");
+                    return pending.then(Mono.defer(() -> lockSingleton(rctx, slot, request)));
+                });
+    }
+
+    private static void unlockSingleton(ResolutionContext rctx, ServiceSlot slot) {
+        logSubscription(rctx.getReference(), null, "Released singleton lock");
+        slot.getLock().set(false);
+        slot.getLockNotifier().emitNext(0L, (signalType, emitResult) ->
+                emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED); // notify those waiting on lock
+    }
+
+    private static boolean isRefreshSubscription(ResolutionContext rctx, ContextView ctx) {
+        // Only the top-level subscription triggered by the refresh bypasses the cache, dependencies referring back to
+        // the service being refreshed still obtain the current instance
+        return rctx.getReference().equals(ctx.getOrDefault("refreshing", null)) && !ctx.hasKey("parent");
+    }
+
+    private static void refreshInBackground(ResolutionContext rctx, ServiceSlot slot, ServiceSlots slots) {
+        logSubscription(rctx.getReference(), null, "Singleton is stale, refreshing in background");
+        slot.getSingletonHolder().trackRefresh(rctx.getMono()
+                // Not counted as a request, as no one asked for the new instance yet
+                .contextWrite(Context.of("refreshing", rctx.getReference(), "slots", slots, "background", true))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(newInstance -> {
+                    slot.getSingletonHolder().refreshed(newInstance);
+                    logSubscription(rctx.getReference(), newInstance, "Refreshed singleton, now caching");
+                }, error -> {
+                    slot.getSingletonHolder().refreshFailed();
+                    LOGGER_SUBSCRIPTION.warn("[serviceRef={}] Failed to refresh singleton, keeping the current " +
+                            "instance", rctx.getReference(), error);
                 }));
     }
 
-    private static void enrichMonoWithSetterResolution(ResolutionContext rctx, ResolutionResult setterResolution) {
+    private static void enrichMonoWithSetterResolution(ResolutionContext rctx, List<InjectionTarget> setterTargets) {
         rctx.setMono(rctx.getMono()
                 .flatMap(o -> Mono.deferContextual(ctx -> {
                             AtomicBoolean isFreshInstance = ctx.get("isFreshInstance");
@@ -212,29 +604,33 @@ public class DependencyResolver {
                                         "from cache");
                                 return Mono.empty();
                             }
-                            Mono<Void> setterMono = Mono.zip(setterResolution.getResolved().stream()
-                                            .map(rctx0 -> putParentInSubscriberContext(rctx0.getMono(), ctx,
-                                                    rctx.getReference()))
-                                            .collect(Collectors.toList()), Function.identity())
-                                    .switchIfEmpty(Mono.fromCallable(() -> new Object[0]))
+                            Mono<Void> setterMono = zipArguments(rctx, setterTargets, ctx)
                                     .doOnNext(deps -> {
+                                        long start = System.nanoTime();
                                         int refI = 0;
                                         for (SetterMethod setter : rctx.getDescriptor().getSetterMethods()) {
-                                            if (setter.getInjectableParameter().getValue().isPresent()) {
+                                            Injectable param = setter.getInjectableParameter();
+                                            if (param.getValue().isPresent()) {
                                                 setter.invoke(o);
-                                            } else if (setter.getInjectableParameter().getReference().isPresent()) {
+                                            } else if (param.getReference().isPresent()
+                                                    || param.getProvidedReference().isPresent()
+                                                    || param.getElementType().isPresent()) {
                                                 setter.invoke(o, deps[refI++]);
                                             } else {
-                                                throw new AssertionError("Injectable.getValue() and "
-                                                        + "Injectable.getReference() were both empty");
+                                                throw new AssertionError("Injectable.getValue(), "
+                                                        + "Injectable.getReference(), "
+                                                        + "Injectable.getProvidedReference() and "
+                                                        + "Injectable.getElementType() were all empty");
                                             }
                                         }
+                                        slot(rctx, ctx).getStatistics()
+                                                .recordSetters(System.nanoTime() - start);
                                     })
                                     .then(Mono.fromRunnable(() -> logSubscription(rctx.getReference(), o,
                                             "Successfully " +
                                                     "invoked setters")));
-                            ArrayDeque<List<Mono<Void>>> setterDelegate = ctx.get("setterDelegate");
-                            setterDelegate.element().add(setterMono); // The deque cannot be empty at this stage
+                            DeferredTasks setterDelegate = ctx.get("setterDelegate");
+                            setterDelegate.addSetters(setterMono);
                             logSubscription(rctx.getReference(), o, "Setters found: their invocation will be deferred" +
                                     " until all dependency instances are available");
                             return Mono.empty();
@@ -242,29 +638,35 @@ public class DependencyResolver {
                         .thenReturn(o)));
     }
 
-    private static void finalizeMonoAssembly(Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef) {
-        for (ResolutionContext rctx : resolutionContextByRef.values()) {
-            rctx.setMono(rctx.getMono()
-                    // Assemble code to execute all setter delegates
-                    .flatMap(o -> Mono.deferContextual(ctx -> {
-                                ArrayDeque<List<Mono<Void>>> setterDelegate = ctx.get("setterDelegate");
-                                List<Mono<Void>> setterMonos = setterDelegate.pop();
-                                if (setterDelegate.isEmpty()) {
-                                    return Mono.when(setterMonos);
-                                }
-                                setterDelegate.element().addAll(setterMonos);
-                                return Mono.empty();
-                            })
-                            .thenReturn(o))
+    private static void finalizeMonoAssembly(List<ResolutionContext> resolutionContexts) {
+        for (ResolutionContext rctx : resolutionContexts) {
+            Mono<Object> mono = rctx.getMono();
+            rctx.setMono(Mono.deferContextual(ctx -> {
+                        DeferredTasks tasks = ctx.get("setterDelegate");
+                        AtomicBoolean isFreshInstance = ctx.get("isFreshInstance");
+                        return mono
+                                // Assemble code to execute all setter delegates, then init methods
+                                .flatMap(o -> {
+                                    if (isFreshInstance.get() && !rctx.getDescriptor().getInitMethods().isEmpty()) {
+                                        tasks.addInstanceToInit(rctx, o);
+                                    }
+                                    tasks.close();
+                                    return (tasks.handOver() ? Mono.<Void>empty() : tasks.run()).thenReturn(o);
+                                })
+                                // Singletons created by a subscription that didn't complete are not kept
+                                .doFinally(__ -> tasks.abandon());
+                    })
                     .doOnNext(o -> logSubscription(rctx.getReference(), o, "Returning instance"))
                     // Initialize subscriber context
                     .contextWrite(ctx -> {
                         logSubscription(rctx.getReference(), null, "Subscription triggered");
-                        ArrayDeque<List<Mono<Void>>> setterDelegate = ctx.getOrDefault("setterDelegate",
-                                new ArrayDeque<>());
-                        Objects.requireNonNull(setterDelegate);
-                        setterDelegate.push(new ArrayList<>());
-                        return ctx.put("setterDelegate", setterDelegate)
+                        if (!ctx.hasKey("background")) {
+                            slot(rctx, ctx).getStatistics().recordRequest();
+                        }
+                        // Dependencies may be subscribed concurrently, e.g. when injected as a collection, so each
+                        // subscription gets its own frame
+                        DeferredTasks parentTasks = ctx.getOrDefault("setterDelegate", null);
+                        return ctx.put("setterDelegate", new DeferredTasks(parentTasks))
                                 .put("isFreshInstance", new AtomicBoolean(true));
                     }));
             logAssembly(rctx.getReference(), "Finalized reactive chain assembly");
@@ -274,7 +676,8 @@ public class DependencyResolver {
     private static Mono<Object> putParentInSubscriberContext(Mono<Object> mono, ContextView oldContext,
                                                              ServiceReference<?> parent) {
         return mono.contextWrite(ctx -> {
-            ctx = ctx.put("parent", parent);
+            // Kept in case the Mono is subscribed outside of the chain, when injected as is
+            ctx = ctx.put("parent", parent).put("slots", oldContext.get("slots"));
             Optional<ServiceReference<?>> oldParent = oldContext.getOrEmpty("parent");
             if (oldParent.isPresent()) {
                 ctx = ctx.put("grandParent", oldParent.get());
@@ -0,0 +1,75 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.config.Injectable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+class InjectionTarget {
+
+    private final Injectable injectable;
+    private final List<ResolutionContext> services;
+
+    InjectionTarget(Injectable injectable, List<ResolutionContext> services) {
+        this.injectable = injectable;
+        this.services = services;
+    }
+
+    List<ResolutionContext> getServices() {
+        return Collections.unmodifiableList(services);
+    }
+
+    boolean isProvider() {
+        return injectable.getProvidedReference().isPresent();
+    }
+
+    Mono<Object> toArgument(UnaryOperator<Mono<Object>> contextualizer, ServiceSlots slots) {
+        if (isProvider()) {
+            // Each injection gets its own handle, and therefore its own cached instance
+            return Mono.fromCallable(() -> new LazyServiceProvider(services.get(0), slots));
+        }
+        if (injectable.getMonoReference().isPresent()) {
+            // The factory decides when to subscribe, but the subscription is still checked for circular instantiation
+            return Mono.just(contextualizer.apply(services.get(0).getMono()));
+        }
+        if (!injectable.getElementType().isPresent()) {
+            return contextualizer.apply(services.get(0).getMono());
+        }
+        if (services.isEmpty()) {
+            return Mono.fromCallable(() -> toCollection(new Object[0]));
+        }
+        return Mono.defer(() -> {
+            boolean[] cached = new boolean[services.size()];
+            int toBuild = 0;
+            for (int i = 0; i < cached.length; i++) {
+                cached[i] = services.get(i).getResolvedService(slots).getCachedInstance().isPresent();
+                toBuild += cached[i] ? 0 : 1;
+            }
+            // When several elements need to be built, they are subscribed on separate workers so that blocking
+            // factories are also instantiated concurrently. Cached singletons are always taken on the current thread.
+            List<Mono<Object>> elements = new ArrayList<>(cached.length);
+            for (int i = 0; i < cached.length; i++) {
+                Mono<Object> element = contextualizer.apply(services.get(i).getMono());
+                elements.add(toBuild > 1 && !cached[i] ? element.subscribeOn(Schedulers.boundedElastic()) : element);
+            }
+            return Mono.zip(elements, this::toCollection);
+        });
+    }
+
+    private Object toCollection(Object[] elements) {
+        if (Set.class.equals(injectable.getType())) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(elements)));
+        }
+        return Collections.unmodifiableList(Arrays.asList(elements));
+    }
+
+    @Override
+    public String toString() {
+        return "InjectionTarget{injectable=" + injectable + ", services=" + services.stream()
+                .map(ResolutionContext::getReference)
+                .collect(Collectors.toList()) + "}";
+    }
+}
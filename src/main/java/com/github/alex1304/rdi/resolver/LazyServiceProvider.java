@@ -0,0 +1,39 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceProvider;
+import com.github.alex1304.rdi.ServiceReference;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+class LazyServiceProvider implements ServiceProvider<Object> {
+
+    // Recognized by Reactor as an infinite TTL, so no timer is scheduled
+    private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final ResolutionContext rctx;
+    private final Mono<Object> instance;
+
+    LazyServiceProvider(ResolutionContext rctx, ServiceSlots slots) {
+        this.rctx = rctx;
+        // Subscribed independently of the chain that injected the handle, so the slots must be given explicitly
+        this.instance = Mono.defer(() -> rctx.getMono().contextWrite(ctx -> ctx.put("slots", slots)))
+                .cache(o -> FOREVER, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public ServiceReference<Object> getReference() {
+        return (ServiceReference<Object>) rctx.getReference();
+    }
+
+    @Override
+    public Mono<Object> get() {
+        return instance;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceProvider{ref=" + rctx.getReference() + "}";
+    }
+}
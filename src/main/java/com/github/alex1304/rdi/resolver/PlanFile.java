@@ -0,0 +1,186 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.AtomicFiles;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.ServiceDescriptors;
+import org.jspecify.annotations.Nullable;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Binary form of a resolution: the names of the services, which give them their ids, followed by the steps of the
+ * resolution in the order they completed, each with the ids of the services injected in every non-value parameter.
+ * Everything but the names is made of fixed-width ints, so the file is read from a memory mapping without copying.
+ */
+final class PlanFile {
+
+    private static final Logger LOGGER = Loggers.getLogger("rdi.plan");
+    private static final int MAGIC = 0x52444950; // "RDIP"
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<String> serviceNames;
+    private final List<Step> steps;
+
+    PlanFile(List<String> serviceNames, List<Step> steps) {
+        this.serviceNames = serviceNames;
+        this.steps = steps;
+    }
+
+    List<String> getServiceNames() {
+        return serviceNames;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    static @Nullable PlanFile read(Path planFile, byte[] fingerprint) {
+        if (!Files.exists(planFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(planFile, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                LOGGER.info("Ignoring plan {} written by another version of RDI", planFile);
+                return null;
+            }
+            byte[] checksum = new byte[in.getInt()];
+            in.get(checksum);
+            if (!MessageDigest.isEqual(checksum, fingerprint)) {
+                LOGGER.info("Ignoring plan {} as the configuration has changed", planFile);
+                return null;
+            }
+            int serviceCount = in.getInt();
+            List<String> serviceNames = new ArrayList<>(serviceCount);
+            for (int i = 0; i < serviceCount; i++) {
+                byte[] name = new byte[in.getInt()];
+                in.get(name);
+                serviceNames.add(new String(name, StandardCharsets.UTF_8));
+            }
+            int stepCount = in.getInt();
+            List<Step> steps = new ArrayList<>(stepCount);
+            for (int i = 0; i < stepCount; i++) {
+                int header = in.getInt();
+                int[][] targets = new int[in.getInt()][];
+                for (int j = 0; j < targets.length; j++) {
+                    targets[j] = new int[in.getInt()];
+                    in.asIntBuffer().get(targets[j]);
+                    in.position(in.position() + targets[j].length * Integer.BYTES);
+                }
+                steps.add(new Step(header >>> 1, (header & 1) != 0, targets));
+            }
+            return new PlanFile(serviceNames, steps);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            LOGGER.warn("Ignoring unreadable plan {}", planFile, e);
+            return null;
+        }
+    }
+
+    static void logOutdated(Path planFile) {
+        LOGGER.info("Ignoring plan {} as it doesn't match the services anymore", planFile);
+    }
+
+    void write(Path planFile, byte[] fingerprint) {
+        try {
+            AtomicFiles.write(planFile, output -> {
+                DataOutputStream out = new DataOutputStream(output);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(fingerprint.length);
+                out.write(fingerprint);
+                out.writeInt(serviceNames.size());
+                for (String serviceName : serviceNames) {
+                    byte[] name = serviceName.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                }
+                out.writeInt(steps.size());
+                for (Step step : steps) {
+                    out.writeInt(step.service << 1 | (step.setters ? 1 : 0));
+                    out.writeInt(step.targets.length);
+                    for (int[] target : step.targets) {
+                        out.writeInt(target.length);
+                        for (int service : target) {
+                            out.writeInt(service);
+                        }
+                    }
+                }
+                out.flush();
+            });
+            LOGGER.debug("Saved plan of {} service(s) to {}", serviceNames.size(), planFile);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save plan to {}", planFile, e);
+        }
+    }
+
+    /*
+     * Covers everything that determines the order of the resolution and the services injected by reference. The
+     * services injected as collections depend on the class hierarchy as well, which is checked against the plan when
+     * it is replayed instead.
+     */
+    static byte[] fingerprint(Collection<ServiceDescriptor> serviceDescriptors) {
+        return ServiceDescriptors.fingerprint(serviceDescriptors);
+    }
+
+    /*
+     * Completion of the factory or setter resolution of a service. Targets follow the non-value parameters.
+     */
+    static final class Step {
+
+        private final int service;
+        private final boolean setters;
+        private final int[][] targets;
+
+        Step(int service, boolean setters, int[][] targets) {
+            this.service = service;
+            this.setters = setters;
+            this.targets = targets;
+        }
+
+        static Step of(ResolutionContext rctx, boolean setters, List<InjectionTarget> targets) {
+            return new Step(rctx.getIndex(), setters, targets.stream()
+                    .map(target -> target.getServices().stream().mapToInt(ResolutionContext::getIndex).toArray())
+                    .toArray(int[][]::new));
+        }
+
+        int getService() {
+            return service;
+        }
+
+        boolean isSetters() {
+            return setters;
+        }
+
+        boolean matches(List<InjectionTarget> targets) {
+            if (targets.size() != this.targets.length) {
+                return false;
+            }
+            for (int i = 0; i < this.targets.length; i++) {
+                List<ResolutionContext> services = targets.get(i).getServices();
+                if (services.size() != this.targets[i].length) {
+                    return false;
+                }
+                for (int j = 0; j < services.size(); j++) {
+                    if (services.get(j) == null || services.get(j).getIndex() != this.targets[i][j]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
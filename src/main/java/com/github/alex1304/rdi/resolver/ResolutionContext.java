@@ -5,18 +5,40 @@ import com.github.alex1304.rdi.config.ServiceDescriptor;
 import org.jspecify.annotations.Nullable;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 class ResolutionContext {
 
     private final ServiceDescriptor descriptor;
+    private final int index;
+    private final @Nullable ResolvedService externalService;
     private @Nullable Mono<Object> mono;
-    private @Nullable Object singleton;
-    private @Nullable Throwable instantiationError;
+    private List<ResolutionContext> factoryDependencies = Collections.emptyList();
+    private List<ResolutionContext> setterDependencies = Collections.emptyList();
+    private List<ResolutionContext> providedDependencies = Collections.emptyList();
     private ResolutionStep step = ResolutionStep.RESOLVING_FACTORY;
 
-    public ResolutionContext(ServiceDescriptor descriptor) {
+    ResolutionContext(ServiceDescriptor descriptor, int index) {
         this.descriptor = descriptor;
+        this.index = index;
+        this.externalService = null;
+    }
+
+    /*
+     * Stands for a service resolved elsewhere, which is already complete and whose own dependencies are not tracked.
+     */
+    private ResolutionContext(ResolvedService externalService, Mono<Object> mono) {
+        this.descriptor = externalService.getDescriptor();
+        this.index = -1;
+        this.externalService = externalService;
+        this.mono = mono;
+        this.step = ResolutionStep.DONE;
+    }
+
+    static ResolutionContext external(ResolvedService service, Mono<Object> mono) {
+        return new ResolutionContext(service, mono);
     }
 
     ServiceReference<?> getReference() {
@@ -27,6 +49,20 @@ class ResolutionContext {
         return descriptor;
     }
 
+    /*
+     * Position of the slot of the service in the instantiations of the plan.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /*
+     * Gets the service as instantiated by the given slots, or by the container it comes from if it is external.
+     */
+    ResolvedService getResolvedService(ServiceSlots slots) {
+        return externalService != null ? externalService : slots.get(this).getResolvedService();
+    }
+
     boolean hasMono() {
         return mono != null;
     }
@@ -39,20 +75,28 @@ class ResolutionContext {
         this.mono = mono;
     }
 
-    @Nullable Object getSingleton() {
-        return singleton;
+    List<ResolutionContext> getFactoryDependencies() {
+        return factoryDependencies;
+    }
+
+    void setFactoryDependencies(List<ResolutionContext> factoryDependencies) {
+        this.factoryDependencies = factoryDependencies;
+    }
+
+    List<ResolutionContext> getSetterDependencies() {
+        return setterDependencies;
     }
 
-    void setSingleton(Object singleton) {
-        this.singleton = singleton;
+    void setSetterDependencies(List<ResolutionContext> setterDependencies) {
+        this.setterDependencies = setterDependencies;
     }
 
-    @Nullable Throwable getInstantiationError() {
-        return instantiationError;
+    List<ResolutionContext> getProvidedDependencies() {
+        return providedDependencies;
     }
 
-    void setInstantiationError(Throwable instantiationError) {
-        this.instantiationError = instantiationError;
+    void setProvidedDependencies(List<ResolutionContext> providedDependencies) {
+        this.providedDependencies = providedDependencies;
     }
 
     ResolutionStep getStep() {
@@ -68,9 +112,7 @@ class ResolutionContext {
         return "ResolutionContext{" +
                 "descriptor=" + descriptor +
                 ", mono=" + mono +
-                ", singleton=" + singleton +
-                ", instantiationError=" + instantiationError +
                 ", step=" + step +
                 '}';
     }
-}
\ No newline at end of file
+}
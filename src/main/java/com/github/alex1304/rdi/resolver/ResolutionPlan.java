@@ -0,0 +1,109 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceReference;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Result of the dependency resolution of a set of service descriptors, holding the reactive chains assembled with all
+ * the dependency injection logic. A plan is immutable and doesn't hold any instance: the state of the services, such
+ * as their cached singletons and statistics, lives in each instantiation of the plan. A plan may therefore be resolved
+ * once and instantiated many times, for example to create a container per tenant of an application, each
+ * instantiation only costing the state of the services it actually uses.
+ *
+ * @see DependencyResolver#compile(Set)
+ */
+public final class ResolutionPlan {
+
+    private final Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef;
+    private final int size;
+    private final TypeIndex typeIndex;
+
+    ResolutionPlan(Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef, int size,
+                   TypeIndex typeIndex) {
+        this.resolutionContextByRef = resolutionContextByRef;
+        this.size = size;
+        this.typeIndex = typeIndex;
+    }
+
+    /**
+     * Gets the type index of the services of this plan.
+     *
+     * @return the type index
+     */
+    public TypeIndex getTypeIndex() {
+        return typeIndex;
+    }
+
+    /**
+     * Creates a new instantiation of this plan, with its own singletons and statistics. Each reference, including
+     * aliases, is mapped to its {@link ResolvedService}, which is only created when first looked up.
+     *
+     * @return an unmodifiable Map containing the services of the new instantiation
+     */
+    public Map<ServiceReference<?>, ResolvedService> instantiate() {
+        return new InstanceMap(resolutionContextByRef, new ServiceSlots(size));
+    }
+
+    @Override
+    public String toString() {
+        return "ResolutionPlan{services=" + size + ", references=" + resolutionContextByRef.size() + "}";
+    }
+
+    private static class InstanceMap extends AbstractMap<ServiceReference<?>, ResolvedService> {
+
+        private final Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef;
+        private final ServiceSlots slots;
+
+        private InstanceMap(Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef, ServiceSlots slots) {
+            this.resolutionContextByRef = resolutionContextByRef;
+            this.slots = slots;
+        }
+
+        @Override
+        public @Nullable ResolvedService get(@Nullable Object key) {
+            ResolutionContext rctx = resolutionContextByRef.get(key);
+            return rctx == null ? null : slots.get(rctx).getResolvedService();
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return resolutionContextByRef.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return resolutionContextByRef.size();
+        }
+
+        @Override
+        public Set<Entry<ServiceReference<?>, ResolvedService>> entrySet() {
+            return new AbstractSet<Entry<ServiceReference<?>, ResolvedService>>() {
+                @Override
+                public Iterator<Entry<ServiceReference<?>, ResolvedService>> iterator() {
+                    Iterator<Entry<ServiceReference<?>, ResolutionContext>> it =
+                            resolutionContextByRef.entrySet().iterator();
+                    return new Iterator<Entry<ServiceReference<?>, ResolvedService>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<ServiceReference<?>, ResolvedService> next() {
+                            Entry<ServiceReference<?>, ResolutionContext> entry = it.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(),
+                                    slots.get(entry.getValue()).getResolvedService());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return resolutionContextByRef.size();
+                }
+            };
+        }
+    }
+}
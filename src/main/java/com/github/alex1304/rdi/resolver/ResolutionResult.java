@@ -2,11 +2,12 @@ package com.github.alex1304.rdi.resolver;
 
 import com.github.alex1304.rdi.RdiException;
 import com.github.alex1304.rdi.ServiceReference;
+import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 class ResolutionResult {
 
@@ -19,27 +20,28 @@ class ResolutionResult {
     }
 
     static ResolutionResult compute(ServiceReference<?> owner, List<ServiceReference<?>> deps,
-                                    Map<ServiceReference<?>, ResolutionContext> resolutionContextByRef) {
+                                    Function<ServiceReference<?>, @Nullable ResolutionContext> lookup) {
         ArrayList<ResolutionContext> resolved = new ArrayList<>();
         ArrayList<ServiceReference<?>> unresolved = new ArrayList<>();
         for (ServiceReference<?> dep : deps) {
-            ResolutionContext rctx = resolutionContextByRef.get(dep);
+            ResolutionContext rctx = lookup.apply(dep);
             if (rctx == null) {
-                throw new RdiException("The service '" + owner.getServiceName()
-                        + "' is referring to missing service '" + dep.getServiceName()
-                        + "'. Did you forget to register '" + dep.getServiceName() + "' in the config?");
+                throw missingService(owner, dep);
             }
             if (rctx.hasMono()) {
                 resolved.add(rctx);
             } else {
-                unresolved.add(dep);
+                // Use the main reference in case dep is an alias
+                unresolved.add(rctx.getReference());
             }
         }
         return new ResolutionResult(resolved, unresolved);
     }
 
-    boolean hasNoDeps() {
-        return resolved.isEmpty();
+    static RdiException missingService(ServiceReference<?> owner, ServiceReference<?> dep) {
+        return new RdiException("The service '" + owner.getServiceName()
+                + "' is referring to missing service '" + dep.getServiceName()
+                + "'. Did you forget to register '" + dep.getServiceName() + "' in the config?");
     }
 
     boolean isFullyResolved() {
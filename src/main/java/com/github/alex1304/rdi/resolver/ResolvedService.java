@@ -0,0 +1,143 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Result of the dependency resolution for a single service. It holds the reactive chain assembled with all the
+ * dependency injection logic, along with runtime information about the instances it produced.
+ *
+ * @see DependencyResolver#resolveServices(java.util.Set)
+ */
+public final class ResolvedService {
+
+    private final ServiceDescriptor descriptor;
+    private final Mono<Object> mono;
+    private final ServiceStatistics statistics;
+    private final List<ServiceReference<?>> factoryDependencies;
+    private final List<ServiceReference<?>> setterDependencies;
+    private final List<ServiceReference<?>> providedDependencies;
+    private final SingletonHolder singletonHolder;
+
+    ResolvedService(ResolutionContext rctx, ServiceSlot slot, ServiceSlots slots) {
+        this.descriptor = rctx.getDescriptor();
+        // The chain assembled by the plan finds the state of the services in the subscriber context
+        this.mono = rctx.getMono().contextWrite(ctx -> ctx.put("slots", slots));
+        this.statistics = slot.getStatistics();
+        this.factoryDependencies = references(rctx.getFactoryDependencies());
+        this.setterDependencies = references(rctx.getSetterDependencies());
+        this.providedDependencies = references(rctx.getProvidedDependencies());
+        this.singletonHolder = slot.getSingletonHolder();
+    }
+
+    private static List<ServiceReference<?>> references(List<ResolutionContext> resolutionContexts) {
+        return resolutionContexts.stream()
+                .map(ResolutionContext::getReference)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+    }
+
+    /**
+     * Gets the reference of the resolved service.
+     *
+     * @return the service reference
+     */
+    public ServiceReference<?> getReference() {
+        return descriptor.getServiceReference();
+    }
+
+    /**
+     * Gets the descriptor the service was resolved from.
+     *
+     * @return the service descriptor
+     */
+    public ServiceDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Gets the {@link Mono} assembled with all the dependency injection logic for the service.
+     *
+     * @return the Mono
+     */
+    public Mono<Object> getMono() {
+        return mono;
+    }
+
+    /**
+     * Gets the references of the services that must be instantiated before the factory method of this service can be
+     * invoked, including each member of the collections it receives. Setter dependencies and services injected via a
+     * {@link com.github.alex1304.rdi.ServiceProvider} are not included, as they don't constrain the order in which
+     * instances are created.
+     *
+     * @return the main references of the factory dependencies, without duplicates
+     */
+    public List<ServiceReference<?>> getFactoryDependencies() {
+        return factoryDependencies;
+    }
+
+    /**
+     * Gets the references of the services injected via the setters of this service, including each member of the
+     * collections they receive. Services injected via a {@link com.github.alex1304.rdi.ServiceProvider} are not
+     * included.
+     *
+     * @return the main references of the setter dependencies, without duplicates
+     */
+    public List<ServiceReference<?>> getSetterDependencies() {
+        return setterDependencies;
+    }
+
+    /**
+     * Gets the references of the services injected into this service via a
+     * {@link com.github.alex1304.rdi.ServiceProvider}, either in its factory or in its setters. These services are
+     * only instantiated when the provider is first used.
+     *
+     * @return the main references of the provided dependencies, without duplicates
+     */
+    public List<ServiceReference<?>> getProvidedDependencies() {
+        return providedDependencies;
+    }
+
+    /**
+     * Gets the instance currently cached for this service, without counting it as an access. Always empty for
+     * services that aren't configured as singleton.
+     *
+     * @return the cached instance, if any
+     */
+    public Optional<Object> getCachedInstance() {
+        return Optional.ofNullable(singletonHolder.peek());
+    }
+
+    /*
+     * The next request will create a new instance.
+     */
+    void releaseCachedInstance() {
+        singletonHolder.release();
+    }
+
+    /*
+     * Once called, no eviction or refresh is started anymore, so this is only called when the container is disposed.
+     */
+    void cancelBackgroundTasks() {
+        singletonHolder.cancelTasks();
+    }
+
+    /**
+     * Gets the statistics on the instances produced by the resolved Mono.
+     *
+     * @return the statistics
+     */
+    public ServiceStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return "ResolvedService{ref=" + getReference() + ", statistics=" + statistics + "}";
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.DisposeMethod;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import org.jspecify.annotations.Nullable;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Disposes the cached singletons of resolved services in reverse dependency order: a service is disposed once all the
+ * services depending on it, via their factory, their setters or a provider, have been. Services that have no cached
+ * instance are still part of the graph, so that a singleton used through a prototype waits for the services using
+ * that prototype.
+ *
+ * <p>
+ * This is how {@link com.github.alex1304.rdi.RdiServiceContainer#dispose(Duration)} releases the instances of the
+ * services it resolved. It is the only way to release them from outside of this package.
+ */
+public final class ServiceDisposer {
+
+    private static final Logger LOGGER = Loggers.getLogger("rdi.resolver.disposal");
+
+    private final Map<ServiceReference<?>, ResolvedService> services;
+    private final List<ResolvedService> distinctServices;
+
+    /**
+     * Creates a disposer for the given services.
+     *
+     * @param services         the services by reference, including aliases. Dependencies missing from this map,
+     *                         such as the services of a parent container, are not disposed.
+     * @param distinctServices each of the services to dispose, once
+     */
+    public ServiceDisposer(Map<ServiceReference<?>, ResolvedService> services,
+                           List<ResolvedService> distinctServices) {
+        this.services = services;
+        this.distinctServices = distinctServices;
+    }
+
+    /**
+     * Cancels the idle evictions and background refreshes of the services, then disposes their cached singletons. For
+     * each cached instance, the dispose methods of its descriptor are invoked, or if there isn't any, the instance is
+     * closed if it implements {@link AutoCloseable}, or disposed if it implements {@link Disposable}. The instance is
+     * then released.
+     *
+     * @param timeout the maximum time to wait for the disposal of each service
+     * @return a Mono emitting the errors of the services that failed or timed out, empty if all succeeded
+     */
+    public Mono<Map<ServiceReference<?>, Throwable>> dispose(Duration timeout) {
+        return Mono.defer(() -> {
+            // No instance is evicted or refreshed behind the disposer's back
+            distinctServices.forEach(ResolvedService::cancelBackgroundTasks);
+            Map<ServiceReference<?>, Throwable> failures = new ConcurrentHashMap<>();
+            Map<ResolvedService, List<ResolvedService>> dependents = dependents();
+            Map<ResolvedService, Mono<Void>> disposeMonos = new IdentityHashMap<>();
+            Set<ResolvedService> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Mono<Void>> all = distinctServices.stream()
+                    .map(service -> disposeMono(service, dependents, disposeMonos, visiting, timeout, failures))
+                    .collect(Collectors.toList());
+            return Mono.when(all).thenReturn(failures);
+        });
+    }
+
+    private Map<ResolvedService, List<ResolvedService>> dependents() {
+        Map<ResolvedService, List<ResolvedService>> dependents = new IdentityHashMap<>();
+        for (ResolvedService service : distinctServices) {
+            Stream.of(service.getFactoryDependencies(), service.getSetterDependencies(),
+                            service.getProvidedDependencies())
+                    .flatMap(List::stream)
+                    .distinct()
+                    .map(services::get)
+                    // Services owned by a parent container are disposed along with it
+                    .filter(Objects::nonNull)
+                    .forEach(dependency -> dependents.computeIfAbsent(dependency, k -> new ArrayList<>())
+                            .add(service));
+        }
+        return dependents;
+    }
+
+    /*
+     * Services forming a cycle via setters don't wait for each other.
+     */
+    private Mono<Void> disposeMono(ResolvedService service, Map<ResolvedService, List<ResolvedService>> dependents,
+                                   Map<ResolvedService, Mono<Void>> disposeMonos, Set<ResolvedService> visiting,
+                                   Duration timeout, Map<ServiceReference<?>, Throwable> failures) {
+        Mono<Void> disposeMono = disposeMonos.get(service);
+        if (disposeMono != null) {
+            return disposeMono;
+        }
+        if (!visiting.add(service)) {
+            return Mono.empty();
+        }
+        List<Mono<Void>> dependentDisposals = dependents.getOrDefault(service, Collections.emptyList()).stream()
+                .map(dependent -> disposeMono(dependent, dependents, disposeMonos, visiting, timeout, failures))
+                .collect(Collectors.toList());
+        visiting.remove(service);
+        disposeMono = Mono.when(dependentDisposals)
+                .then(Mono.defer(() -> disposeInstance(service, timeout, failures)))
+                .cache();
+        disposeMonos.put(service, disposeMono);
+        return disposeMono;
+    }
+
+    private static Mono<Void> disposeInstance(ResolvedService service, Duration timeout,
+                                              Map<ServiceReference<?>, Throwable> failures) {
+        Optional<Object> instance = service.getCachedInstance();
+        if (!instance.isPresent()) {
+            return Mono.empty();
+        }
+        Mono<Void> hook = disposeHook(service.getDescriptor(), instance.get());
+        if (hook == null) {
+            service.releaseCachedInstance();
+            return Mono.empty();
+        }
+        // Hooks are subscribed on separate workers since closing resources is often blocking
+        return hook.subscribeOn(Schedulers.boundedElastic())
+                .timeout(timeout)
+                .onErrorMap(TimeoutException.class, e -> new RdiException("Disposal of service '"
+                        + service.getReference() + "' timed out after " + timeout.toMillis() + "ms", e))
+                .onErrorResume(e -> {
+                    failures.put(service.getReference(), e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(service::releaseCachedInstance));
+    }
+
+    /*
+     * For instances dropped by the container while it is in use, whose disposal no one waits for.
+     */
+    static void disposeInBackground(ServiceDescriptor descriptor, Object instance) {
+        Mono<Void> hook = disposeHook(descriptor, instance);
+        if (hook == null) {
+            return;
+        }
+        hook.subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, error -> LOGGER.warn("[serviceRef={}] Failed to dispose a dropped instance",
+                        descriptor.getServiceReference(), error));
+    }
+
+    private static @Nullable Mono<Void> disposeHook(ServiceDescriptor descriptor, Object instance) {
+        List<DisposeMethod> disposeMethods = descriptor.getDisposeMethods();
+        if (!disposeMethods.isEmpty()) {
+            return Flux.fromIterable(disposeMethods)
+                    .concatMap(disposeMethod -> disposeMethod.invoke(instance))
+                    .then();
+        }
+        if (instance instanceof AutoCloseable) {
+            return Mono.fromCallable(() -> {
+                ((AutoCloseable) instance).close();
+                return true;
+            }).then();
+        }
+        if (instance instanceof Disposable) {
+            return Mono.fromRunnable(((Disposable) instance)::dispose);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceReference;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Services that have already been resolved elsewhere, typically by a parent container, and that the services being
+ * resolved may depend on. A reference that is not found among the descriptors being resolved is looked up here before
+ * being considered missing.
+ *
+ * @see DependencyResolver#resolveServices(java.util.Set, TypeIndex, ServiceLookup)
+ */
+public interface ServiceLookup {
+
+    /**
+     * A lookup that never finds any service.
+     */
+    ServiceLookup NONE = new ServiceLookup() {
+        @Override
+        public @Nullable ResolvedService find(ServiceReference<?> ref) {
+            return null;
+        }
+
+        @Override
+        public List<ServiceReference<?>> findReferencesOfType(Class<?> type) {
+            return Collections.emptyList();
+        }
+    };
+
+    /**
+     * Finds the resolved service for the given reference.
+     *
+     * @param ref the reference of the service, which may be an alias
+     * @return the resolved service, or null if not found
+     */
+    @Nullable ResolvedService find(ServiceReference<?> ref);
+
+    /**
+     * Finds the references of all services assignable to the given type, in the same order as
+     * {@link TypeIndex#getReferences(Class)}.
+     *
+     * @param type the type
+     * @return the references of the matching services, empty if none
+     */
+    List<ServiceReference<?>> findReferencesOfType(Class<?> type);
+}
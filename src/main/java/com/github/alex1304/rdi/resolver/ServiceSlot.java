@@ -0,0 +1,120 @@
+package com.github.alex1304.rdi.resolver;
+
+import org.jspecify.annotations.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * State of a service specific to one instantiation of a plan: its statistics, its cached singleton and what is needed
+ * to create that singleton only once.
+ */
+class ServiceSlot {
+
+    private final ServiceStatistics statistics = new ServiceStatistics();
+    private final SingletonHolder singletonHolder;
+    private final AtomicBoolean lock = new AtomicBoolean();
+    private final Sinks.Many<Long> lockNotifier = Sinks.many().replay().latestOrDefault(0L);
+    private final ResolvedService resolvedService;
+    private volatile @Nullable Throwable instantiationError;
+    private volatile @Nullable PendingSingleton pendingSingleton;
+
+    ServiceSlot(ResolutionContext rctx, ServiceSlots slots) {
+        this.singletonHolder = SingletonHolder.create(rctx.getDescriptor(), statistics);
+        this.resolvedService = new ResolvedService(rctx, this, slots);
+    }
+
+    ServiceStatistics getStatistics() {
+        return statistics;
+    }
+
+    SingletonHolder getSingletonHolder() {
+        return singletonHolder;
+    }
+
+    /*
+     * A new singleton is only visible to the request that created it until its setters and init methods have run.
+     */
+    @Nullable Object getSingleton(Object request) {
+        PendingSingleton pending = pendingSingleton;
+        if (pending != null) {
+            return pending.request == request ? pending.instance : null;
+        }
+        return singletonHolder.get();
+    }
+
+    boolean hasPendingSingleton() {
+        return pendingSingleton != null;
+    }
+
+    /*
+     * Returns null if there is no singleton pending, or if it was created by the given request.
+     */
+    @Nullable Mono<Void> awaitPendingSingleton(Object request) {
+        PendingSingleton pending = pendingSingleton;
+        return pending != null && pending.request != request ? pending.done.asMono() : null;
+    }
+
+    synchronized void setPendingSingleton(Object request, Object instance) {
+        pendingSingleton = new PendingSingleton(request, instance);
+    }
+
+    synchronized void publishSingleton(Object instance) {
+        PendingSingleton pending = pendingSingleton;
+        if (pending != null && pending.instance == instance) {
+            singletonHolder.set(instance);
+            pendingSingleton = null;
+            pending.done.tryEmitEmpty();
+        }
+    }
+
+    synchronized void failPendingSingleton(Object instance, Throwable error) {
+        PendingSingleton pending = pendingSingleton;
+        if (pending != null && pending.instance == instance) {
+            instantiationError = error;
+            pendingSingleton = null;
+            pending.done.tryEmitEmpty();
+        }
+    }
+
+    synchronized void discardPendingSingleton(Object instance) {
+        PendingSingleton pending = pendingSingleton;
+        if (pending != null && pending.instance == instance) {
+            pendingSingleton = null;
+            pending.done.tryEmitEmpty();
+        }
+    }
+
+    AtomicBoolean getLock() {
+        return lock;
+    }
+
+    Sinks.Many<Long> getLockNotifier() {
+        return lockNotifier;
+    }
+
+    @Nullable Throwable getInstantiationError() {
+        return instantiationError;
+    }
+
+    void setInstantiationError(Throwable instantiationError) {
+        this.instantiationError = instantiationError;
+    }
+
+    ResolvedService getResolvedService() {
+        return resolvedService;
+    }
+
+    private static class PendingSingleton {
+
+        private final Object request;
+        private final Object instance;
+        private final Sinks.Empty<Void> done = Sinks.empty();
+
+        private PendingSingleton(Object request, Object instance) {
+            this.request = request;
+            this.instance = instance;
+        }
+    }
+}
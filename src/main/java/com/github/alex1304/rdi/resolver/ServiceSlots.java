@@ -0,0 +1,26 @@
+package com.github.alex1304.rdi.resolver;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * The slots of all services of a plan for one instantiation of it. A slot is only created when its service is first
+ * used, so that instantiating a plan costs a single array allocation.
+ */
+class ServiceSlots {
+
+    private final AtomicReferenceArray<ServiceSlot> slots;
+
+    ServiceSlots(int size) {
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    ServiceSlot get(ResolutionContext rctx) {
+        int index = rctx.getIndex();
+        ServiceSlot slot = slots.get(index);
+        if (slot != null) {
+            return slot;
+        }
+        slot = new ServiceSlot(rctx, this);
+        return slots.compareAndSet(index, null, slot) ? slot : slots.get(index);
+    }
+}
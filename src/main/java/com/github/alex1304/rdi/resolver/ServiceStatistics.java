@@ -0,0 +1,180 @@
+package com.github.alex1304.rdi.resolver;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live counters describing how the instances of a service have been obtained since the container was created. The
+ * values are updated as the container is used, so two successive calls to the same getter may return different values.
+ */
+public final class ServiceStatistics {
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicReference<@Nullable Instant> firstRequestTime = new AtomicReference<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong buildCount = new AtomicLong();
+    private final AtomicLong totalBuildNanos = new AtomicLong();
+    private final AtomicLong setterCount = new AtomicLong();
+    private final AtomicLong totalSetterNanos = new AtomicLong();
+    private final AtomicLong rebuildCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    ServiceStatistics() {
+    }
+
+    /**
+     * Gets the number of times the service was requested, either directly or as a dependency of another service.
+     * Requests made by the warm-up of the container are not counted.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the time at which the service was requested for the first time, either directly or as a dependency of
+     * another service. Requests made by the warm-up of the container are not taken into account.
+     *
+     * @return the time of the first request, empty if the service hasn't been requested yet
+     */
+    public Optional<Instant> getFirstRequestTime() {
+        return Optional.ofNullable(firstRequestTime.get());
+    }
+
+    /**
+     * Gets the number of times the cached singleton instance was returned instead of creating a new one. Always zero
+     * for services that aren't configured as singleton.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of times the factory method of the service has successfully created a new instance.
+     *
+     * @return the build count
+     */
+    public long getBuildCount() {
+        return buildCount.get();
+    }
+
+    /**
+     * Gets the average time the factory method of the service took to create an instance, measured from the moment
+     * all its dependencies were available until the instance was emitted. Setters are not included.
+     *
+     * @return the average build duration, or {@link Duration#ZERO} if no instance has been created yet
+     */
+    public Duration getAverageBuildDuration() {
+        // Read the total first: a concurrent build may increment the count in between, which only underestimates
+        long total = totalBuildNanos.get();
+        long count = buildCount.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(total / count);
+    }
+
+    /**
+     * Gets the average time the setters of the service took to be invoked on a new instance, once all their
+     * dependencies were available.
+     *
+     * @return the average setter duration, or {@link Duration#ZERO} if setters haven't been invoked yet
+     */
+    public Duration getAverageSetterDuration() {
+        long total = totalSetterNanos.get();
+        long count = setterCount.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(total / count);
+    }
+
+    /**
+     * Gets the number of times a singleton instance had to be created again because the previously cached instance
+     * was released.
+     *
+     * @return the rebuild count
+     */
+    public long getRebuildCount() {
+        return rebuildCount.get();
+    }
+
+    /**
+     * Gets the number of times the cached singleton instance was released, either by the garbage collector or
+     * because it has been idle for too long.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets the number of times a singleton instance that outlived its time to live was successfully replaced by a new
+     * one built in background.
+     *
+     * @return the refresh count
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Gets the number of times a background refresh of the singleton instance failed, in which case the previous
+     * instance was kept.
+     *
+     * @return the refresh failure count
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    void recordRequest() {
+        if (requestCount.getAndIncrement() == 0) {
+            firstRequestTime.compareAndSet(null, Instant.now());
+        }
+    }
+
+    void recordSetters(long durationNanos) {
+        totalSetterNanos.addAndGet(durationNanos);
+        setterCount.incrementAndGet();
+    }
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordBuild(long durationNanos) {
+        totalBuildNanos.addAndGet(durationNanos);
+        buildCount.incrementAndGet();
+    }
+
+    void recordRebuild() {
+        rebuildCount.incrementAndGet();
+    }
+
+    void recordEviction() {
+        evictionCount.incrementAndGet();
+    }
+
+    void recordRefresh() {
+        refreshCount.incrementAndGet();
+    }
+
+    void recordRefreshFailure() {
+        refreshFailureCount.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceStatistics{requestCount=" + requestCount + ", firstRequestTime=" + firstRequestTime
+                + ", hitCount=" + hitCount + ", buildCount=" + buildCount + ", averageBuildDuration="
+                + getAverageBuildDuration() + ", averageSetterDuration=" + getAverageSetterDuration()
+                + ", rebuildCount=" + rebuildCount + ", evictionCount=" + evictionCount + ", refreshCount="
+                + refreshCount + ", refreshFailureCount=" + refreshFailureCount + "}";
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import org.jspecify.annotations.Nullable;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+abstract class SingletonHolder {
+
+    private final ServiceDescriptor descriptor;
+    private final ServiceStatistics statistics;
+    private final long idleTimeoutNanos;
+    private final long timeToLiveNanos;
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Disposable.Swap eviction = Disposables.swap();
+    private final Disposable.Swap refresh = Disposables.swap();
+    private volatile long lastAccess;
+    private volatile long lastSet;
+    private volatile boolean hasBeenSet;
+
+    private SingletonHolder(ServiceStatistics statistics, ServiceDescriptor descriptor) {
+        this.descriptor = descriptor;
+        this.statistics = statistics;
+        this.idleTimeoutNanos = descriptor.getIdleTimeout().map(Duration::toNanos).orElse(0L);
+        this.timeToLiveNanos = descriptor.getTimeToLive().map(Duration::toNanos).orElse(0L);
+    }
+
+    static SingletonHolder create(ServiceDescriptor descriptor, ServiceStatistics statistics) {
+        switch (descriptor.getSingletonRetention()) {
+            case STRONG:
+                return new Strong(statistics, descriptor);
+            case SOFT:
+                return new Referenced(statistics, descriptor, SoftReference::new);
+            case WEAK:
+                return new Referenced(statistics, descriptor, WeakReference::new);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    final @Nullable Object get() {
+        if (idleTimeoutNanos > 0) {
+            lastAccess = now();
+        }
+        return doGet();
+    }
+
+    /*
+     * Gets the current instance without counting it as an access.
+     */
+    final @Nullable Object peek() {
+        return doGet();
+    }
+
+    /*
+     * Only called once the instance has been disposed.
+     */
+    final void release() {
+        doClear();
+    }
+
+    final void set(Object instance) {
+        if (hasBeenSet) {
+            statistics.recordRebuild();
+        }
+        hasBeenSet = true;
+        store(instance);
+    }
+
+    /**
+     * Checks whether the current instance has outlived its time to live, and if so, marks the holder as refreshing.
+     * Only one caller may obtain true until {@link #refreshed(Object)} or {@link #refreshFailed()} is called.
+     *
+     * @return true if the caller is in charge of refreshing the instance
+     */
+    final boolean tryStartRefresh() {
+        return timeToLiveNanos > 0
+                && now() - lastSet >= timeToLiveNanos
+                && refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * Keeps track of the refresh started after {@link #tryStartRefresh()} returned true, so that it can be cancelled.
+     *
+     * @param subscription the subscription of the refresh
+     */
+    final void trackRefresh(Disposable subscription) {
+        refresh.replace(subscription);
+    }
+
+    /**
+     * Cancels the scheduled eviction and the refresh in progress, if any. Evictions and refreshes requested afterwards
+     * are cancelled right away, so this is only called when the container is disposed.
+     */
+    final void cancelTasks() {
+        eviction.dispose();
+        refresh.dispose();
+    }
+
+    /*
+     * The replaced instance is disposed once the new one is served, requests that obtained it before may still be
+     * using it.
+     */
+    final void refreshed(Object instance) {
+        Object replaced = doGet();
+        statistics.recordRefresh();
+        store(instance);
+        refreshing.set(false);
+        if (replaced != null && replaced != instance) {
+            ServiceDisposer.disposeInBackground(descriptor, replaced);
+        }
+    }
+
+    final void refreshFailed() {
+        statistics.recordRefreshFailure();
+        // Wait for another time to live period before trying again
+        lastSet = now();
+        refreshing.set(false);
+    }
+
+    private void store(Object instance) {
+        if (idleTimeoutNanos > 0 || timeToLiveNanos > 0) {
+            long now = now();
+            lastAccess = now;
+            lastSet = now;
+        }
+        doSet(instance);
+        if (idleTimeoutNanos > 0 && evictionScheduled.compareAndSet(false, true)) {
+            scheduleEviction(idleTimeoutNanos);
+        }
+    }
+
+    /*
+     * Measured with the clock of the scheduler running the evictions rather than System.nanoTime(), so that the idle
+     * time of an instance agrees with the delays scheduled to evict it, including when the scheduler's time is virtual.
+     * Only read for services having an idle timeout or a time to live, the others don't need the scheduler.
+     */
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+    }
+
+    ServiceStatistics getStatistics() {
+        return statistics;
+    }
+
+    abstract @Nullable Object doGet();
+
+    abstract void doSet(Object instance);
+
+    abstract void doClear();
+
+    private void scheduleEviction(long delayNanos) {
+        // The previous task is the one calling this method, if any, so it is replaced without being disposed
+        eviction.replace(Schedulers.parallel().schedule(this::evictIfIdle, delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private void evictIfIdle() {
+        long idleNanos = now() - lastAccess;
+        if (idleNanos < idleTimeoutNanos) {
+            scheduleEviction(idleTimeoutNanos - idleNanos);
+            return;
+        }
+        Object evicted = doGet();
+        if (evicted != null) {
+            doClear();
+            statistics.recordEviction();
+            ServiceDisposer.disposeInBackground(descriptor, evicted);
+        }
+        evictionScheduled.set(false);
+        // An instance may have been set while this task was ending
+        if (doGet() != null && evictionScheduled.compareAndSet(false, true)) {
+            scheduleEviction(idleTimeoutNanos);
+        }
+    }
+
+    private static class Strong extends SingletonHolder {
+
+        private volatile @Nullable Object instance;
+
+        private Strong(ServiceStatistics statistics, ServiceDescriptor descriptor) {
+            super(statistics, descriptor);
+        }
+
+        @Override
+        @Nullable Object doGet() {
+            return instance;
+        }
+
+        @Override
+        void doSet(Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        void doClear() {
+            this.instance = null;
+        }
+    }
+
+    private static class Referenced extends SingletonHolder {
+
+        private final AtomicReference<@Nullable Reference<Object>> reference = new AtomicReference<>();
+        private final Function<Object, Reference<Object>> referenceFactory;
+
+        private Referenced(ServiceStatistics statistics, ServiceDescriptor descriptor,
+                           Function<Object, Reference<Object>> referenceFactory) {
+            super(statistics, descriptor);
+            this.referenceFactory = referenceFactory;
+        }
+
+        @Override
+        @Nullable Object doGet() {
+            Reference<Object> ref = reference.get();
+            if (ref == null) {
+                return null;
+            }
+            Object instance = ref.get();
+            if (instance == null && reference.compareAndSet(ref, null)) {
+                // Cleared by the garbage collector
+                getStatistics().recordEviction();
+            }
+            return instance;
+        }
+
+        @Override
+        void doSet(Object instance) {
+            reference.set(referenceFactory.apply(instance));
+        }
+
+        @Override
+        void doClear() {
+            reference.set(null);
+        }
+    }
+}
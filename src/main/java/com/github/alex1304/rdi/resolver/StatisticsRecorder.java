@@ -0,0 +1,48 @@
+package com.github.alex1304.rdi.resolver;
+
+/**
+ * Records the statistics of a service whose instances aren't created by a {@link ResolutionPlan}, such as the services
+ * of a {@link com.github.alex1304.rdi.GeneratedServiceContainer}. It is meant to be used by the code creating the
+ * instances, applications only read the resulting {@link ServiceStatistics}.
+ */
+public final class StatisticsRecorder {
+
+    private final ServiceStatistics statistics = new ServiceStatistics();
+
+    /**
+     * Gets the statistics updated by this recorder.
+     *
+     * @return the live statistics of the service
+     */
+    public ServiceStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Records that the service was requested.
+     */
+    public void recordRequest() {
+        statistics.recordRequest();
+    }
+
+    /**
+     * Records that the cached singleton instance was returned instead of creating a new one.
+     */
+    public void recordHit() {
+        statistics.recordHit();
+    }
+
+    /**
+     * Records that the factory method of the service created a new instance.
+     *
+     * @param durationNanos the time the factory method took, in nanoseconds
+     */
+    public void recordBuild(long durationNanos) {
+        statistics.recordBuild(durationNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "StatisticsRecorder{statistics=" + statistics + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.alex1304.rdi.resolver;
+
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of services by type. Each class and interface that is a supertype of at least one registered service is
+ * mapped to the references of the services assignable to it, so that looking up all services of a given type does not
+ * require scanning the whole configuration.
+ *
+ * <p>
+ * For each matching service, the index holds a single reference: the main reference of the service if its class is
+ * assignable to the type, otherwise the first alias that is. References are sorted by descending priority of the
+ * services, then by name.
+ *
+ * <p>
+ * The index is only built the first time it is queried, as it requires the classes of all services to be loaded.
+ *
+ * @see TypeIndex#of(Collection)
+ */
+public final class TypeIndex {
+
+    private static final ServiceReference<?>[] EMPTY = new ServiceReference<?>[0];
+
+    private final List<ServiceDescriptor> serviceDescriptors;
+    private volatile @Nullable Map<Class<?>, ServiceReference<?>[]> referencesByType;
+
+    private TypeIndex(List<ServiceDescriptor> serviceDescriptors) {
+        this.serviceDescriptors = serviceDescriptors;
+    }
+
+    /**
+     * Builds the type index for the given service descriptors.
+     *
+     * @param serviceDescriptors the service descriptors to index
+     * @return a new {@link TypeIndex}
+     */
+    public static TypeIndex of(Collection<ServiceDescriptor> serviceDescriptors) {
+        return new TypeIndex(serviceDescriptors.stream()
+                .sorted(order())
+                .collect(Collectors.toList()));
+    }
+
+    private Map<Class<?>, ServiceReference<?>[]> referencesByType() {
+        Map<Class<?>, ServiceReference<?>[]> referencesByType = this.referencesByType;
+        if (referencesByType == null) {
+            synchronized (this) {
+                referencesByType = this.referencesByType;
+                if (referencesByType == null) {
+                    this.referencesByType = referencesByType = build(serviceDescriptors);
+                }
+            }
+        }
+        return referencesByType;
+    }
+
+    private static Map<Class<?>, ServiceReference<?>[]> build(List<ServiceDescriptor> sorted) {
+        Map<Class<?>, Set<ServiceReference<?>>> builder = new HashMap<>();
+        for (ServiceDescriptor descriptor : sorted) {
+            Set<Class<?>> indexedTypes = new HashSet<>();
+            Stream.concat(Stream.of(descriptor.getServiceReference()), descriptor.getAliases().stream())
+                    .forEach(ref -> forEachSupertype(ref.getServiceClass(), type -> {
+                        // A service is indexed only once per type, via the first of its references matching it
+                        if (indexedTypes.add(type)) {
+                            builder.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(ref);
+                        }
+                    }));
+        }
+        // Classes of the same hierarchy are often mapped to the same services, so identical arrays are shared
+        Map<Set<ServiceReference<?>>, ServiceReference<?>[]> canonicalArrays = new HashMap<>();
+        Map<Class<?>, ServiceReference<?>[]> referencesByType = new HashMap<>();
+        builder.forEach((type, refs) -> referencesByType.put(type,
+                canonicalArrays.computeIfAbsent(refs, k -> k.toArray(EMPTY))));
+        return referencesByType;
+    }
+
+    /**
+     * Gets the order in which the services are listed by the index: by descending priority, then by name.
+     *
+     * @return a comparator of service descriptors
+     */
+    public static Comparator<ServiceDescriptor> order() {
+        return Comparator.comparingInt(ServiceDescriptor::getPriority)
+                .reversed()
+                .thenComparing(descriptor -> descriptor.getServiceReference().getServiceName());
+    }
+
+    private static void forEachSupertype(Class<?> type, Consumer<Class<?>> action) {
+        Deque<Class<?>> toVisit = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        toVisit.add(type);
+        while (!toVisit.isEmpty()) {
+            Class<?> current = toVisit.remove();
+            if (!visited.add(current)) {
+                continue;
+            }
+            action.accept(current);
+            if (current.getSuperclass() != null) {
+                toVisit.add(current.getSuperclass());
+            }
+            toVisit.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        if (type.isInterface()) {
+            // Interfaces don't have Object as superclass, but services implementing them are still objects
+            action.accept(Object.class);
+        }
+    }
+
+    /**
+     * Gets the references of all services assignable to the given type.
+     *
+     * @param type the type
+     * @return the references of the matching services, empty if none
+     */
+    public List<ServiceReference<?>> getReferences(Class<?> type) {
+        return Collections.unmodifiableList(Arrays.asList(referencesByType().getOrDefault(type, EMPTY)));
+    }
+
+    /**
+     * Checks whether at least one service is assignable to the given type.
+     *
+     * @param type the type
+     * @return true if there is at least one matching service, else false
+     */
+    public boolean contains(Class<?> type) {
+        return referencesByType().containsKey(type);
+    }
+
+    @Override
+    public String toString() {
+        Map<Class<?>, ServiceReference<?>[]> referencesByType = this.referencesByType;
+        return "TypeIndex{types=" + (referencesByType != null ? referencesByType.size() : "not built yet") + "}";
+    }
+}
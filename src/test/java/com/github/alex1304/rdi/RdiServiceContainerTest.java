@@ -1,17 +1,47 @@
 package com.github.alex1304.rdi;
 
+import com.github.alex1304.rdi.config.AccessorStrategy;
+import com.github.alex1304.rdi.config.FactoryMethod;
+import com.github.alex1304.rdi.config.Injectable;
 import com.github.alex1304.rdi.config.RdiConfig;
 import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.SingletonRetention;
+import com.github.alex1304.rdi.resolver.ResolutionPlan;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
 import reactor.core.publisher.Hooks;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import static com.github.alex1304.rdi.config.FactoryMethod.constructor;
 import static com.github.alex1304.rdi.config.FactoryMethod.staticFactory;
+import static com.github.alex1304.rdi.config.Injectable.listOf;
+import static com.github.alex1304.rdi.config.Injectable.mono;
+import static com.github.alex1304.rdi.config.Injectable.provider;
 import static com.github.alex1304.rdi.config.Injectable.ref;
+import static com.github.alex1304.rdi.config.Injectable.setOf;
 import static com.github.alex1304.rdi.config.Injectable.value;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,9 +51,37 @@ class RdiServiceContainerTest {
     private static final ServiceReference<B> B = ServiceReference.of("B", B.class);
     private static final ServiceReference<C> C = ServiceReference.of("C", C.class);
     private static final ServiceReference<D> D = ServiceReference.of("D", D.class);
+    private static final ServiceReference<E> E = ServiceReference.of("E", E.class);
+    private static final ServiceReference<F> F = ServiceReference.of("F", F.class);
+    private static final ServiceReference<PluginHost> HOST = ServiceReference.ofType(PluginHost.class);
+    private static final ServiceReference<Plugin> P1 = ServiceReference.of("P1", Plugin.class);
+    private static final ServiceReference<Plugin> P2 = ServiceReference.of("P2", Plugin.class);
+    private static final ServiceReference<G> G1 = ServiceReference.of("G1", G.class);
+    private static final ServiceReference<G> G2 = ServiceReference.of("G2", G.class);
+    private static final ServiceReference<G> G3 = ServiceReference.of("G3", G.class);
+    private static final ServiceReference<H> H = ServiceReference.of("H", H.class);
+    private static final ServiceReference<HDependent> H_DEPENDENT = ServiceReference.of("H_DEPENDENT",
+            HDependent.class);
+    private static final ServiceReference<I> I = ServiceReference.ofType(I.class);
+    private static final ServiceReference<K1> K1 = ServiceReference.ofType(K1.class);
+    private static final ServiceReference<K2> K2 = ServiceReference.ofType(K2.class);
+    private static final ServiceReference<K3> K3 = ServiceReference.ofType(K3.class);
+    private static final ServiceReference<K4> K4 = ServiceReference.ofType(K4.class);
+    private static final ServiceReference<K4> K4_HANGING = ServiceReference.of("K4_HANGING", K4.class);
+    private static final ServiceReference<L> L = ServiceReference.ofType(L.class);
+    private static final ServiceReference<M> M = ServiceReference.ofType(M.class);
+    private static final ServiceReference<N> N = ServiceReference.ofType(N.class);
+    private static final ServiceReference<O> O = ServiceReference.ofType(O.class);
+    private static final ServiceReference<B> B_PROTOTYPE = ServiceReference.of("B_PROTOTYPE", B.class);
+    private static final ServiceReference<A> A_ALIAS = ServiceReference.of("A_ALIAS", A.class);
+    private static final int Q_COUNT = 8;
     private static RdiConfig conf1, conf2, conf3, conf4, conf5, conf6,
-            conf7, conf8, conf9, conf10, conf11, conf12, conf13;
+            conf7, conf8, conf9, conf10, conf11, conf12, conf13, conf14, conf16, conf17,
+            conf18, conf19, conf20, conf21, conf22, conf23, conf24, conf24Child, conf25;
     private static int D_INSTANCE_COUNT = 0;
+    private static final List<String> K_DISPOSAL_ORDER = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> N_CREATION_ORDER = Collections.synchronizedList(new ArrayList<>());
+    private static final List<String> G_CREATION_ORDER = Collections.synchronizedList(new ArrayList<>());
 
     @BeforeAll
     static void setUpBeforeClass() {
@@ -111,6 +169,136 @@ class RdiServiceContainerTest {
                         .build())
                 .registerService(ServiceDescriptor.standalone(D))
                 .build();
+        conf14 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(A)
+                        .setIdleTimeout(Duration.ofMillis(100))
+                        .addSetterMethod("setB", ref(B))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B))
+                .build();
+        conf16 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(A)
+                        .addAlias(A_ALIAS)
+                        .build())
+                .registerService(ServiceDescriptor.builder(B)
+                        .addSetterMethod("setA", ref(A_ALIAS))
+                        .build())
+                .build();
+        conf17 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .addSetterMethod("setPluginSet", setOf(Plugin.class))
+                        .build())
+                .registerService(ServiceDescriptor.builder(P1)
+                        .setConcreteType(P.class)
+                        .build())
+                .registerService(ServiceDescriptor.builder(P2)
+                        .setConcreteType(P.class)
+                        .setPriority(10)
+                        .build())
+                .build();
+        conf18 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(A)
+                        .setFactoryMethod(constructor(ref(B)))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B))
+                .registerService(ServiceDescriptor.standalone(F))
+                .registerService(ServiceDescriptor.standalone(B_PROTOTYPE, false))
+                .build();
+        conf19 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(G1)
+                        .setFactoryMethod(constructor(value("G1", String.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(G2)
+                        .setFactoryMethod(constructor(value("G2", String.class)))
+                        .setEstimatedBuildDuration(Duration.ofMillis(50))
+                        .build())
+                .registerService(ServiceDescriptor.builder(G3)
+                        .setFactoryMethod(constructor(value("G3", String.class), ref(G2)))
+                        .build())
+                .build();
+        conf20 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(H)
+                        .addSetterMethod("setB", ref(B))
+                        .addInitMethod("init")
+                        .build())
+                .registerService(ServiceDescriptor.builder(H_DEPENDENT)
+                        .setFactoryMethod(constructor(ref(H)))
+                        .addInitMethod("init")
+                        .build())
+                .registerService(ServiceDescriptor.builder(B)
+                        .addSetterMethod("setA", ref(A))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(A))
+                .build();
+        conf21 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.standalone(K1))
+                .registerService(ServiceDescriptor.builder(K2)
+                        .setFactoryMethod(constructor(ref(K1)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(K3)
+                        .setFactoryMethod(constructor(ref(K2)))
+                        .addDisposeMethod("shutdown")
+                        .build())
+                .registerService(ServiceDescriptor.builder(K4)
+                        .addDisposeMethod("fail")
+                        .build())
+                .registerService(ServiceDescriptor.builder(K4_HANGING)
+                        .addDisposeMethod("hang")
+                        .build())
+                .build();
+        conf22 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(L)
+                        .setFactoryMethod(constructor(provider(M)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(M)
+                        .setSingleton(false)
+                        .setFactoryMethod(constructor(ref(L)))
+                        .build())
+                .build();
+        conf24 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(P1)
+                        .setConcreteType(P.class)
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B))
+                .build();
+        conf24Child = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(P2)
+                        .setConcreteType(P.class)
+                        .setPriority(10)
+                        .build())
+                .registerService(ServiceDescriptor.builder(A)
+                        .setFactoryMethod(constructor(ref(B)))
+                        .build())
+                .build();
+        conf23 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(N)
+                        .setFactoryMethod(staticFactory("create", Mono.class, mono(O)))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(O))
+                .build();
+        conf25 = pluginsWithSettersAndInit();
+    }
+
+    private static RdiConfig pluginsWithSettersAndInit() {
+        RdiConfig.Builder builder = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .addSetterMethod("setPluginSet", setOf(Plugin.class))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B));
+        for (int i = 0; i < Q_COUNT; i++) {
+            builder.registerService(ServiceDescriptor.builder(ServiceReference.of("Q" + i, Plugin.class))
+                    .setConcreteType(Q.class)
+                    .setFactoryMethod(staticFactory("create", Mono.class, value(i)))
+                    .addSetterMethod("setB", ref(B))
+                    .addInitMethod("init")
+                    .build());
+        }
+        return builder.build();
     }
 
     private static void logExpectedException(Logger logger, Throwable t) {
@@ -264,6 +452,744 @@ class RdiServiceContainerTest {
         });
     }
 
+    @Test
+    void testIdleSingletonIsRebuiltWithSetters() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        try {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf14);
+            A a1 = cont.getService(A).block();
+            assertNotNull(a1);
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertSame(a1, cont.getService(A).block());
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertSame(a1, cont.getService(A).block()); // Accessed less than 100ms ago
+            scheduler.advanceTimeBy(Duration.ofMillis(100));
+            A a2 = cont.getService(A).block();
+            assertNotNull(a2);
+            assertNotSame(a1, a2); // The first instance was released after being idle for too long
+            assertNotNull(a2.b);
+            assertSame(a1.b, a2.b); // Setters are invoked again on the new instance, B being still cached
+            ServiceStatistics stats = cont.getStatistics(A);
+            assertEquals(2, stats.getHitCount());
+            assertEquals(2, stats.getBuildCount());
+            assertEquals(1, stats.getRebuildCount());
+            assertEquals(1, stats.getEvictionCount());
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    @Test
+    void testFactoryMethodIsInvokedUponSubscription() {
+        AtomicInteger instanceCount = new AtomicInteger();
+        FactoryMethod factoryMethod = ServiceDescriptor.builder(E)
+                .setFactoryMethod(constructor(value(instanceCount, AtomicInteger.class)))
+                .build()
+                .getFactoryMethod();
+        Mono<Object> instance = factoryMethod.invoke();
+        assertEquals(0, instanceCount.get());
+        assertNotSame(instance.block(), instance.block());
+        assertEquals(2, instanceCount.get());
+        factoryMethod.invokeEagerly();
+        assertEquals(3, instanceCount.get());
+    }
+
+    @Test
+    void testIdleEvictionDisposesInstance() {
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(E)
+                        .setFactoryMethod(constructor(value(new AtomicInteger(), AtomicInteger.class)))
+                        .setIdleTimeout(Duration.ofMillis(100))
+                        .addDisposeMethod("close")
+                        .build())
+                .build();
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        try {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf);
+            E e1 = cont.getService(E).block();
+            assertNotNull(e1);
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertFalse(e1.closed);
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertTrue(e1.closed);
+            E e2 = cont.getService(E).block();
+            assertNotNull(e2);
+            assertNotSame(e1, e2);
+            assertFalse(e2.closed);
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    @Test
+    void testErrorDisposeMethodsWithoutStrongRetention() {
+        assertThrows(IllegalArgumentException.class, () -> ServiceDescriptor.builder(E)
+                .setFactoryMethod(constructor(value(new AtomicInteger(), AtomicInteger.class)))
+                .setSingletonRetention(SingletonRetention.WEAK)
+                .addDisposeMethod("close")
+                .build());
+        // Prototypes aren't retained at all
+        assertDoesNotThrow(() -> ServiceDescriptor.builder(E)
+                .setFactoryMethod(constructor(value(new AtomicInteger(), AtomicInteger.class)))
+                .setSingletonRetention(SingletonRetention.SOFT)
+                .setSingleton(false)
+                .addDisposeMethod("close")
+                .build());
+    }
+
+    @Test
+    void testStaleSingletonIsRefreshedInBackground() {
+        AtomicInteger instanceCount = new AtomicInteger();
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(E)
+                        .setFactoryMethod(constructor(value(instanceCount, AtomicInteger.class)))
+                        .setTimeToLive(Duration.ofMillis(100))
+                        .build())
+                .build();
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        try {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf);
+            E e1 = cont.getService(E).block();
+            assertNotNull(e1);
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertSame(e1, cont.getService(E).block()); // Still fresh
+            ServiceStatistics stats = cont.getStatistics(E);
+            assertEquals(0, stats.getRefreshCount());
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertSame(e1, cont.getService(E).block()); // Stale instance is served while refreshing
+            scheduler.advanceTime();
+            assertEquals(1, stats.getRefreshCount());
+            assertEquals(2, instanceCount.get());
+            E e2 = cont.getService(E).block();
+            assertNotNull(e2);
+            assertNotSame(e1, e2);
+            scheduler.advanceTimeBy(Duration.ofMillis(100));
+            instanceCount.set(-1); // Makes the next instantiation fail
+            assertSame(e2, cont.getService(E).block());
+            scheduler.advanceTime();
+            assertEquals(1, stats.getRefreshFailureCount());
+            assertSame(e2, cont.getService(E).block()); // Failed refresh keeps the current instance
+            assertEquals(6, stats.getRequestCount()); // Refreshes are not counted as requests
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    @Test
+    void testRefreshDisposesReplacedInstance() {
+        AtomicInteger instanceCount = new AtomicInteger();
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(E)
+                        .setFactoryMethod(constructor(value(instanceCount, AtomicInteger.class)))
+                        .setTimeToLive(Duration.ofMillis(100))
+                        .addDisposeMethod("close")
+                        .build())
+                .build();
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        try {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf);
+            E e1 = cont.getService(E).block();
+            assertNotNull(e1);
+            scheduler.advanceTimeBy(Duration.ofMillis(100));
+            assertSame(e1, cont.getService(E).block()); // Stale instance is served while refreshing
+            scheduler.advanceTime();
+            E e2 = cont.getService(E).block();
+            assertNotNull(e2);
+            assertNotSame(e1, e2);
+            assertTrue(e1.closed);
+            assertFalse(e2.closed);
+            cont.dispose().block();
+            assertTrue(e2.closed);
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    @Test
+    void testDisposeCancelsRefreshInProgress() {
+        AtomicInteger instanceCount = new AtomicInteger();
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(E)
+                        .setFactoryMethod(staticFactory("createLater", Mono.class,
+                                value(instanceCount, AtomicInteger.class)))
+                        .setTimeToLive(Duration.ofMillis(100))
+                        .build())
+                .build();
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+        try {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf);
+            CompletableFuture<E> first = cont.getService(E).toFuture();
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            E e1 = first.join();
+            scheduler.advanceTimeBy(Duration.ofMillis(100));
+            assertSame(e1, cont.getService(E).block()); // Starts a refresh taking 50ms
+            cont.dispose().block();
+            scheduler.advanceTimeBy(Duration.ofMillis(50));
+            assertEquals(1, instanceCount.get());
+            assertEquals(0, cont.getStatistics(E).getRefreshCount());
+        } finally {
+            VirtualTimeScheduler.reset();
+        }
+    }
+
+    @Test
+    void testAliasSharesInstance() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf16);
+        A a = cont.getService(A_ALIAS).block();
+        assertNotNull(a);
+        assertSame(a, cont.getService(A).block());
+        B b = cont.getService(B).block();
+        assertNotNull(b);
+        assertSame(a, b.a);
+        assertEquals(1, cont.getStatistics(A_ALIAS).getBuildCount());
+    }
+
+    @Test
+    void testErrorDuplicateAlias() {
+        RdiException e = assertThrows(RdiException.class, () -> RdiConfig.builder()
+                .registerService(ServiceDescriptor.standalone(A))
+                .registerService(ServiceDescriptor.builder(B)
+                        .addAlias(ServiceReference.of("A", B.class))
+                        .build()));
+        logExpectedException(Loggers.getLogger("testErrorDuplicateAlias"), e);
+    }
+
+    @Test
+    void testInjectAllServicesOfType() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf17);
+        PluginHost host = cont.getService(HOST).block();
+        assertNotNull(host);
+        Plugin p1 = cont.getService(P1).block();
+        Plugin p2 = cont.getService(P2).block();
+        assertEquals(2, host.plugins.size());
+        assertSame(p2, host.plugins.get(0)); // P2 has a higher priority
+        assertSame(p1, host.plugins.get(1));
+        assertEquals(new ArrayList<>(host.plugins), new ArrayList<>(host.pluginSet));
+    }
+
+    @Test
+    void testCachedElementsAreInjectedOnCurrentThread() {
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setSingleton(false)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(P1)
+                        .setConcreteType(P.class)
+                        .build())
+                .registerService(ServiceDescriptor.builder(P2)
+                        .setConcreteType(P.class)
+                        .build())
+                .build());
+        // Created on this thread, so that their singleton locks are released by the time block() returns
+        Plugin p1 = cont.getService(P1).block();
+        Plugin p2 = cont.getService(P2).block();
+        PluginHost host = cont.getService(HOST).block();
+        assertNotNull(host);
+        assertEquals(Arrays.asList(p1, p2), host.plugins);
+        assertSame(Thread.currentThread(), host.creator); // No worker was needed for singletons already created
+    }
+
+    @Test
+    void testLookupServicesOfType() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf17);
+        assertEquals(Arrays.asList(P2, P1, HOST), cont.getServicesOfType(Plugin.class));
+        assertEquals(Collections.singletonList(HOST), cont.getServicesOfType(PluginHost.class));
+        assertTrue(cont.hasServiceOfType(Object.class));
+        assertFalse(cont.hasServiceOfType(A.class));
+        assertTrue(cont.getServicesOfType(A.class).isEmpty());
+    }
+
+    @Test
+    void testWarmUpInstantiatesSingletons() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf17);
+        cont.warmUp(descriptor -> descriptor.getServiceReference().equals(P1), 1).block();
+        assertEquals(1, cont.getStatistics(P1).getBuildCount());
+        assertEquals(0, cont.getStatistics(P2).getBuildCount());
+        assertEquals(0, cont.getStatistics(HOST).getBuildCount());
+        cont.warmUp().block();
+        assertEquals(1, cont.getStatistics(P1).getBuildCount());
+        assertEquals(1, cont.getStatistics(P2).getBuildCount());
+        assertEquals(1, cont.getStatistics(HOST).getBuildCount());
+        PluginHost host = cont.getService(HOST).block();
+        assertNotNull(host);
+        assertNotNull(host.pluginSet); // Setters were invoked during warm-up
+    }
+
+    @Test
+    void testWarmUpAggregatesFailures() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf18);
+        RdiException e = assertThrows(RdiException.class, () -> cont.warmUp().block());
+        logExpectedException(Loggers.getLogger("testWarmUpAggregatesFailures"), e);
+        // Operator debug mode may attach assembly traces as suppressed exceptions too
+        assertEquals(1, Arrays.stream(e.getSuppressed())
+                .filter(ServiceInstantiationException.class::isInstance)
+                .count());
+        // Other singletons are instantiated regardless of the failure, prototypes are left alone
+        assertEquals(1, cont.getStatistics(A).getBuildCount());
+        assertEquals(1, cont.getStatistics(B).getBuildCount());
+        assertEquals(0, cont.getStatistics(B_PROTOTYPE).getBuildCount());
+    }
+
+    @Test
+    void testWarmUpStartsCriticalPathFirst() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf19);
+        cont.warmUp(descriptor -> true, 1).block();
+        // G2 heads the longest chain because of its estimated duration, G1 then wins over G3 by name
+        assertEquals(Arrays.asList("G2", "G1", "G3"), G_CREATION_ORDER);
+        assertTrue(cont.getStatistics(G2).getAverageBuildDuration().compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    void testInitMethodsRunAfterSettersAndDependencies() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf20);
+        HDependent dependent = cont.getService(H_DEPENDENT).block();
+        assertNotNull(dependent);
+        assertTrue(dependent.h.initialized); // The reactive init of H completed before the one of its dependent
+        assertTrue(dependent.sawInitializedH);
+        assertSame(dependent, cont.getService(H_DEPENDENT).block());
+        assertEquals(1, dependent.h.initCount.get()); // Cached instances are not initialized again
+    }
+
+    @Test
+    void testSettersAndInitOfConcurrentElementsAreNotLost() {
+        for (int run = 0; run < 20; run++) {
+            RdiServiceContainer cont = RdiServiceContainer.create(conf25);
+            PluginHost host = cont.getService(HOST).block();
+            assertNotNull(host);
+            assertEquals(Q_COUNT, host.plugins.size());
+            assertEquals(new ArrayList<>(host.plugins), new ArrayList<>(host.pluginSet));
+            for (Plugin plugin : host.plugins) {
+                assertTrue(((Q) plugin).initialized); // The init method saw the setter of the same element
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentSubscriberWaitsForInitMethods() {
+        Sinks.Empty<Void> initGate = Sinks.empty();
+        RdiServiceContainer cont = RdiServiceContainer.create(initGateConfig(initGate.asMono()));
+        CompletableFuture<I> first = cont.getService(I).toFuture();
+        CompletableFuture<I> second = cont.getService(I).toFuture();
+        assertFalse(first.isDone());
+        assertFalse(second.isDone()); // The instance exists, but it isn't published until initialized
+        initGate.tryEmitEmpty();
+        I i = first.join();
+        assertTrue(i.initialized);
+        assertSame(i, second.join());
+        assertSame(i, cont.getService(I).block());
+        assertEquals(1, cont.getStatistics(I).getBuildCount());
+    }
+
+    @Test
+    void testFailedInitMethodIsCachedAsError() {
+        RdiServiceContainer cont = RdiServiceContainer.create(initGateConfig(
+                Mono.error(new IllegalStateException("Oops! Cannot initialize I!"))));
+        CompletableFuture<I> first = cont.getService(I).toFuture();
+        CompletableFuture<I> second = cont.getService(I).toFuture();
+        CompletionException e = assertThrows(CompletionException.class, first::join);
+        logExpectedException(Loggers.getLogger("testFailedInitMethodIsCachedAsError"), e.getCause());
+        assertThrows(CompletionException.class, second::join);
+        // The instance that failed to initialize is never served
+        assertThrows(ServiceInstantiationException.class, () -> cont.getService(I).block());
+        assertEquals(1, cont.getStatistics(I).getBuildCount());
+    }
+
+    private static RdiConfig initGateConfig(Mono<Void> initGate) {
+        return RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(I)
+                        .setFactoryMethod(constructor(value(initGate, Mono.class)))
+                        .addInitMethod("init")
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testErrorInitMethodNotFound() {
+        RdiException e = assertThrows(RdiException.class, () -> ServiceDescriptor.builder(A)
+                .addInitMethod("missing")
+                .build());
+        logExpectedException(Loggers.getLogger("testErrorInitMethodNotFound"), e);
+    }
+
+    @Test
+    void testDisposeInReverseDependencyOrder() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf21);
+        cont.warmUp().block();
+        RdiException e = assertThrows(RdiException.class, () -> cont.dispose(Duration.ofMillis(500)).block());
+        logExpectedException(Loggers.getLogger("testDisposeInReverseDependencyOrder"), e);
+        assertEquals(Arrays.asList("K3", "K2", "K1"), K_DISPOSAL_ORDER);
+        // K4 failed and K4_HANGING timed out
+        assertTrue(e.getMessage().endsWith("2 service(s): [K4_HANGING, " + K4 + "]"));
+        assertTrue(Arrays.stream(e.getSuppressed()).anyMatch(IllegalStateException.class::isInstance));
+        assertThrows(RdiException.class, () -> cont.getService(K1).block());
+        assertDoesNotThrow(() -> cont.dispose().block()); // Already disposed, does nothing
+        assertEquals(3, K_DISPOSAL_ORDER.size());
+    }
+
+    @Test
+    void testOptionalOperationsOfMinimalContainer() {
+        // Only implements what the interface required before the optional operations were added
+        RdiServiceContainer cont = new RdiServiceContainer() {
+            @Override
+            public <S> Mono<S> getService(ServiceReference<S> serviceRef) {
+                return Mono.empty();
+            }
+
+            @Override
+            public boolean hasService(ServiceReference<?> serviceRef) {
+                return false;
+            }
+        };
+        assertThrows(UnsupportedOperationException.class, () -> cont.getServicesOfType(A.class));
+        assertThrows(UnsupportedOperationException.class, () -> cont.hasServiceOfType(A.class));
+        assertThrows(UnsupportedOperationException.class, () -> cont.getStatistics(A));
+        assertThrows(UnsupportedOperationException.class, cont::warmUp);
+        assertThrows(UnsupportedOperationException.class, cont::dispose);
+        assertThrows(UnsupportedOperationException.class, () -> cont.createChild(conf1));
+        assertThrows(UnsupportedOperationException.class, () -> cont.updateServices(Collections.emptySet()));
+    }
+
+    @Test
+    void testProviderInstantiatesOnFirstUse() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf22);
+        L l = cont.getService(L).block();
+        assertNotNull(l);
+        assertEquals(M, l.m.getReference());
+        // The cycle L -> M -> L is allowed since M is only created when L asks for it
+        assertEquals(0, cont.getStatistics(M).getBuildCount());
+        M m = l.m.get().block();
+        assertNotNull(m);
+        assertSame(l, m.l);
+        assertSame(m, l.m.get().block());
+        assertEquals(1, cont.getStatistics(M).getBuildCount());
+    }
+
+    @Test
+    void testErrorProvidedServiceNotFound() {
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(L)
+                        .setFactoryMethod(constructor(provider(M)))
+                        .build())
+                .build();
+        RdiException e = assertThrows(RdiException.class, () -> RdiServiceContainer.create(conf));
+        logExpectedException(Loggers.getLogger("testErrorProvidedServiceNotFound"), e);
+    }
+
+    @Test
+    void testMonoInjectionStartsFactoryBeforeDependency() {
+        RdiServiceContainer cont = RdiServiceContainer.create(conf23);
+        N n = cont.getService(N).block();
+        assertNotNull(n);
+        assertSame(cont.getService(O).block(), n.o);
+        assertEquals(Arrays.asList("N", "O"), N_CREATION_ORDER);
+    }
+
+    @Test
+    void testErrorMonoInjectionCycle() {
+        RdiConfig conf = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(N)
+                        .setFactoryMethod(staticFactory("create", Mono.class, mono(O)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(O)
+                        .setFactoryMethod(constructor(ref(N)))
+                        .build())
+                .build();
+        RdiException e = assertThrows(RdiException.class, () -> RdiServiceContainer.create(conf));
+        logExpectedException(Loggers.getLogger("testErrorMonoInjectionCycle"), e);
+    }
+
+    @Test
+    void testErrorMonoInjectionInNonReactiveFactory() {
+        RdiException e = assertThrows(RdiException.class, () -> ServiceDescriptor.builder(O)
+                .setFactoryMethod(constructor(mono(N)))
+                .build());
+        logExpectedException(Loggers.getLogger("testErrorMonoInjectionInNonReactiveFactory"), e);
+    }
+
+    @Test
+    void testChildContainerSharesParentSingletons() {
+        RdiServiceContainer parent = RdiServiceContainer.create(conf24);
+        B b = parent.getService(B).block();
+        RdiServiceContainer child = parent.createChild(conf24Child);
+        RdiServiceContainer otherChild = parent.createChild(conf24Child);
+        A a = child.getService(A).block();
+        assertNotNull(a);
+        assertSame(b, a.b);
+        assertSame(b, otherChild.getService(A).block().b);
+        assertNotSame(a, otherChild.getService(A).block());
+        assertEquals(1, parent.getStatistics(B).getBuildCount());
+        PluginHost host = child.getService(HOST).block();
+        assertNotNull(host);
+        assertEquals(Arrays.asList(child.getService(P2).block(), parent.getService(P1).block()), host.plugins);
+        assertEquals(Arrays.asList(P2, P1, HOST), child.getServicesOfType(Plugin.class));
+        assertTrue(child.hasService(B));
+        assertFalse(parent.hasService(A));
+        assertThrows(RdiException.class, () -> parent.getService(A).block());
+    }
+
+    @Test
+    void testUpdateServicesKeepsUnaffectedSingletons() {
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(A)
+                        .setFactoryMethod(constructor(ref(B)))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B))
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(P1)
+                        .setConcreteType(P.class)
+                        .build())
+                .build());
+        A a = cont.getService(A).block();
+        B b = cont.getService(B).block();
+        PluginHost host = cont.getService(HOST).block();
+        Plugin p1 = cont.getService(P1).block();
+        cont.updateServices(Arrays.asList(ServiceDescriptor.standalone(B, false),
+                ServiceDescriptor.builder(P2)
+                        .setConcreteType(P.class)
+                        .build()));
+        A newA = cont.getService(A).block();
+        assertNotNull(newA);
+        assertNotSame(a, newA);
+        assertNotSame(b, newA.b);
+        assertNotSame(cont.getService(B).block(), cont.getService(B).block());
+        PluginHost newHost = cont.getService(HOST).block();
+        assertNotNull(newHost);
+        assertNotSame(host, newHost);
+        assertEquals(2, newHost.plugins.size());
+        assertSame(p1, cont.getService(P1).block());
+        assertEquals(1, cont.getStatistics(P1).getBuildCount());
+        // A failed update leaves the container unchanged
+        RdiException e = assertThrows(RdiException.class, () -> cont.updateServices(Collections.singleton(
+                ServiceDescriptor.builder(B)
+                        .setFactoryMethod(constructor(ref(A)))
+                        .build())));
+        logExpectedException(Loggers.getLogger("testUpdateServicesKeepsUnaffectedSingletons"), e);
+        assertSame(newHost, cont.getService(HOST).block());
+        ServiceDescriptor stealingAlias = ServiceDescriptor.builder(P2)
+                .setConcreteType(P.class)
+                .addAlias(P1)
+                .build();
+        assertThrows(RdiException.class, () -> cont.updateServices(Collections.singleton(stealingAlias)));
+    }
+
+    @Test
+    void testContainersFromSamePlanHaveTheirOwnSingletons() {
+        ResolutionPlan plan = RdiServiceContainer.compile(conf20);
+        RdiServiceContainer tenant1 = RdiServiceContainer.create(plan);
+        RdiServiceContainer tenant2 = RdiServiceContainer.create(plan);
+        H h1 = tenant1.getService(H).block();
+        H h2 = tenant2.getService(H).block();
+        assertNotNull(h1);
+        assertNotNull(h2);
+        assertNotSame(h1, h2);
+        assertSame(h1, tenant1.getService(H).block());
+        assertNotSame(h1.b, h2.b);
+        assertTrue(h1.initialized);
+        assertEquals(1, tenant1.getStatistics(H).getBuildCount());
+        assertEquals(1, tenant2.getStatistics(H).getBuildCount());
+        assertEquals(0, RdiServiceContainer.create(plan).getStatistics(H).getBuildCount());
+    }
+
+    @Test
+    void testPlanFileIsReplayedUntilConfigChanges(@TempDir Path dir) throws Exception {
+        Path planFile = dir.resolve("rdi.plan");
+        FileTime old = FileTime.fromMillis(0);
+        RdiServiceContainer.compile(conf17, planFile);
+        assertTrue(Files.exists(planFile));
+        Files.setLastModifiedTime(planFile, old);
+
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiServiceContainer.compile(conf17, planFile));
+        assertEquals(old, Files.getLastModifiedTime(planFile)); // Replayed, not rewritten
+        PluginHost host = cont.getService(HOST).block();
+        assertNotNull(host);
+        assertEquals(Arrays.asList(cont.getService(P2).block(), cont.getService(P1).block()), host.plugins);
+
+        cont = RdiServiceContainer.create(RdiServiceContainer.compile(conf5, planFile));
+        assertNotEquals(old, Files.getLastModifiedTime(planFile));
+        A a = cont.getService(A).block();
+        assertNotNull(a);
+        assertSame(a, a.b.a);
+
+        Files.write(planFile, new byte[] { 1, 2, 3 });
+        cont = RdiServiceContainer.create(RdiServiceContainer.compile(conf5, planFile));
+        assertNotNull(cont.getService(A).block());
+        assertTrue(Files.size(planFile) > 3);
+    }
+
+    @Test
+    void testTemporaryFileIsDeletedWhenPlanCannotBeSaved(@TempDir Path dir) throws Exception {
+        // A non-empty directory cannot be replaced by the plan
+        Path planFile = dir.resolve("rdi.plan");
+        Files.createDirectories(planFile.resolve("content"));
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiServiceContainer.compile(conf17, planFile));
+        assertNotNull(cont.getService(HOST).block());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(Collections.singletonList(planFile), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testPlanFileDoesNotLoadServicesDeclaredByClassName(@TempDir Path dir) {
+        Path planFile = dir.resolve("rdi.plan");
+        ClassLoader loader = RdiServiceContainerTest.class.getClassLoader();
+        ServiceReference<?> deferred = ServiceReference.of("DEFERRED",
+                RdiServiceContainerTest.class.getName() + "$Deferred", loader);
+        ServiceReference<?> user = ServiceReference.of("DEFERRED_USER",
+                RdiServiceContainerTest.class.getName() + "$DeferredUser", loader);
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(deferred)
+                        .setFactoryMethod(constructor(Injectable.parsedValue("42", int.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(user)
+                        .setFactoryMethod(constructor(ref(deferred)))
+                        .build())
+                .build();
+        RdiServiceContainer.compile(config, planFile);
+        assertTrue(Files.exists(planFile));
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiServiceContainer.compile(config, planFile));
+        assertFalse(deferred.isServiceClassLoaded());
+        assertFalse(user.isServiceClassLoaded());
+
+        Object instance = cont.getService(user).block();
+        assertNotNull(instance);
+        assertEquals(42, ((DeferredUser) instance).deferred.value);
+    }
+
+    @Test
+    void testLambdaMetafactoryAccessorsInstantiatePrototypes() {
+        ServiceDescriptor aDescriptor = ServiceDescriptor.builder(A)
+                .setSingleton(false)
+                .setAccessorStrategy(AccessorStrategy.LAMBDA_METAFACTORY)
+                .setFactoryMethod(constructor(ref(B), value(7, int.class)))
+                .addSetterMethod("setValue", value(42, int.class))
+                .build();
+        ServiceDescriptor bDescriptor = ServiceDescriptor.builder(B)
+                .setSingleton(false)
+                .setAccessorStrategy(AccessorStrategy.LAMBDA_METAFACTORY)
+                .setFactoryMethod(staticFactory("create", Mono.class, value("test", String.class),
+                        value(1, int.class)))
+                .addSetterMethod("setA", ref(A_ALIAS))
+                .build();
+        assertTrue(aDescriptor.getSetterMethods().get(0).toString().contains("generatedAccessor=true"));
+        assertTrue(bDescriptor.getSetterMethods().get(0).toString().contains("generatedAccessor=true"));
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiConfig.builder()
+                .registerService(aDescriptor)
+                .registerService(bDescriptor)
+                .registerService(ServiceDescriptor.standalone(A_ALIAS))
+                .build());
+        A a1 = cont.getService(A).block();
+        A a2 = cont.getService(A).block();
+        assertNotNull(a1);
+        assertNotNull(a2);
+        assertNotSame(a1, a2);
+        assertNotSame(a1.b, a2.b);
+        assertEquals(42, a1.value);
+        assertNotNull(a1.b);
+        assertSame(cont.getService(A_ALIAS).block(), a1.b.a);
+    }
+
+    @Test
+    void testRegisterServicesReportsFailuresInServiceNameOrder() {
+        RdiException e = assertThrows(RdiException.class, () -> RdiConfig.builder()
+                .registerServices(Arrays.asList(
+                        ServiceDescriptor.builder(F).addSetterMethod("missing", value(1, int.class)),
+                        ServiceDescriptor.builder(A),
+                        ServiceDescriptor.builder(C).setFactoryMethod(staticFactory("missing", C.class)))));
+        logExpectedException(Loggers.getLogger("testRegisterServicesReportsFailuresInServiceNameOrder"), e);
+        assertTrue(e.getMessage().contains(C.class.getName()), e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertTrue(e.getSuppressed()[0].getMessage().contains(F.class.getName()));
+        // Services sharing a name are ordered by class, and both errors are reported
+        e = assertThrows(RdiException.class, () -> RdiConfig.builder()
+                .registerServices(Arrays.asList(
+                        ServiceDescriptor.builder(ServiceReference.of("X", F.class))
+                                .addSetterMethod("missing", value(1, int.class)),
+                        ServiceDescriptor.builder(ServiceReference.of("X", C.class))
+                                .setFactoryMethod(staticFactory("missing", C.class)))));
+        assertTrue(e.getMessage().contains(C.class.getName()), e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertTrue(e.getSuppressed()[0].getMessage().contains(F.class.getName()));
+        RdiConfig conf = RdiConfig.builder()
+                .registerServices(Arrays.asList(ServiceDescriptor.builder(A), ServiceDescriptor.builder(B)))
+                .build();
+        assertEquals(2, conf.getServiceDescriptors().size());
+    }
+
+    @Test
+    void testBuilderCanBeFilledConcurrently() throws Exception {
+        RdiConfig.Builder builder = RdiConfig.builder();
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            int module = i;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    builder.registerService(ServiceDescriptor.standalone(
+                            ServiceReference.of("M" + module + "_" + j, A.class)));
+                    try {
+                        builder.registerService(ServiceDescriptor.standalone(ServiceReference.of("SHARED_" + j,
+                                A.class)));
+                    } catch (RdiException e) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8 * 50 + 50, builder.build().getServiceDescriptors().size());
+        assertEquals(7 * 50, duplicates.get());
+    }
+
+    @Test
+    void testServicesDeclaredByClassNameAreResolvedOnFirstUse() {
+        ClassLoader loader = RdiServiceContainerTest.class.getClassLoader();
+        String className = RdiServiceContainerTest.class.getName() + "$Deferred";
+        ServiceReference<?> deferred = ServiceReference.of("DEFERRED", className, loader);
+        ServiceReference<?> broken = ServiceReference.of("BROKEN", className, loader);
+        ServiceReference<?> badValue = ServiceReference.of("BAD_VALUE", className, loader);
+        ServiceDescriptor deferredDescriptor = ServiceDescriptor.builder(deferred)
+                .setFactoryMethod(staticFactory("create", "reactor.core.publisher.Mono",
+                        Injectable.parsedValue("42", int.class)))
+                .addSetterMethod("setA", ref(A), "void")
+                .build();
+        RdiServiceContainer cont = RdiServiceContainer.create(RdiConfig.builder()
+                .registerService(deferredDescriptor)
+                .registerService(ServiceDescriptor.builder(broken)
+                        .setFactoryMethod(staticFactory("missing", "reactor.core.publisher.Mono"))
+                        .build())
+                .registerService(ServiceDescriptor.builder(badValue)
+                        .setFactoryMethod(constructor(Injectable.parsedValue("not a number", int.class)))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(A))
+                .build());
+        assertFalse(deferred.isServiceClassLoaded());
+        assertFalse(deferredDescriptor.isResolved());
+        assertEquals(Collections.singletonList(Optional.of(A)), deferredDescriptor.getSetterParameters().stream()
+                .map(Injectable::getReference)
+                .collect(Collectors.toList()));
+
+        Object instance = cont.getService(deferred).block();
+        assertTrue(deferred.isServiceClassLoaded());
+        assertTrue(deferredDescriptor.isResolved());
+        assertNotNull(instance);
+        assertEquals(className, instance.getClass().getName());
+        assertEquals(42, ((Deferred) instance).value);
+        assertSame(cont.getService(A).block(), ((Deferred) instance).a);
+
+        Throwable e = assertThrows(ServiceInstantiationException.class, () -> cont.getService(broken).block());
+        logExpectedException(Loggers.getLogger("testServicesDeclaredByClassNameAreResolvedOnFirstUse"), e);
+        assertTrue(e.getCause().getMessage().contains("factory method handle"));
+        e = assertThrows(ServiceInstantiationException.class, () -> cont.getService(badValue).block());
+        logExpectedException(Loggers.getLogger("testServicesDeclaredByClassNameAreResolvedOnFirstUse"), e);
+        assertTrue(e.getCause().getMessage().contains("not a number"));
+    }
+
     public static class A {
 
         private B b;
@@ -330,6 +1256,240 @@ class RdiServiceContainerTest {
             throw new RuntimeException("Oops! Cannot construct D!");
         }
     }
-}
 
+    public static class E {
+
+        private volatile boolean closed;
+
+        public E(AtomicInteger instanceCount) {
+            if (instanceCount.getAndIncrement() < 0) {
+                throw new RuntimeException("Oops! Cannot refresh E!");
+            }
+        }
+
+        public static Mono<E> createLater(AtomicInteger instanceCount) {
+            return Mono.delay(Duration.ofMillis(50)).map(__ -> new E(instanceCount));
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public static class F {
+
+        public F() {
+            throw new RuntimeException("Oops! Cannot construct F!");
+        }
+    }
+
+    public static class G {
+
+        public G(String name) {
+            G_CREATION_ORDER.add(name);
+        }
+
+        public G(String name, G dependency) {
+            G_CREATION_ORDER.add(name);
+        }
+    }
+
+    public static class H {
+
+        private final AtomicInteger initCount = new AtomicInteger();
+        private B b;
+        private volatile boolean initialized;
+
+        public void setB(B b) {
+            this.b = b;
+        }
+
+        public Mono<Void> init() {
+            // Setters of the whole request have run, including those of B which is injected here
+            return Mono.delay(Duration.ofMillis(50))
+                    .then(Mono.fromRunnable(() -> {
+                        initCount.incrementAndGet();
+                        initialized = b != null && b.a != null;
+                    }));
+        }
+    }
+
+    public static class HDependent {
+
+        private final H h;
+        private boolean sawInitializedH;
+
+        public HDependent(H h) {
+            this.h = h;
+        }
+
+        public void init() {
+            sawInitializedH = h.initialized;
+        }
+    }
+
+    public static class I {
+
+        private final Mono<Void> initGate;
+        private volatile boolean initialized;
+
+        public I(Mono<Void> initGate) {
+            this.initGate = initGate;
+        }
+
+        public Mono<Void> init() {
+            return initGate.then(Mono.fromRunnable(() -> initialized = true));
+        }
+    }
+
+    public static class K1 implements AutoCloseable {
+
+        @Override
+        public void close() {
+            K_DISPOSAL_ORDER.add("K1");
+        }
+    }
+
+    public static class K2 implements Disposable {
+
+        public K2(K1 k1) {
+        }
+
+        @Override
+        public void dispose() {
+            K_DISPOSAL_ORDER.add("K2");
+        }
+    }
+
+    public static class K3 {
+
+        public K3(K2 k2) {
+        }
+
+        public Mono<Void> shutdown() {
+            return Mono.delay(Duration.ofMillis(50))
+                    .then(Mono.fromRunnable(() -> K_DISPOSAL_ORDER.add("K3")));
+        }
+    }
+
+    public static class K4 {
+
+        public void fail() {
+            throw new IllegalStateException("Oops! Cannot dispose K4!");
+        }
+
+        public Mono<Void> hang() {
+            return Mono.never();
+        }
+    }
+
+    public static class L {
+
+        private final ServiceProvider<M> m;
+
+        public L(ServiceProvider<M> m) {
+            this.m = m;
+        }
+    }
+
+    public static class M {
+
+        private final L l;
+
+        public M(L l) {
+            this.l = l;
+        }
+    }
+
+    public static class N {
+
+        private final O o;
+
+        private N(O o) {
+            this.o = o;
+        }
+
+        public static Mono<N> create(Mono<O> o) {
+            N_CREATION_ORDER.add("N");
+            return o.map(N::new);
+        }
+    }
+
+    public static class O {
+
+        public O() {
+            N_CREATION_ORDER.add("O");
+        }
 
+        public O(N n) {
+        }
+    }
+
+    public interface Plugin {
+    }
+
+    public static class P implements Plugin {
+    }
+
+    public static class Q implements Plugin {
+
+        private volatile B b;
+        private volatile boolean initialized;
+
+        // Completes in reverse order of creation, so that the elements of a collection finish out of order
+        public static Mono<Q> create(int index) {
+            return Mono.delay(Duration.ofMillis(5L * (Q_COUNT - index))).map(__ -> new Q());
+        }
+
+        public void setB(B b) {
+            this.b = b;
+        }
+
+        public void init() {
+            initialized = b != null;
+        }
+    }
+
+    public static class PluginHost implements Plugin {
+
+        private final List<Plugin> plugins;
+        private final Thread creator = Thread.currentThread();
+        private Set<Plugin> pluginSet;
+
+        public PluginHost(List<Plugin> plugins) {
+            this.plugins = plugins;
+        }
+
+        public void setPluginSet(Set<Plugin> pluginSet) {
+            this.pluginSet = pluginSet;
+        }
+    }
+
+    // Only referred to by name, so that the tests can check when it is loaded
+    public static class Deferred {
+
+        private final int value;
+        private A a;
+
+        public Deferred(int value) {
+            this.value = value;
+        }
+
+        public static Mono<Deferred> create(int value) {
+            return Mono.just(new Deferred(value));
+        }
+
+        public void setA(A a) {
+            this.a = a;
+        }
+    }
+
+    public static class DeferredUser {
+
+        private final Deferred deferred;
+
+        public DeferredUser(Deferred deferred) {
+            this.deferred = deferred;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.alex1304.rdi;
+
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.alex1304.rdi.config.FactoryMethod.constructor;
+import static com.github.alex1304.rdi.config.Injectable.ref;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupProfilerTest {
+
+    private static final ServiceReference<A> A = ServiceReference.of("A", A.class);
+    private static final ServiceReference<B> B = ServiceReference.of("B", B.class);
+    private static final ServiceReference<B> OTHER_B = ServiceReference.of("OTHER_B", B.class);
+    private static RdiConfig conf1, conf2;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUpBeforeClass() {
+        conf1 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(A)
+                        .setFactoryMethod(constructor(ref(B)))
+                        .build())
+                .registerService(ServiceDescriptor.standalone(B))
+                .registerService(ServiceDescriptor.standalone(OTHER_B))
+                .build();
+        conf2 = RdiConfig.builder()
+                .registerService(ServiceDescriptor.standalone(A))
+                .registerService(ServiceDescriptor.standalone(B))
+                .build();
+    }
+
+    @Test
+    void testProfileDrivesWarmUp() {
+        Path profileFile = tempDir.resolve("profile.properties");
+        StartupProfiler firstRun = StartupProfiler.create(conf1, profileFile);
+        assertFalse(firstRun.hasProfile());
+        assertTrue(firstRun.getEarlyServices().isEmpty());
+        assertNotNull(firstRun.getContainer().getService(A).block());
+        firstRun.save().block();
+
+        StartupProfiler secondRun = StartupProfiler.create(conf1, profileFile);
+        assertTrue(secondRun.hasProfile());
+        // B was requested as a dependency of A, OTHER_B was never requested
+        assertEquals(2, secondRun.getEarlyServices().size());
+        assertTrue(secondRun.getEarlyServices().containsAll(Arrays.asList(A, B)));
+        secondRun.warmUp().block();
+        RdiServiceContainer container = secondRun.getContainer();
+        assertEquals(1, container.getStatistics(A).getBuildCount());
+        assertEquals(0, container.getStatistics(OTHER_B).getBuildCount());
+        // Warm-up doesn't count as a request, so a service that isn't used anymore becomes lazy again
+        assertEquals(0, container.getStatistics(A).getRequestCount());
+        assertNotNull(container.getService(B).block());
+        secondRun.save().block();
+
+        StartupProfiler thirdRun = StartupProfiler.create(conf1, profileFile);
+        assertEquals(Collections.singleton(B), thirdRun.getEarlyServices());
+    }
+
+    @Test
+    void testProfileIgnoredWhenConfigChanges() {
+        Path profileFile = tempDir.resolve("profile.properties");
+        StartupProfiler firstRun = StartupProfiler.create(conf1, profileFile);
+        assertNotNull(firstRun.getContainer().getService(A).block());
+        firstRun.save().block();
+
+        StartupProfiler secondRun = StartupProfiler.create(conf2, profileFile);
+        assertFalse(secondRun.hasProfile());
+        assertTrue(secondRun.getEarlyServices().isEmpty());
+    }
+
+    @Test
+    void testMalformedProfileIgnored() throws IOException {
+        Path profileFile = tempDir.resolve("profile.properties");
+        StartupProfiler firstRun = StartupProfiler.create(conf1, profileFile);
+        firstRun.save().block();
+        String content = new String(Files.readAllBytes(profileFile), StandardCharsets.UTF_8);
+        Files.write(profileFile, content.replaceAll("factoryNanos=\\d+", "factoryNanos=oops")
+                .getBytes(StandardCharsets.UTF_8));
+
+        StartupProfiler secondRun = StartupProfiler.create(conf1, profileFile);
+        assertFalse(secondRun.hasProfile());
+        assertDoesNotThrow(() -> secondRun.warmUp().block());
+    }
+
+    @Test
+    void testProfileDoesNotLoadServicesDeclaredByClassName() {
+        Path profileFile = tempDir.resolve("profile.properties");
+        ClassLoader loader = StartupProfilerTest.class.getClassLoader();
+        ServiceReference<?> deferredB = ServiceReference.of("B", StartupProfilerTest.class.getName() + "$B", loader);
+        ServiceReference<?> deferredA = ServiceReference.of("A", StartupProfilerTest.class.getName() + "$A", loader);
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(deferredA)
+                        .setFactoryMethod(constructor(ref(deferredB)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(deferredB).build())
+                .build();
+        StartupProfiler.create(config, profileFile).save().block();
+        assertTrue(StartupProfiler.create(config, profileFile).hasProfile());
+        assertFalse(deferredA.isServiceClassLoaded());
+        assertFalse(deferredB.isServiceClassLoaded());
+    }
+
+    @Test
+    void testTemporaryFileIsDeletedWhenProfileCannotBeSaved() throws IOException {
+        // A non-empty directory cannot be replaced by the profile
+        Path profileFile = tempDir.resolve("profile.properties");
+        Files.createDirectories(profileFile.resolve("content"));
+        StartupProfiler profiler = StartupProfiler.create(conf1, profileFile);
+        assertThrows(RdiException.class, () -> profiler.save().block());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(Collections.singletonList(profileFile), files.collect(Collectors.toList()));
+        }
+    }
+
+    public static class A {
+
+        public A() {
+        }
+
+        public A(B b) {
+        }
+    }
+
+    public static class B {
+    }
+}
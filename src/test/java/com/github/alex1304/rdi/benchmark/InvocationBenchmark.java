@@ -0,0 +1,133 @@
+package com.github.alex1304.rdi.benchmark;
+
+import com.github.alex1304.rdi.RdiServiceContainer;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.AccessorStrategy;
+import com.github.alex1304.rdi.config.FactoryMethod;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.config.SetterMethod;
+import reactor.core.publisher.Mono;
+
+import static com.github.alex1304.rdi.config.FactoryMethod.constructor;
+import static com.github.alex1304.rdi.config.FactoryMethod.staticFactory;
+import static com.github.alex1304.rdi.config.Injectable.ref;
+import static com.github.alex1304.rdi.config.Injectable.value;
+
+/**
+ * Warm-loop harness measuring the cost of invoking factories and setters, and of creating prototypes through the
+ * container. It is not a JUnit test and isn't run by the build. The build has no JMH, so the figures are averages over
+ * plain loops, and only the last rounds, once the JIT has settled, are meaningful. Run it with:
+ *
+ * <pre>
+ * mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) \
+ *         com.github.alex1304.rdi.benchmark.InvocationBenchmark [METHOD_HANDLE|LAMBDA_METAFACTORY]
+ * </pre>
+ *
+ * The optional argument selects the {@link AccessorStrategy} of the services, {@link AccessorStrategy#METHOD_HANDLE}
+ * by default.
+ */
+public final class InvocationBenchmark {
+
+    private static final ServiceReference<Dependency> DEPENDENCY = ServiceReference.ofType(Dependency.class);
+    private static final ServiceReference<Prototype> PROTOTYPE = ServiceReference.ofType(Prototype.class);
+    private static final ServiceReference<ReactivePrototype> REACTIVE_PROTOTYPE =
+            ServiceReference.ofType(ReactivePrototype.class);
+    private static final int ROUNDS = 5;
+    private static final int INVOCATIONS = 2_000_000;
+    private static final int REQUESTS = 200_000;
+
+    private InvocationBenchmark() {
+        throw new AssertionError();
+    }
+
+    public static void main(String[] args) {
+        AccessorStrategy strategy = args.length > 0 ? AccessorStrategy.valueOf(args[0])
+                : AccessorStrategy.METHOD_HANDLE;
+        ServiceDescriptor prototype = ServiceDescriptor.builder(PROTOTYPE)
+                .setAccessorStrategy(strategy)
+                .setSingleton(false)
+                .setFactoryMethod(constructor(ref(DEPENDENCY), value(42, int.class)))
+                .addSetterMethod("setDependency", ref(DEPENDENCY))
+                .build();
+        RdiServiceContainer container = RdiServiceContainer.create(RdiConfig.builder()
+                .registerService(ServiceDescriptor.standalone(DEPENDENCY))
+                .registerService(prototype)
+                .registerService(ServiceDescriptor.builder(REACTIVE_PROTOTYPE)
+                        .setAccessorStrategy(strategy)
+                        .setSingleton(false)
+                        .setFactoryMethod(staticFactory("create", Mono.class, ref(DEPENDENCY)))
+                        .build())
+                .build());
+        FactoryMethod factoryMethod = prototype.getFactoryMethod();
+        SetterMethod setterMethod = prototype.getSetterMethods().get(0);
+        Dependency dependency = new Dependency();
+        Object[] factoryArgs = { dependency };
+        Prototype target = new Prototype(dependency, 0);
+        System.out.println("Accessor strategy: " + strategy);
+        for (int round = 1; round <= ROUNDS; round++) {
+            // Accumulated and printed so that the JIT cannot drop the calls
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < INVOCATIONS; i++) {
+                sink += factoryMethod.invoke(factoryArgs).block() != null ? 1 : 0;
+            }
+            double invokeNanos = (System.nanoTime() - start) / (double) INVOCATIONS;
+            start = System.nanoTime();
+            for (int i = 0; i < INVOCATIONS; i++) {
+                sink += factoryMethod.invokeEagerly(factoryArgs).block() != null ? 1 : 0;
+            }
+            double invokeEagerlyNanos = (System.nanoTime() - start) / (double) INVOCATIONS;
+            start = System.nanoTime();
+            for (int i = 0; i < INVOCATIONS; i++) {
+                setterMethod.invoke(target, dependency);
+            }
+            double setterNanos = (System.nanoTime() - start) / (double) INVOCATIONS;
+            start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                sink += container.getService(PROTOTYPE).block() != null ? 1 : 0;
+            }
+            double prototypeNanos = (System.nanoTime() - start) / (double) REQUESTS;
+            start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                sink += container.getService(REACTIVE_PROTOTYPE).block() != null ? 1 : 0;
+            }
+            double reactivePrototypeNanos = (System.nanoTime() - start) / (double) REQUESTS;
+            System.out.printf("Round %d: FactoryMethod.invoke %.1f ns, FactoryMethod.invokeEagerly %.1f ns, "
+                            + "SetterMethod.invoke %.1f ns, getService(prototype) %.0f ns, "
+                            + "getService(reactive prototype) %.0f ns (%d)%n", round, invokeNanos,
+                    invokeEagerlyNanos, setterNanos, prototypeNanos, reactivePrototypeNanos, sink);
+        }
+    }
+
+    public static class Dependency {
+    }
+
+    public static class Prototype {
+
+        private Dependency dependency;
+        private final int value;
+
+        public Prototype(Dependency dependency, int value) {
+            this.dependency = dependency;
+            this.value = value;
+        }
+
+        public void setDependency(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        @Override
+        public String toString() {
+            return "Prototype{dependency=" + dependency + ", value=" + value + "}";
+        }
+    }
+
+    public static class ReactivePrototype {
+
+        public static Mono<ReactivePrototype> create(Dependency dependency) {
+            return Mono.fromCallable(ReactivePrototype::new);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import org.reflections.Reflections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AnnotationServiceFinderTest {
 
@@ -25,9 +27,17 @@ class AnnotationServiceFinderTest {
         assertEquals(42, a.getBar());
         assertNotNull(a.getB());
         assertNotNull(a.getB().getC());
+        Engine engine = container.getService(ServiceReference.ofType(Engine.class)).block();
+        assertNotNull(engine);
+        assertNotNull(engine.getC());
+        assertTrue(engine.isStarted()); // Init method ran after the setter
         Shape shape = container.getService(ServiceReference.ofType(Shape.class)).block();
         assertNotNull(shape);
         assertEquals("circle", shape.value());
+        Polygon polygon = container.getService(ServiceReference.ofType(Polygon.class)).block();
+        assertNotNull(polygon);
+        assertEquals(4, polygon.sides());
+        assertSame(polygon, container.getService(ServiceReference.ofType(Square.class)).block());
     }
 
 }
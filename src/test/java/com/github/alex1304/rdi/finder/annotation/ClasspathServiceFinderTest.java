@@ -0,0 +1,67 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClasspathServiceFinderTest {
+
+    private static final Set<String> SERVICE_CLASS_NAMES = new TreeSet<>(Arrays.asList(A.class.getName(),
+            B.class.getName(), C.class.getName(), Circle.class.getName(), Square.class.getName(),
+            Engine.class.getName()));
+
+    @Test
+    void testScanDirectory() throws Exception {
+        ClasspathServiceFinder finder = ClasspathServiceFinder.create(Collections.singleton(testClasses()),
+                ClasspathServiceFinderTest.class.getClassLoader());
+        assertEquals(SERVICE_CLASS_NAMES, finder.findServiceClassNames());
+        ServiceFinder reflective = AnnotationServiceFinder.create(new HashSet<>(Arrays.asList(A.class, B.class,
+                C.class, Circle.class, Square.class, Engine.class)));
+        assertEquals(describe(reflective), describe(finder));
+    }
+
+    @Test
+    void testScanJar(@TempDir Path dir) throws Exception {
+        Path testClasses = testClasses();
+        Path jar = dir.resolve("services.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(testClasses)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                out.putNextEntry(new JarEntry(testClasses.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        ClasspathServiceFinder finder = ClasspathServiceFinder.create(Arrays.asList(jar, dir.resolve("missing")),
+                ClasspathServiceFinderTest.class.getClassLoader());
+        assertEquals(SERVICE_CLASS_NAMES, finder.findServiceClassNames());
+    }
+
+    private static Path testClasses() throws Exception {
+        return Paths.get(A.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static List<String> describe(ServiceFinder finder) {
+        return finder.findServices().stream()
+                .map(ServiceDescriptor::toString)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
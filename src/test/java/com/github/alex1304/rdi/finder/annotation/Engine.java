@@ -0,0 +1,28 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import reactor.core.publisher.Mono;
+
+@RdiService
+public class Engine {
+
+    private C c;
+    private boolean started;
+
+    public final C getC() {
+        return c;
+    }
+
+    public final boolean isStarted() {
+        return started;
+    }
+
+    @RdiSetter
+    public final void setC(@RdiRef("crack") C c) {
+        this.c = c;
+    }
+
+    @RdiInit
+    public Mono<Void> start() {
+        return Mono.fromRunnable(() -> started = c != null);
+    }
+}
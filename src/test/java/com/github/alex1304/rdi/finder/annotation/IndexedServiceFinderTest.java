@@ -0,0 +1,159 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedServiceFinderTest {
+
+    @Test
+    void testIndexIsWrittenThenReadAndInvalidated(@TempDir Path dir) throws Exception {
+        // Copy of the annotated classes, so that the test can change them
+        Path root = dir.resolve("classes");
+        Path packageDir = root.resolve(A.class.getPackage().getName().replace('.', '/'));
+        Files.createDirectories(packageDir);
+        Path testClasses = Paths.get(A.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        for (Class<?> clazz : Arrays.asList(A.class, B.class, C.class, Circle.class, Shape.class, Square.class,
+                Polygon.class, Engine.class)) {
+            String fileName = clazz.getSimpleName() + ".class";
+            Files.copy(testClasses.resolve(A.class.getPackage().getName().replace('.', '/')).resolve(fileName),
+                    packageDir.resolve(fileName));
+        }
+        Path indexFile = dir.resolve("rdi-index.bin");
+        ClasspathServiceFinder scanner = ClasspathServiceFinder.create(Collections.singleton(root),
+                IndexedServiceFinderTest.class.getClassLoader());
+        IndexedServiceFinder finder = IndexedServiceFinder.create(scanner, indexFile);
+        ServiceFinder reflective = AnnotationServiceFinder.create(new HashSet<>(Arrays.asList(A.class, B.class,
+                C.class, Circle.class, Square.class, Engine.class)));
+        List<String> expected = describe(reflective);
+
+        assertEquals(expected, describe(finder));
+        assertTrue(Files.exists(indexFile));
+        List<ServiceMetadata> indexed = finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots()));
+        assertNotNull(indexed);
+        assertEquals(6, indexed.size());
+        // Read from the index this time, without loading the classes until the services are resolved
+        Set<ServiceDescriptor> deferred = IndexedServiceFinder.create(scanner, indexFile).findServices();
+        for (ServiceDescriptor descriptor : deferred) {
+            assertFalse(descriptor.isResolved());
+            assertFalse(descriptor.getServiceReference().isServiceClassLoaded());
+        }
+        assertEquals(expected, describe(() -> deferred));
+        deferred.forEach(descriptor -> assertTrue(descriptor.isResolved()));
+
+        Files.delete(packageDir.resolve("Shape.class"));
+        assertNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+        assertEquals(expected, describe(finder));
+        assertNotNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+
+        Files.write(indexFile, new byte[] { 1, 2, 3 });
+        assertNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+        assertEquals(expected, describe(finder));
+    }
+
+    @Test
+    void testJarIsCheckedByTheChecksumsOfItsEntries(@TempDir Path dir) throws Exception {
+        Path jar = dir.resolve("services.jar");
+        writeJar(jar, "first", A.class, B.class);
+        Path indexFile = dir.resolve("rdi-index.bin");
+        ClasspathServiceFinder scanner = ClasspathServiceFinder.create(Collections.singleton(jar),
+                IndexedServiceFinderTest.class.getClassLoader());
+        IndexedServiceFinder finder = IndexedServiceFinder.create(scanner, indexFile);
+        assertEquals(2, finder.findServices().size());
+        assertNotNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+
+        // Different content, while the size and modification time are the same
+        FileTime lastModified = Files.getLastModifiedTime(jar);
+        long size = Files.size(jar);
+        writeJar(jar, "other", A.class, B.class);
+        Files.setLastModifiedTime(jar, lastModified);
+        assertEquals(size, Files.size(jar));
+        assertNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+        assertEquals(2, finder.findServices().size());
+
+        // Same content, only the modification time differs
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified.toMillis() + 60_000));
+        assertNotNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+
+        writeJar(jar, "other", A.class, B.class, C.class);
+        assertEquals(3, finder.findServices().size());
+        assertNotNull(finder.readIndex(IndexedServiceFinder.snapshot(scanner.getRoots())));
+    }
+
+    @Test
+    void testTemporaryFileIsDeletedWhenIndexCannotBeSaved(@TempDir Path dir) throws Exception {
+        Path jar = dir.resolve("services.jar");
+        writeJar(jar, "first", A.class, B.class);
+        // A non-empty directory cannot be replaced by the index
+        Path indexFile = dir.resolve("rdi-index.bin");
+        Files.createDirectories(indexFile.resolve("content"));
+        ClasspathServiceFinder scanner = ClasspathServiceFinder.create(Collections.singleton(jar),
+                IndexedServiceFinderTest.class.getClassLoader());
+        assertEquals(2, IndexedServiceFinder.create(scanner, indexFile).findServices().size());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(Arrays.asList(indexFile, jar), files.sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static void writeJar(Path jar, String resource, Class<?>... classes) throws Exception {
+        Path testClasses = Paths.get(A.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Class<?> clazz : classes) {
+                String entryName = clazz.getName().replace('.', '/') + ".class";
+                out.putNextEntry(entry(entryName));
+                out.write(Files.readAllBytes(testClasses.resolve(entryName)));
+                out.closeEntry();
+            }
+            // Stored as is, so that resources of the same length give JAR files of the same size
+            JarEntry entry = entry("resource.txt");
+            byte[] content = resource.getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(content);
+            out.closeEntry();
+        }
+    }
+
+    private static JarEntry entry(String name) {
+        JarEntry entry = new JarEntry(name);
+        entry.setTime(0);
+        return entry;
+    }
+
+    private static List<String> describe(ServiceFinder finder) {
+        return finder.findServices().stream()
+                // Descriptors read from the index only show their methods once resolved
+                .peek(ServiceDescriptor::getFactoryMethod)
+                .map(ServiceDescriptor::toString)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
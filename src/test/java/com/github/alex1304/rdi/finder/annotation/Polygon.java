@@ -0,0 +1,6 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+public interface Polygon {
+
+    int sides();
+}
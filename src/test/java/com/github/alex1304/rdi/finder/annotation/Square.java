@@ -0,0 +1,10 @@
+package com.github.alex1304.rdi.finder.annotation;
+
+@RdiService(as = {Polygon.class, Square.class})
+public class Square implements Polygon {
+
+    @Override
+    public int sides() {
+        return 4;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.alex1304.rdi.finder.annotation.processing;
+
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.finder.ServiceFinder;
+import com.github.alex1304.rdi.finder.annotation.A;
+import com.github.alex1304.rdi.finder.annotation.AnnotationServiceFinder;
+import com.github.alex1304.rdi.finder.annotation.B;
+import com.github.alex1304.rdi.finder.annotation.C;
+import com.github.alex1304.rdi.finder.annotation.Circle;
+import com.github.alex1304.rdi.finder.annotation.Engine;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.alex1304.rdi.finder.annotation.Square;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RdiServiceProcessorTest {
+
+    private static final Path SOURCES = Paths.get("src/test/java/com/github/alex1304/rdi/finder/annotation");
+
+    @Test
+    void testGeneratedFinderMatchesAnnotationServiceFinder(@TempDir Path output) throws Exception {
+        List<File> sources = Stream.of("A", "B", "C", "Circle", "Shape", "Square", "Polygon", "Engine")
+                .map(name -> SOURCES.resolve(name + ".java").toFile())
+                .collect(Collectors.toList());
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            success = compile(compiler, fileManager.getJavaFileObjectsFromFiles(sources), output, diagnostics);
+        }
+        assertTrue(success, diagnostics.getDiagnostics().toString());
+        assertEquals(Collections.emptyList(), warnings(diagnostics));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                RdiServiceProcessorTest.class.getClassLoader())) {
+            ServiceFinder generated = loadFinder(loader);
+            ServiceFinder reflective = AnnotationServiceFinder.create(new HashSet<>(Arrays.asList(A.class, B.class,
+                    C.class, Circle.class, Square.class, Engine.class)));
+            assertEquals(describe(reflective), describe(generated));
+        }
+    }
+
+    @Test
+    void testValuesWithControlCharacters(@TempDir Path output) throws Exception {
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///com/example/Lines.java"),
+                JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return "package com.example;\n"
+                        + "import com.github.alex1304.rdi.finder.annotation.*;\n"
+                        + "@RdiService public class Lines {\n"
+                        + "    @RdiFactory public Lines(\n"
+                        + "            @RdiVal(\"line1\\nline2\\r\\t\\0017\\\\\\\"\u00e9\") String text,\n"
+                        + "            @RdiVal(\"\\n\") char separator) { }\n"
+                        + "}\n";
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(ToolProvider.getSystemJavaCompiler(), Collections.singletonList(source), output,
+                diagnostics), diagnostics.getDiagnostics().toString());
+        assertEquals(Collections.emptyList(), warnings(diagnostics));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() },
+                RdiServiceProcessorTest.class.getClassLoader())) {
+            ServiceDescriptor descriptor = loadFinder(loader).findServices().iterator().next();
+            assertEquals(Optional.of("line1\nline2\r\t\0017\\\"\u00e9"),
+                    descriptor.getFactoryParameters().get(0).getValue());
+            assertEquals(Optional.of('\n'), descriptor.getFactoryParameters().get(1).getValue());
+        }
+    }
+
+    @Test
+    void testErrorsAreReportedAtCompileTime(@TempDir Path output) {
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///com/example/Broken.java"),
+                JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return "package com.example;\n"
+                        + "import com.github.alex1304.rdi.finder.annotation.*;\n"
+                        + "@RdiService public class Broken {\n"
+                        + "    @RdiFactory public Broken(@RdiVal(\"forty-two\") int value) { }\n"
+                        + "}\n"
+                        + "@RdiService class NoFactory {\n"
+                        + "    public NoFactory(Broken broken) { }\n"
+                        + "}\n";
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(ToolProvider.getSystemJavaCompiler(), Collections.singletonList(source), output,
+                diagnostics));
+        List<String> errors = diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+        assertEquals(2, errors.size(), errors.toString());
+        assertTrue(errors.get(0).contains("Invalid @RdiVal value"));
+        assertTrue(errors.get(1).contains("public"));
+    }
+
+    private static ServiceFinder loadFinder(ClassLoader loader) throws ReflectiveOperationException {
+        return (ServiceFinder) loader.loadClass("com.example.GeneratedServiceFinder")
+                .getConstructor()
+                .newInstance();
+    }
+
+    private static List<String> warnings(DiagnosticCollector<JavaFileObject> diagnostics) {
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.WARNING
+                        || d.getKind() == Diagnostic.Kind.MANDATORY_WARNING)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean compile(JavaCompiler compiler, Iterable<? extends JavaFileObject> sources, Path output,
+                                   DiagnosticCollector<JavaFileObject> diagnostics) {
+        List<String> options = new ArrayList<>(Arrays.asList("-d", output.toString(), "-classpath", classpath(),
+                "-A" + RdiServiceProcessor.GENERATED_FINDER_OPTION + "=com.example.GeneratedServiceFinder"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new RdiServiceProcessor()));
+        return task.call();
+    }
+
+    private static String classpath() {
+        return Stream.of(RdiService.class, Mono.class, Publisher.class)
+                .map(c -> {
+                    try {
+                        return Paths.get(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+                    } catch (URISyntaxException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private static List<String> describe(ServiceFinder finder) {
+        return finder.findServices().stream()
+                .map(ServiceDescriptor::toString)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,381 @@
+package com.github.alex1304.rdi.generator;
+
+import com.github.alex1304.rdi.GeneratedServiceContainer;
+import com.github.alex1304.rdi.RdiException;
+import com.github.alex1304.rdi.RdiServiceContainer;
+import com.github.alex1304.rdi.ServiceProvider;
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.resolver.ServiceStatistics;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.alex1304.rdi.config.FactoryMethod.constructor;
+import static com.github.alex1304.rdi.config.FactoryMethod.staticFactory;
+import static com.github.alex1304.rdi.config.Injectable.listOf;
+import static com.github.alex1304.rdi.config.Injectable.provider;
+import static com.github.alex1304.rdi.config.Injectable.ref;
+import static com.github.alex1304.rdi.config.Injectable.value;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerGeneratorTest {
+
+    private static final String CLASS_NAME = "com.github.alex1304.rdi.generator.GeneratedContainer";
+    private static final ServiceReference<Repository> REPOSITORY = ServiceReference.ofType(Repository.class);
+    private static final ServiceReference<Worker> WORKER = ServiceReference.of("worker", Worker.class);
+    private static final ServiceReference<Peer> PEER = ServiceReference.of("peer", Peer.class);
+    private static final ServiceReference<Plugin> PLUGIN_A = ServiceReference.of("pluginA", Plugin.class);
+    private static final ServiceReference<Plugin> PLUGIN_B = ServiceReference.of("pluginB", Plugin.class);
+    private static final ServiceReference<Host> HOST = ServiceReference.of("host", Host.class);
+    private static final ServiceReference<Client> CLIENT = ServiceReference.of("client", Client.class);
+    private static final ServiceReference<Consumer> CONSUMER = ServiceReference.of("consumer", Consumer.class);
+    private static final ServiceReference<Request> REQUEST = ServiceReference.of("request", Request.class);
+    private static final ServiceReference<Banner> BANNER = ServiceReference.of("banner", Banner.class);
+    private static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testGeneratedContainerBehavesLikeDefaultContainer(@TempDir Path output) throws Exception {
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(REPOSITORY)
+                        .addDisposeMethod("close")
+                        .build())
+                .registerService(ServiceDescriptor.builder(WORKER)
+                        .setFactoryMethod(constructor(ref(REPOSITORY), value(3)))
+                        .addSetterMethod("setPeer", ref(PEER))
+                        .build())
+                .registerService(ServiceDescriptor.builder(PEER)
+                        .setFactoryMethod(constructor(ref(WORKER)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(PLUGIN_A)
+                        .setConcreteType(PluginA.class)
+                        .build())
+                .registerService(ServiceDescriptor.builder(PLUGIN_B)
+                        .setConcreteType(PluginB.class)
+                        .setPriority(1)
+                        .build())
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(CLIENT)
+                        .setFactoryMethod(staticFactory("create", Mono.class, ref(REPOSITORY)))
+                        .build())
+                .registerService(ServiceDescriptor.builder(CONSUMER)
+                        .setFactoryMethod(constructor(ref(CLIENT)))
+                        .addInitMethod("init")
+                        .build())
+                .registerService(ServiceDescriptor.builder(REQUEST)
+                        .setFactoryMethod(constructor(provider(REPOSITORY)))
+                        .setSingleton(false)
+                        .build())
+                .registerService(ServiceDescriptor.builder(BANNER)
+                        .setFactoryMethod(constructor(value("line1\nline2\r\n\t\"\\\u0001\u00e9", String.class),
+                                value('\n')))
+                        .build())
+                .build();
+        EVENTS.clear();
+        try (URLClassLoader loader = compile(config, output)) {
+            Class<?> generatedClass = loader.loadClass(CLASS_NAME);
+            assertEquals(Repository.class, generatedClass.getMethod("getRepository").getReturnType());
+            assertEquals(Mono.class, generatedClass.getMethod("getConsumer").getReturnType());
+            RdiServiceContainer generated = (RdiServiceContainer) generatedClass.getConstructor().newInstance();
+            RdiServiceContainer reference = RdiServiceContainer.create(config);
+
+            Worker worker = generated.getService(WORKER).block();
+            assertNotNull(worker);
+            assertEquals(3, worker.value);
+            assertSame(worker, worker.peer.worker);
+            assertSame(worker.repository, generated.getService(REPOSITORY).block());
+
+            Host host = generated.getService(HOST).block();
+            Host referenceHost = reference.getService(HOST).block();
+            assertNotNull(host);
+            assertNotNull(referenceHost);
+            assertEquals(describe(referenceHost.plugins), describe(host.plugins));
+            assertEquals(reference.getServicesOfType(Plugin.class), generated.getServicesOfType(Plugin.class));
+
+            Consumer consumer = generated.getService(CONSUMER).block();
+            assertNotNull(consumer);
+            assertTrue(consumer.initialized);
+            assertSame(worker.repository, consumer.client.repository);
+
+            Request request = generated.getService(REQUEST).block();
+            assertNotNull(request);
+            assertNotSame(request, generated.getService(REQUEST).block());
+            assertSame(worker.repository, request.repository.get().block());
+
+            Banner banner = generated.getService(BANNER).block();
+            assertNotNull(banner);
+            assertEquals("line1\nline2\r\n\t\"\\\u0001\u00e9", banner.text);
+            assertEquals('\n', banner.separator);
+
+            // The peer got the worker from its field while the worker was being set up
+            ServiceStatistics workerStatistics = generated.getStatistics(WORKER);
+            assertEquals(2, workerStatistics.getRequestCount());
+            assertEquals(1, workerStatistics.getHitCount());
+            assertEquals(1, workerStatistics.getBuildCount());
+            assertEquals(2, generated.getStatistics(REQUEST).getBuildCount());
+            assertEquals(1, generated.getStatistics(CLIENT).getBuildCount());
+            assertThrows(RdiException.class, () -> generated.getStatistics(ServiceReference.of("unknown",
+                    Worker.class)));
+            assertThrows(UnsupportedOperationException.class, () -> generated.createChild(config));
+
+            generated.dispose().block();
+            assertEquals(Collections.singletonList("close"), EVENTS);
+            assertThrows(RdiException.class, () -> generated.getService(WORKER).block());
+            assertTrue(generated instanceof GeneratedServiceContainer);
+        }
+    }
+
+    @Test
+    void testWarmUpInstantiatesSelectedSingletons(@TempDir Path output) throws Exception {
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(REPOSITORY).build())
+                .registerService(ServiceDescriptor.builder(PLUGIN_A)
+                        .setConcreteType(PluginA.class)
+                        .build())
+                .registerService(ServiceDescriptor.builder(PLUGIN_B)
+                        .setConcreteType(PluginB.class)
+                        .setSingleton(false)
+                        .build())
+                .registerService(ServiceDescriptor.builder(HOST)
+                        .setFactoryMethod(constructor(listOf(Plugin.class)))
+                        .setPriority(1)
+                        .build())
+                .registerService(ServiceDescriptor.builder(CLIENT)
+                        .setFactoryMethod(staticFactory("create", Mono.class, ref(REPOSITORY)))
+                        .build())
+                .build();
+        try (URLClassLoader loader = compile(config, output)) {
+            RdiServiceContainer generated = (RdiServiceContainer) loader.loadClass(CLASS_NAME).getConstructor()
+                    .newInstance();
+            List<ServiceDescriptor> tested = Collections.synchronizedList(new ArrayList<>());
+            generated.warmUp(descriptor -> {
+                tested.add(descriptor);
+                return descriptor.getPriority() > 0 || descriptor.getServiceReference().equals(CLIENT);
+            }, 2).block();
+
+            assertEquals(Arrays.asList(CLIENT, REPOSITORY, HOST, PLUGIN_A), tested.stream()
+                    .map(ServiceDescriptor::getServiceReference)
+                    .sorted(Comparator.comparing(ServiceReference::getServiceName))
+                    .collect(Collectors.toList()));
+            assertThrows(RdiException.class, () -> tested.get(0).getFactoryMethod());
+            assertEquals(1, generated.getStatistics(HOST).getBuildCount());
+            assertEquals(1, generated.getStatistics(CLIENT).getBuildCount());
+            // Dependencies are instantiated even if they weren't selected
+            assertEquals(1, generated.getStatistics(PLUGIN_A).getBuildCount());
+            assertEquals(1, generated.getStatistics(REPOSITORY).getBuildCount());
+            assertThrows(IllegalArgumentException.class, () -> generated.warmUp(descriptor -> true, 0));
+        }
+    }
+
+    @Test
+    void testSingletonsAreCreatedWithoutLockingTheContainer(@TempDir Path output) throws Exception {
+        ServiceReference<Gate> gateRef = ServiceReference.ofType(Gate.class);
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(gateRef).build())
+                .registerService(ServiceDescriptor.builder(REPOSITORY).build())
+                .build();
+        try (URLClassLoader loader = compile(config, output)) {
+            RdiServiceContainer generated = (RdiServiceContainer) loader.loadClass(CLASS_NAME).getConstructor()
+                    .newInstance();
+            Gate.entered = new CountDownLatch(1);
+            Gate.released = new CountDownLatch(1);
+            CompletableFuture<Gate> gate = generated.getService(gateRef)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .toFuture();
+            assertTrue(Gate.entered.await(5, TimeUnit.SECONDS));
+            // The gate is still being created by another thread
+            assertNotNull(generated.getService(REPOSITORY).block(Duration.ofSeconds(1)));
+            Gate.released.countDown();
+            assertNotNull(gate.get(5, TimeUnit.SECONDS));
+            assertSame(gate.get(), generated.getService(gateRef).block());
+        }
+    }
+
+    @Test
+    void testErrorCycleThroughPrototype() {
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(WORKER)
+                        .setFactoryMethod(constructor(ref(REPOSITORY), value(3)))
+                        .addSetterMethod("setPeer", ref(PEER))
+                        .build())
+                .registerService(ServiceDescriptor.builder(PEER)
+                        .setFactoryMethod(constructor(ref(WORKER)))
+                        .setSingleton(false)
+                        .build())
+                .registerService(ServiceDescriptor.builder(REPOSITORY).build())
+                .build();
+        RdiException e = assertThrows(RdiException.class, () -> ContainerGenerator.generate(config, CLASS_NAME));
+        assertTrue(e.getMessage().contains("peer"), e.getMessage());
+    }
+
+    private static List<String> describe(List<Plugin> plugins) {
+        return plugins.stream().map(plugin -> plugin.getClass().getName()).collect(Collectors.toList());
+    }
+
+    private static URLClassLoader compile(RdiConfig config, Path output) throws Exception {
+        Path sourceFile = ContainerGenerator.write(config, CLASS_NAME, output.resolve("src"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            List<String> options = Arrays.asList("-d", output.toString(), "-classpath", classpath());
+            success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(sourceFile.toFile())).call();
+        }
+        assertTrue(success, () -> diagnostics.getDiagnostics() + "\n"
+                + ContainerGenerator.generate(config, CLASS_NAME));
+        return new URLClassLoader(new URL[] { output.toUri().toURL() }, ContainerGeneratorTest.class.getClassLoader());
+    }
+
+    private static String classpath() {
+        return Stream.of(GeneratedServiceContainer.class, ContainerGeneratorTest.class, Mono.class, Publisher.class,
+                        Nullable.class)
+                .map(c -> {
+                    try {
+                        return Paths.get(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+                    } catch (URISyntaxException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    public static class Repository {
+
+        public void close() {
+            EVENTS.add("close");
+        }
+    }
+
+    public static class Worker {
+
+        private final Repository repository;
+        private final int value;
+        private Peer peer;
+
+        public Worker(Repository repository, int value) {
+            this.repository = repository;
+            this.value = value;
+        }
+
+        public void setPeer(Peer peer) {
+            this.peer = peer;
+        }
+    }
+
+    public static class Peer {
+
+        private final Worker worker;
+
+        public Peer(Worker worker) {
+            this.worker = worker;
+        }
+    }
+
+    public interface Plugin {
+    }
+
+    public static class PluginA implements Plugin {
+    }
+
+    public static class PluginB implements Plugin {
+    }
+
+    public static class Host {
+
+        private final List<Plugin> plugins;
+
+        public Host(List<Plugin> plugins) {
+            this.plugins = plugins;
+        }
+    }
+
+    public static class Client {
+
+        private final Repository repository;
+
+        private Client(Repository repository) {
+            this.repository = repository;
+        }
+
+        public static Mono<Client> create(Repository repository) {
+            return Mono.fromCallable(() -> new Client(repository));
+        }
+    }
+
+    public static class Consumer {
+
+        private final Client client;
+        private boolean initialized;
+
+        public Consumer(Client client) {
+            this.client = client;
+        }
+
+        public void init() {
+            initialized = true;
+        }
+    }
+
+    public static class Banner {
+
+        private final String text;
+        private final char separator;
+
+        public Banner(String text, char separator) {
+            this.text = text;
+            this.separator = separator;
+        }
+    }
+
+    public static class Gate {
+
+        private static CountDownLatch entered = new CountDownLatch(0);
+        private static CountDownLatch released = new CountDownLatch(0);
+
+        public Gate() throws InterruptedException {
+            entered.countDown();
+            if (!released.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Gate not released");
+            }
+        }
+    }
+
+    public static class Request {
+
+        private final ServiceProvider<Repository> repository;
+
+        public Request(ServiceProvider<Repository> repository) {
+            this.repository = repository;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.alex1304.rdi.generator;
+
+import com.github.alex1304.rdi.ServiceReference;
+import com.github.alex1304.rdi.config.RdiConfig;
+import com.github.alex1304.rdi.config.ServiceDescriptor;
+import com.github.alex1304.rdi.finder.annotation.A;
+import com.github.alex1304.rdi.finder.annotation.AnnotationServiceFinder;
+import com.github.alex1304.rdi.finder.annotation.B;
+import com.github.alex1304.rdi.finder.annotation.C;
+import com.github.alex1304.rdi.finder.annotation.Circle;
+import com.github.alex1304.rdi.finder.annotation.Engine;
+import com.github.alex1304.rdi.finder.annotation.Polygon;
+import com.github.alex1304.rdi.finder.annotation.Shape;
+import com.github.alex1304.rdi.finder.annotation.Square;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static com.github.alex1304.rdi.config.FactoryMethod.constructor;
+import static com.github.alex1304.rdi.config.FactoryMethod.staticFactory;
+import static com.github.alex1304.rdi.config.Injectable.ref;
+import static com.github.alex1304.rdi.config.Injectable.value;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeImageMetadataGeneratorTest {
+
+    private static final ServiceReference<Sub> SUB = ServiceReference.ofType(Sub.class);
+    private static final ServiceReference<Dep> DEP = ServiceReference.of("dep", Dep.class);
+
+    @Test
+    void testMetadataOfManualConfig(@TempDir Path dir) throws Exception {
+        RdiConfig config = RdiConfig.builder()
+                .registerService(ServiceDescriptor.builder(SUB)
+                        .setFactoryMethod(constructor(ref(DEP)))
+                        .addSetterMethod("setName", value("sub", String.class))
+                        .addDisposeMethod("close")
+                        .build())
+                .registerService(ServiceDescriptor.builder(DEP)
+                        .setFactoryMethod(staticFactory("create", Dep.class, value(1)))
+                        .addInitMethod("start")
+                        .build())
+                .build();
+        String prefix = NativeImageMetadataGeneratorTest.class.getName();
+        String expected = "[\n"
+                + "  {\n"
+                + "    \"name\": \"" + prefix + "$Base\",\n"
+                + "    \"methods\": [\n"
+                + "      { \"name\": \"close\", \"parameterTypes\": [] },\n"
+                + "      { \"name\": \"setName\", \"parameterTypes\": [\"java.lang.String\"] }\n"
+                + "    ]\n"
+                + "  },\n"
+                + "  {\n"
+                + "    \"name\": \"" + prefix + "$Dep\",\n"
+                + "    \"methods\": [\n"
+                + "      { \"name\": \"create\", \"parameterTypes\": [\"int\"] },\n"
+                + "      { \"name\": \"start\", \"parameterTypes\": [] }\n"
+                + "    ]\n"
+                + "  },\n"
+                + "  {\n"
+                + "    \"name\": \"" + prefix + "$Sub\",\n"
+                + "    \"methods\": [\n"
+                + "      { \"name\": \"<init>\", \"parameterTypes\": [\"" + prefix + "$Dep\"] }\n"
+                + "    ]\n"
+                + "  }\n"
+                + "]\n";
+        assertEquals(expected, NativeImageMetadataGenerator.generate(config));
+        Path file = NativeImageMetadataGenerator.write(config,
+                dir.resolve("META-INF/native-image/reflect-config.json"));
+        assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMetadataMatchesAnnotatedDescriptors() {
+        RdiConfig config = RdiConfig.fromServiceFinder(AnnotationServiceFinder.create(new HashSet<>(
+                Arrays.asList(A.class, B.class, C.class, Circle.class, Square.class, Engine.class))));
+        Map<String, Set<String>> expected = new TreeMap<>();
+        for (ServiceDescriptor descriptor : config.getServiceDescriptors()) {
+            expected.computeIfAbsent(descriptor.getServiceReference().getServiceClassName(), k -> new TreeSet<>());
+            descriptor.getAliases().forEach(alias -> expected.computeIfAbsent(alias.getServiceClassName(),
+                    k -> new TreeSet<>()));
+            String factoryParameters = descriptor.getFactoryMethod().getInjectableParameters().stream()
+                    .map(param -> param.getType().getName())
+                    .reduce((a, b) -> a + ", " + b)
+                    .orElse("");
+            expected.computeIfAbsent(descriptor.getFactoryMethod().getOwner().getName(), k -> new TreeSet<>())
+                    .add(descriptor.getFactoryMethod().getMethodName().orElse("<init>") + "(" + factoryParameters
+                            + ")");
+            descriptor.getFactoryMethod().getMethodName().ifPresent(name -> expected.computeIfAbsent(
+                    descriptor.getFactoryMethod().getReturnType().getName(), k -> new TreeSet<>()));
+            descriptor.getSetterMethods().forEach(setter -> expected.get(setter.getOwner().getName())
+                    .add(setter.getMethodName() + "(" + setter.getInjectableParameter().getType().getName() + ")"));
+            descriptor.getInitMethods().forEach(init -> expected.get(init.getOwner().getName())
+                    .add(init.getMethodName() + "()"));
+            descriptor.getDisposeMethods().forEach(dispose -> expected.get(dispose.getOwner().getName())
+                    .add(dispose.getMethodName() + "()"));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(A.class.getName(), B.class.getName(), C.class.getName(),
+                Circle.class.getName(), Shape.class.getName(), Square.class.getName(), Polygon.class.getName(),
+                Engine.class.getName(), "reactor.core.publisher.Mono")), expected.keySet());
+        assertEquals(expected, parse(NativeImageMetadataGenerator.generate(config)));
+    }
+
+    /*
+     * Reads back the generated metadata, relying on its layout of one class name or method per line.
+     */
+    private static Map<String, Set<String>> parse(String json) {
+        Map<String, Set<String>> methodsByClass = new TreeMap<>();
+        Set<String> methods = null;
+        for (String line : json.split("\n")) {
+            line = line.trim();
+            if (line.startsWith("\"name\": ")) {
+                methods = new TreeSet<>();
+                methodsByClass.put(unquote(line.substring("\"name\": ".length())), methods);
+            } else if (line.startsWith("{ \"name\": ")) {
+                assertNotNull(methods);
+                String name = line.substring("{ \"name\": ".length(), line.indexOf(", \"parameterTypes\""));
+                String parameters = line.substring(line.indexOf('[') + 1, line.lastIndexOf(']'));
+                methods.add(unquote(name) + "(" + parameters.replace("\"", "") + ")");
+            }
+        }
+        return methodsByClass;
+    }
+
+    private static String unquote(String s) {
+        s = s.endsWith(",") ? s.substring(0, s.length() - 1) : s;
+        return s.substring(1, s.length() - 1);
+    }
+
+    public static class Base {
+
+        public void setName(String name) {
+        }
+
+        public void close() {
+        }
+    }
+
+    public static class Sub extends Base {
+
+        public Sub(Dep dep) {
+        }
+    }
+
+    public static class Dep {
+
+        public static Dep create(int value) {
+            return new Dep();
+        }
+
+        public void start() {
+        }
+    }
+}